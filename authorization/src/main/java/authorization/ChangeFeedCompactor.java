@@ -0,0 +1,72 @@
+package authorization;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+// Roda compact_change_events (ChangeFeedSchema.compactionStatements) no banco do serviço dono do feed. Desligado
+// sem change-feed.compaction.interval: só os serviços com change_events configuram o intervalo.
+@Component
+public class ChangeFeedCompactor {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeFeedCompactor.class);
+
+    private final ObjectProvider<ConnectionFactory> connectionFactory;
+
+    @Value("${change-feed.compaction.interval:0s}")
+    private Duration interval = Duration.ZERO;
+
+    @Value("${change-feed.compaction.tombstone-retention:7d}")
+    private Duration tombstoneRetention = Duration.ofDays(7);
+
+    private Disposable subscription;
+
+    public ChangeFeedCompactor(ObjectProvider<ConnectionFactory> connectionFactory) {
+        this.connectionFactory = connectionFactory;
+    }
+
+    @PostConstruct
+    public void start() {
+        ConnectionFactory factory = connectionFactory.getIfAvailable();
+        if (factory == null || interval.isZero() || interval.isNegative()) {
+            return;
+        }
+
+        subscription = Flux.interval(interval, interval)
+                .concatMap(tick -> compact(factory)
+                        .doOnNext(removed -> log.info("change_events compactado: {} evento(s) removido(s)", removed))
+                        .onErrorResume(error -> {
+                            log.warn("Não foi possível compactar o change_events: {}", error.getMessage());
+                            return Mono.empty();
+                        }))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    Mono<Long> compact(ConnectionFactory factory) {
+        return Mono.usingWhen(factory.create(),
+                connection -> Flux.from(connection.createStatement("SELECT compact_change_events(CAST($1 AS interval))")
+                                .bind(0, tombstoneRetention.toSeconds() + " seconds")
+                                .execute())
+                        .concatMap(result -> result.map((row, metadata) -> row.get(0, Long.class)))
+                        .next(),
+                Connection::close);
+    }
+}
@@ -0,0 +1,129 @@
+package authorization;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// DDL do lado dono dos dados: cada INSERT/DELETE (e UPDATE da chave) na tabela vira uma linha em change_events,
+// numerada por seq, e um NOTIFY no canal <tabela>_changes. As réplicas usam o seq para retomar de onde pararam.
+// O ChangeFeedCompactor mantém o log do tamanho das chaves vivas (ver compactionStatements).
+public final class ChangeFeedSchema {
+
+    public static final char KEY_SEPARATOR = '\u001F';
+
+    private ChangeFeedSchema() {
+    }
+
+    public static String channel(String table) {
+        return table + "_changes";
+    }
+
+    // Gera o DDL do feed para uma tabela nova. A migração guarda o SQL gerado como texto literal: uma versão já
+    // aplicada não pode mudar quando este código mudar, e alterações no feed entram como nova versão.
+    public static List<String> statements(String table, String... keyColumns) {
+        String columns = Arrays.stream(keyColumns).map(column -> "'" + column + "'").collect(Collectors.joining(", "));
+        String keyExpression = Arrays.stream(keyColumns)
+                .map(column -> "coalesce(" + column + "::text, '')")
+                .collect(Collectors.joining(" || chr(31) || "));
+
+        return List.of(
+                """
+                CREATE TABLE IF NOT EXISTS change_events (
+                    seq BIGSERIAL PRIMARY KEY,
+                    entity VARCHAR(64) NOT NULL,
+                    op CHAR(1) NOT NULL,
+                    entity_key TEXT NOT NULL,
+                    created_at TIMESTAMP NOT NULL DEFAULT now()
+                );
+                """,
+                "CREATE INDEX IF NOT EXISTS idx_change_events_entity_seq ON change_events (entity, seq);",
+                // O lock transacional serializa quem escreve eventos: seq fica na mesma ordem do commit e uma réplica
+                // nunca avança além de um evento que ainda não estava visível. Só é tomado quando há evento a gravar;
+                // UPDATEs que não mexem na chave (acumulados, valores) nem disparam o gatilho.
+                """
+                CREATE OR REPLACE FUNCTION publish_change() RETURNS TRIGGER AS $$
+                DECLARE
+                    event_seq BIGINT;
+                    old_key TEXT;
+                    new_key TEXT;
+                BEGIN
+                    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+                        SELECT string_agg(coalesce(to_jsonb(OLD) ->> c.col, ''), chr(31) ORDER BY c.ord)
+                        INTO old_key FROM unnest(TG_ARGV) WITH ORDINALITY AS c(col, ord);
+                    END IF;
+                    IF TG_OP IN ('UPDATE', 'INSERT') THEN
+                        SELECT string_agg(coalesce(to_jsonb(NEW) ->> c.col, ''), chr(31) ORDER BY c.ord)
+                        INTO new_key FROM unnest(TG_ARGV) WITH ORDINALITY AS c(col, ord);
+                    END IF;
+                    IF old_key IS NOT DISTINCT FROM new_key THEN
+                        RETURN NULL;
+                    END IF;
+
+                    PERFORM pg_advisory_xact_lock(hashtext('change_events'));
+
+                    IF old_key IS NOT NULL THEN
+                        INSERT INTO change_events (entity, op, entity_key) VALUES (TG_TABLE_NAME, 'D', old_key)
+                        RETURNING seq INTO event_seq;
+                    END IF;
+                    IF new_key IS NOT NULL THEN
+                        INSERT INTO change_events (entity, op, entity_key) VALUES (TG_TABLE_NAME, 'I', new_key)
+                        RETURNING seq INTO event_seq;
+                    END IF;
+
+                    PERFORM pg_notify(TG_TABLE_NAME || '_changes', event_seq::text);
+                    RETURN NULL;
+                END;
+                $$ LANGUAGE plpgsql;
+                """,
+                "CREATE OR REPLACE TRIGGER trg_" + table + "_changes AFTER INSERT OR UPDATE OF " + String.join(", ", keyColumns) +
+                        " OR DELETE ON " + table +
+                        " FOR EACH ROW EXECUTE FUNCTION publish_change(" + columns + ");",
+                // Linhas anteriores ao gatilho entram no log uma única vez, para a réplica partir de seq 0.
+                "INSERT INTO change_events (entity, op, entity_key) SELECT '" + table + "', 'I', " + keyExpression +
+                        " FROM " + table + " WHERE NOT EXISTS (SELECT 1 FROM change_events WHERE entity = '" + table + "');"
+        );
+    }
+
+    // Compactação do log, uma vez por banco (change_events_horizon e compact_change_events servem a todas as tabelas).
+    // De cada chave só o último evento importa para quem retoma de qualquer seq: os anteriores saem. Exclusões ficam
+    // como marcador até a retenção vencer; ao apagá-las, o maior seq apagado vai para change_events_horizon, e a
+    // réplica cujo último seq ficou abaixo dele recarrega do início.
+    public static List<String> compactionStatements() {
+        return List.of(
+                """
+                CREATE TABLE IF NOT EXISTS change_events_horizon (
+                    entity VARCHAR(64) PRIMARY KEY,
+                    purged_seq BIGINT NOT NULL
+                );
+                """,
+                "CREATE INDEX IF NOT EXISTS idx_change_events_entity_key_seq ON change_events (entity, entity_key, seq);",
+                """
+                CREATE OR REPLACE FUNCTION compact_change_events(tombstone_retention INTERVAL) RETURNS BIGINT AS $$
+                DECLARE
+                    superseded BIGINT;
+                    purged BIGINT;
+                BEGIN
+                    DELETE FROM change_events c
+                    WHERE EXISTS (SELECT 1 FROM change_events n
+                                  WHERE n.entity = c.entity AND n.entity_key = c.entity_key AND n.seq > c.seq);
+                    GET DIAGNOSTICS superseded = ROW_COUNT;
+
+                    WITH tombstones AS (
+                        DELETE FROM change_events
+                        WHERE op = 'D' AND created_at < now() - tombstone_retention
+                        RETURNING entity, seq
+                    ), horizon AS (
+                        INSERT INTO change_events_horizon (entity, purged_seq)
+                        SELECT entity, max(seq) FROM tombstones GROUP BY entity
+                        ON CONFLICT (entity) DO UPDATE
+                            SET purged_seq = GREATEST(change_events_horizon.purged_seq, EXCLUDED.purged_seq)
+                    )
+                    SELECT count(*) INTO purged FROM tombstones;
+
+                    RETURN superseded + purged;
+                END;
+                $$ LANGUAGE plpgsql;
+                """
+        );
+    }
+}
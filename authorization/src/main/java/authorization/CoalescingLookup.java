@@ -0,0 +1,101 @@
+package authorization;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Consultas idênticas em andamento a outro serviço compartilham uma única chamada (single-flight). O resultado fica
+// guardado por pouco tempo: positive-ttl para 200, negative-ttl para 404; qualquer outra resposta não é guardada.
+// A métrica lookup.coalescing.dedup.ratio mostra a fração de pedidos que não precisou de chamada própria.
+// A chamada sai com o token de quem a disparou e o serviço remoto checa a permissão dele, então só compartilham o
+// resultado chamadores com a mesma permissão: mesmo role (identidade assinada pelo gateway) ou, sem ela, mesmo token.
+public class CoalescingLookup {
+
+    private static final char SCOPE_SEPARATOR = '\u001E';
+
+    private final long positiveTtlNanos;
+    private final long negativeTtlNanos;
+    private final AsyncCache<String, ResponseEntity<String>> cache;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+
+    public CoalescingLookup(String name, Duration positiveTtl, Duration negativeTtl, long maximumSize, MeterRegistry meterRegistry) {
+        this.positiveTtlNanos = positiveTtl.toNanos();
+        this.negativeTtlNanos = negativeTtl.toNanos();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<String, ResponseEntity<String>>() {
+                    @Override
+                    public long expireAfterCreate(String key, ResponseEntity<String> response, long currentTime) {
+                        return ttlNanos(response);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, ResponseEntity<String> response, long currentTime, long currentDuration) {
+                        return ttlNanos(response);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, ResponseEntity<String> response, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .buildAsync();
+
+        if (meterRegistry != null) {
+            FunctionCounter.builder("lookup.coalescing.requests", requests, AtomicLong::get)
+                    .tag("lookup", name)
+                    .register(meterRegistry);
+            FunctionCounter.builder("lookup.coalescing.loads", loads, AtomicLong::get)
+                    .description("Chamadas efetivamente feitas ao serviço remoto")
+                    .tag("lookup", name)
+                    .register(meterRegistry);
+            Gauge.builder("lookup.coalescing.dedup.ratio", this, CoalescingLookup::dedupRatio)
+                    .tag("lookup", name)
+                    .register(meterRegistry);
+        }
+    }
+
+    public Mono<ResponseEntity<String>> get(String key, String token, Supplier<Mono<ResponseEntity<String>>> loader) {
+        return Mono.deferContextual(context -> {
+            requests.incrementAndGet();
+
+            String scope = context.<VerifiedIdentity>getOrEmpty(VerifiedIdentity.class)
+                    .map(identity -> "role:" + identity.role())
+                    .orElseGet(() -> "token:" + token);
+            String scopedKey = scope + SCOPE_SEPARATOR + key;
+
+            // suppressCancel: a chamada é compartilhada, o cancelamento de um chamador não pode derrubá-la para os demais.
+            return Mono.fromFuture(() -> cache.get(scopedKey, (k, executor) -> {
+                loads.incrementAndGet();
+                return loader.get()
+                        .contextWrite(context)
+                        .toFuture();
+            }), true);
+        });
+    }
+
+    public double dedupRatio() {
+        long total = requests.get();
+        return total == 0 ? 0 : 1 - (double) loads.get() / total;
+    }
+
+    private long ttlNanos(ResponseEntity<String> response) {
+        HttpStatus status = HttpStatus.resolve(response.getStatusCode().value());
+        if (status == HttpStatus.OK) {
+            return positiveTtlNanos;
+        }
+        return status == HttpStatus.NOT_FOUND ? negativeTtlNanos : 0;
+    }
+}
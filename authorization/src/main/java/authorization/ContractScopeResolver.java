@@ -0,0 +1,108 @@
+package authorization;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.postgresql.PostgresqlConnectionFactory;
+import io.r2dbc.postgresql.PostgresqlConnectionFactoryProvider;
+import io.r2dbc.postgresql.api.PostgresqlConnection;
+import io.r2dbc.postgresql.api.PostgresqlResult;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Contratos de cada usuário (e-mail -> contratos), guardados por ttl. O serviço project publica no canal CHANNEL o
+// e-mail de quem entrou ou saiu de uma obra; a entrada daquele e-mail é descartada assim que o aviso chega.
+// Com url configurada e o canal fora do ar não há como saber das mudanças, então a consulta vai direto ao loader
+// até a escuta voltar (e, ao voltar, tudo o que estava guardado é descartado). Sem url, vale só o ttl.
+public class ContractScopeResolver {
+
+    public static final String CHANNEL = "project_members_changes";
+
+    private final PostgresqlConnectionFactory connectionFactory;
+    private final AsyncCache<String, List<String>> cache;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+
+    private volatile boolean listening;
+    private Disposable subscription;
+
+    public ContractScopeResolver(String url, String username, String password, Duration ttl, long maximumSize, MeterRegistry meterRegistry) {
+        this.connectionFactory = url == null || url.isBlank() ? null : new PostgresqlConnectionFactoryProvider().create(
+                ConnectionFactoryOptions.parse(url).mutate()
+                        .option(ConnectionFactoryOptions.USER, username)
+                        .option(ConnectionFactoryOptions.PASSWORD, password)
+                        .build());
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maximumSize)
+                .buildAsync();
+
+        if (meterRegistry != null) {
+            FunctionCounter.builder("contract.scope.requests", requests, AtomicLong::get)
+                    .register(meterRegistry);
+            FunctionCounter.builder("contract.scope.loads", loads, AtomicLong::get)
+                    .description("Consultas efetivamente feitas ao serviço project")
+                    .register(meterRegistry);
+        }
+    }
+
+    public Mono<List<String>> contracts(String email, Supplier<Mono<List<String>>> loader) {
+        requests.incrementAndGet();
+
+        if (connectionFactory != null && !listening) {
+            loads.incrementAndGet();
+            return loader.get();
+        }
+
+        return Mono.fromFuture(() -> cache.get(email, (key, executor) -> {
+            loads.incrementAndGet();
+            return loader.get().toFuture();
+        }), true);
+    }
+
+    public void invalidate(String email) {
+        cache.synchronous().invalidate(email);
+    }
+
+    public void start() {
+        if (connectionFactory == null) {
+            return;
+        }
+
+        subscription = Mono.usingWhen(connectionFactory.create(), this::listen, PostgresqlConnection::close)
+                .doOnError(error -> {
+                    listening = false;
+                    System.err.println("Escuta de '" + CHANNEL + "' desconectada: " + error.getMessage());
+                })
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .subscribe();
+    }
+
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    private Mono<Void> listen(PostgresqlConnection connection) {
+        return connection.createStatement("LISTEN " + CHANNEL)
+                .execute()
+                .flatMap(PostgresqlResult::getRowsUpdated)
+                .then(Mono.fromRunnable(() -> {
+                    cache.synchronous().invalidateAll();
+                    listening = true;
+                }))
+                .thenMany(connection.getNotifications())
+                .doOnNext(notification -> invalidate(notification.getParameter()))
+                .then(Mono.error(new IllegalStateException("conexão encerrada")));
+    }
+}
@@ -0,0 +1,111 @@
+package authorization;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.Optional;
+
+// Cabeçalho interno X-Identity: base64url(subject).role.action.expiresAt.base64url(HMAC-SHA256 do restante).
+// Verificar custa um HMAC sobre poucas dezenas de bytes, sem parse de JWT nem chamada ao serviço user.
+@Component
+public class IdentitySigner {
+
+    public static final String HEADER = "X-Identity";
+
+    // Chamadas internas entre serviços, para operações que nenhum cliente pode fazer pelo gateway. Mesmo formato e
+    // segredo, com role SERVICE (que não existe na matriz de permissões) e validade curta; o gateway nunca o emite.
+    public static final String SERVICE_HEADER = "X-Service-Identity";
+    public static final String SERVICE_ROLE = "SERVICE";
+
+    private static final long SERVICE_TTL_SECONDS = 60;
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    @Value("${authorization.identity-secret:${jwt.secret}}")
+    private String secret;
+
+    private SecretKeySpec key;
+
+    private final ThreadLocal<Mac> mac = ThreadLocal.withInitial(this::newMac);
+
+    @PostConstruct
+    public void init() {
+        this.key = new SecretKeySpec(Base64.getDecoder().decode(secret), ALGORITHM);
+    }
+
+    public String sign(String subject, String role, String action, long expiresAt) {
+        String payload = ENCODER.encodeToString(subject.getBytes(StandardCharsets.UTF_8))
+                + "." + role
+                + "." + (action == null ? "" : action)
+                + "." + expiresAt;
+        return payload + "." + ENCODER.encodeToString(hmac(payload));
+    }
+
+    public String signService(String service, String action) {
+        return sign(service, SERVICE_ROLE, action, System.currentTimeMillis() / 1000 + SERVICE_TTL_SECONDS);
+    }
+
+    public boolean verifyService(String header, String action) {
+        return verify(header)
+                .filter(identity -> SERVICE_ROLE.equals(identity.role()) && action.equals(identity.action()))
+                .isPresent();
+    }
+
+    public Optional<VerifiedIdentity> verify(String header) {
+        if (header == null || header.isEmpty()) {
+            return Optional.empty();
+        }
+
+        int signatureStart = header.lastIndexOf('.');
+        if (signatureStart < 0) {
+            return Optional.empty();
+        }
+
+        String payload = header.substring(0, signatureStart);
+        String[] parts = payload.split("\\.", -1);
+        if (parts.length != 4) {
+            return Optional.empty();
+        }
+
+        try {
+            byte[] signature = DECODER.decode(header.substring(signatureStart + 1));
+            if (!MessageDigest.isEqual(signature, hmac(payload))) {
+                return Optional.empty();
+            }
+
+            long expiresAt = Long.parseLong(parts[3]);
+            if (expiresAt <= System.currentTimeMillis() / 1000) {
+                return Optional.empty();
+            }
+
+            String subject = new String(DECODER.decode(parts[0]), StandardCharsets.UTF_8);
+            return Optional.of(new VerifiedIdentity(subject, parts[1], parts[2], expiresAt));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    private byte[] hmac(String payload) {
+        return mac.get().doFinal(payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac instance = Mac.getInstance(ALGORITHM);
+            instance.init(key);
+            return instance;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Não foi possível inicializar o HMAC do cabeçalho de identidade", e);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package authorization;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+// Valida o cabeçalho assinado pelo gateway uma vez por requisição e deixa a identidade no contexto do Reactor,
+// onde o PermissionEvaluator a encontra sem voltar a ler o JWT.
+@Component
+public class IdentityWebFilter implements WebFilter {
+
+    private final IdentitySigner identitySigner;
+
+    public IdentityWebFilter(IdentitySigner identitySigner) {
+        this.identitySigner = identitySigner;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String header = exchange.getRequest().getHeaders().getFirst(IdentitySigner.HEADER);
+
+        return identitySigner.verify(header)
+                .map(identity -> chain.filter(exchange)
+                        .contextWrite(context -> context.put(VerifiedIdentity.class, identity)))
+                .orElseGet(() -> chain.filter(exchange));
+    }
+}
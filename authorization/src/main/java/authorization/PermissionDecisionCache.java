@@ -0,0 +1,111 @@
+package authorization;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Decisões de hasPermission por (token, ação). Enquanto o token não expira a resposta não muda, então ela é
+// guardada até o exp do token (limitada por max-ttl e pela versão da matriz). Misses simultâneos para a mesma
+// chave compartilham uma única consulta. Só guarda as respostas do serviço de usuários (modo remote): no modo local
+// os clientes chamam o PermissionEvaluator direto, sem cache.
+@Component
+public class PermissionDecisionCache {
+
+    private final PermissionEvaluator permissionEvaluator;
+    private final long maxTtlMillis;
+    private final AsyncCache<DecisionKey, CachedDecision> cache;
+
+    public PermissionDecisionCache(PermissionEvaluator permissionEvaluator,
+                                   ObjectProvider<MeterRegistry> meterRegistry,
+                                   @Value("${authorization.decision-cache.maximum-size:10000}") long maximumSize,
+                                   @Value("${authorization.decision-cache.max-ttl:60s}") Duration maxTtl) {
+        this.permissionEvaluator = permissionEvaluator;
+        this.maxTtlMillis = maxTtl.toMillis();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<DecisionKey, CachedDecision>() {
+                    @Override
+                    public long expireAfterCreate(DecisionKey key, CachedDecision decision, long currentTime) {
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, decision.cacheUntil() - System.currentTimeMillis()));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(DecisionKey key, CachedDecision decision, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, decision, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(DecisionKey key, CachedDecision decision, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .buildAsync();
+        meterRegistry.ifAvailable(registry -> CaffeineCacheMetrics.monitor(registry, cache.synchronous(), "permissionDecisions"));
+    }
+
+    public Mono<ResponseEntity<String>> get(String token, String action, Supplier<Mono<ResponseEntity<String>>> loader) {
+        return Mono.deferContextual(context -> {
+            DecisionKey key = new DecisionKey(digest(token), action, permissionEvaluator.getVersion());
+
+            // suppressCancel: a consulta é compartilhada, o cancelamento de um chamador não pode derrubá-la para os demais.
+            return Mono.fromFuture(() -> cache.get(key, (k, executor) -> loader.get()
+                            .contextWrite(context)
+                            .map(response -> new CachedDecision(response, cacheUntil(token, response)))
+                            .toFuture()), true)
+                    .map(CachedDecision::response);
+        });
+    }
+
+    public void invalidateAll() {
+        cache.synchronous().invalidateAll();
+    }
+
+    // Só decisões definitivas são guardadas; erros e respostas inesperadas expiram na hora.
+    private long cacheUntil(String token, ResponseEntity<String> response) {
+        HttpStatus status = HttpStatus.resolve(response.getStatusCode().value());
+        if (status != HttpStatus.OK && status != HttpStatus.FORBIDDEN && status != HttpStatus.NOT_FOUND) {
+            return 0;
+        }
+
+        try {
+            return Math.min(permissionEvaluator.expiresAt(token), System.currentTimeMillis() + maxTtlMillis);
+        } catch (RuntimeException e) {
+            return 0;
+        }
+    }
+
+    private static String digest(String token) {
+        if (token.startsWith("Bearer ")) {
+            token = token.substring(7);
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record DecisionKey(String tokenDigest, String action, long version) {
+    }
+
+    private record CachedDecision(ResponseEntity<String> response, long cacheUntil) {
+    }
+}
@@ -0,0 +1,127 @@
+package authorization;
+
+import enums.Role;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Base64;
+import java.util.Date;
+
+@Component
+public class PermissionEvaluator {
+
+    private static final ResponseEntity<String> PERMISSION_GRANTED = ResponseEntity.ok("Permissão concedida");
+
+    private volatile PermissionSnapshot snapshot = PermissionSnapshot.defaults();
+
+    private JwtParser jwtParser;
+
+    @Value("${jwt.secret}")
+    private String secret;
+
+    // local: valida o token e a permissão no próprio serviço; remote: consulta o serviço de usuários.
+    @Value("${authorization.mode:local}")
+    private String mode;
+
+    @PostConstruct
+    public void init() {
+        byte[] secretBytes = Base64.getDecoder().decode(secret);
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(secretBytes))
+                .build();
+    }
+
+    public boolean isLocal() {
+        return !"remote".equalsIgnoreCase(mode);
+    }
+
+    public long getVersion() {
+        return snapshot.version();
+    }
+
+    public void update(PermissionSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    // Com o cabeçalho assinado pelo gateway a decisão já veio pronta (ou sai da role assinada);
+    // sem ele, o token é lido aqui mesmo.
+    public Mono<ResponseEntity<String>> hasPermission(String token, String action) {
+        return Mono.deferContextual(context -> context.<VerifiedIdentity>getOrEmpty(VerifiedIdentity.class)
+                .map(identity -> Mono.just(evaluate(identity, action)))
+                .orElseGet(() -> Mono.fromCallable(() -> evaluate(token, action))));
+    }
+
+    ResponseEntity<String> evaluate(VerifiedIdentity identity, String action) {
+        if (action.equals(identity.action())) {
+            return PERMISSION_GRANTED;
+        }
+        return decide(identity.role(), action);
+    }
+
+    ResponseEntity<String> evaluate(String token, String action) {
+        if (token.startsWith("Bearer ")) {
+            token = token.substring(7);
+        }
+
+        String roleName = jwtParser.parseClaimsJws(token)
+                .getBody()
+                .get("role", String.class);
+
+        return decide(roleName, action);
+    }
+
+    // E-mail do dono do token: vem da identidade assinada pelo gateway ou do subject do próprio JWT.
+    public Mono<String> subject(String token) {
+        return Mono.deferContextual(context -> context.<VerifiedIdentity>getOrEmpty(VerifiedIdentity.class)
+                .map(identity -> Mono.just(identity.subject()))
+                .orElseGet(() -> Mono.fromCallable(() -> {
+                    String jwt = token.startsWith("Bearer ") ? token.substring(7) : token;
+                    return jwtParser.parseClaimsJws(jwt).getBody().getSubject();
+                })));
+    }
+
+    // Instante (epoch millis) em que o token expira; Long.MAX_VALUE quando ele não tem exp.
+    public long expiresAt(String token) {
+        if (token.startsWith("Bearer ")) {
+            token = token.substring(7);
+        }
+
+        Date expiration = jwtParser.parseClaimsJws(token).getBody().getExpiration();
+        return expiration == null ? Long.MAX_VALUE : expiration.getTime();
+    }
+
+    public ResponseEntity<String> decide(String roleName, String action) {
+        if (roleName == null) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body("Sem permissão: role não encontrada");
+        }
+
+        Role role;
+        try {
+            role = Role.valueOf(roleName);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Role '" + roleName + "' não é válida");
+        }
+
+        PermissionMatrix permissionMatrix = snapshot.permissionMatrix();
+        int actionId = permissionMatrix.actionId(action);
+        if (actionId == PermissionMatrix.UNKNOWN_ACTION) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body("A ação '" + action + "' não existe para a role " + roleName);
+        }
+
+        if (permissionMatrix.isAllowed(role, actionId)) {
+            return PERMISSION_GRANTED;
+        }
+        return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                .body("Sem permissão para a ação: " + action);
+    }
+}
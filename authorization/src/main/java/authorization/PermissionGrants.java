@@ -0,0 +1,8 @@
+package authorization;
+
+import java.util.Map;
+import java.util.Set;
+
+// Formato de troca da matriz de permissões entre o serviço user e os demais serviços.
+public record PermissionGrants(long version, Set<String> actions, Map<String, Set<String>> permissions) {
+}
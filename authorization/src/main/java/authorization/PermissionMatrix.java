@@ -0,0 +1,128 @@
+package authorization;
+
+import enums.Role;
+import strategies.RoleStrategy;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+public final class PermissionMatrix {
+
+    public static final int UNKNOWN_ACTION = -1;
+
+    private final List<String> actions;
+    private final Map<String, Integer> actionIds;
+    private final long[] roleMasks;
+
+    private PermissionMatrix(List<String> actions, Map<String, Integer> actionIds, long[] roleMasks) {
+        this.actions = actions;
+        this.actionIds = actionIds;
+        this.roleMasks = roleMasks;
+    }
+
+    // Matriz padrão, definida pelas implementações de RoleStrategy.
+    public static PermissionMatrix fromRoles() {
+        Set<String> actions = new HashSet<>();
+        for (Method method : RoleStrategy.class.getMethods()) {
+            if (method.getParameterCount() == 0 && method.getReturnType() == boolean.class) {
+                actions.add(method.getName());
+            }
+        }
+
+        Map<Role, Set<String>> grants = new EnumMap<>(Role.class);
+        for (Role role : Role.values()) {
+            Set<String> allowed = new HashSet<>();
+            for (String action : actions) {
+                try {
+                    if ((boolean) Role.class.getMethod(action).invoke(role)) {
+                        allowed.add(action);
+                    }
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException("Ação '" + action + "' não implementada para a role " + role, e);
+                }
+            }
+            grants.put(role, allowed);
+        }
+
+        return of(actions, grants);
+    }
+
+    public static PermissionMatrix from(PermissionGrants grants) {
+        Map<Role, Set<String>> roleGrants = new EnumMap<>(Role.class);
+        grants.permissions().forEach((roleName, allowed) -> {
+            try {
+                roleGrants.put(Role.valueOf(roleName), allowed);
+            } catch (IllegalArgumentException e) {
+                // Role desconhecida por esta versão do serviço: ignorada.
+            }
+        });
+        return of(grants.actions(), roleGrants);
+    }
+
+    // Cada ação recebe um id denso (0..63) e cada Role um long com um bit por ação permitida.
+    // A verificação por requisição fica reduzida a uma busca no mapa e um teste de bit.
+    public static PermissionMatrix of(Collection<String> actions, Map<Role, ? extends Collection<String>> grants) {
+        List<String> sortedActions = List.copyOf(new TreeSet<>(actions));
+
+        if (sortedActions.size() > Long.SIZE) {
+            throw new IllegalStateException("A matriz de permissões suporta no máximo " + Long.SIZE + " ações");
+        }
+
+        Map<String, Integer> actionIds = new HashMap<>();
+        for (int id = 0; id < sortedActions.size(); id++) {
+            actionIds.put(sortedActions.get(id), id);
+        }
+
+        long[] roleMasks = new long[Role.values().length];
+        grants.forEach((role, allowed) -> {
+            for (String action : allowed) {
+                Integer id = actionIds.get(action);
+                if (id != null) {
+                    roleMasks[role.ordinal()] |= 1L << id;
+                }
+            }
+        });
+
+        return new PermissionMatrix(sortedActions, Map.copyOf(actionIds), roleMasks);
+    }
+
+    public PermissionGrants toGrants(long version) {
+        Map<String, Set<String>> permissions = new HashMap<>();
+        for (Role role : Role.values()) {
+            Set<String> allowed = new TreeSet<>();
+            for (int id = 0; id < actions.size(); id++) {
+                if (isAllowed(role, id)) {
+                    allowed.add(actions.get(id));
+                }
+            }
+            permissions.put(role.name(), allowed);
+        }
+        return new PermissionGrants(version, new TreeSet<>(actions), permissions);
+    }
+
+    public int actionId(String action) {
+        Integer id = actionIds.get(action);
+        return id == null ? UNKNOWN_ACTION : id;
+    }
+
+    public boolean hasAction(String action) {
+        return actionIds.containsKey(action);
+    }
+
+    public boolean isAllowed(Role role, int actionId) {
+        return (roleMasks[role.ordinal()] & (1L << actionId)) != 0;
+    }
+
+    public boolean isAllowed(Role role, String action) {
+        int actionId = actionId(action);
+        return actionId != UNKNOWN_ACTION && isAllowed(role, actionId);
+    }
+}
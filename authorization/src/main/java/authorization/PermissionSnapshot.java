@@ -0,0 +1,13 @@
+package authorization;
+
+// Versão imutável da matriz; é substituída por inteiro quando a matriz muda, nunca alterada no lugar.
+public record PermissionSnapshot(long version, PermissionMatrix permissionMatrix) {
+
+    public static PermissionSnapshot defaults() {
+        return new PermissionSnapshot(0, PermissionMatrix.fromRoles());
+    }
+
+    public static PermissionSnapshot from(PermissionGrants grants) {
+        return new PermissionSnapshot(grants.version(), PermissionMatrix.from(grants));
+    }
+}
@@ -0,0 +1,73 @@
+package authorization;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+// Mantém a matriz local alinhada com a do serviço user: consulta só a versão e baixa a matriz quando ela muda.
+@Component
+public class PermissionSnapshotRefresher {
+
+    private static final Logger log = LoggerFactory.getLogger(PermissionSnapshotRefresher.class);
+
+    private final WebClient webClient;
+    private final PermissionEvaluator permissionEvaluator;
+
+    @Value("${authorization.refresh-interval:30}")
+    private long refreshIntervalSeconds;
+
+    private Disposable subscription;
+
+    public PermissionSnapshotRefresher(WebClient.Builder webClientBuilder, PermissionEvaluator permissionEvaluator) {
+        this.webClient = webClientBuilder.build();
+        this.permissionEvaluator = permissionEvaluator;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!permissionEvaluator.isLocal() || refreshIntervalSeconds <= 0) {
+            return;
+        }
+
+        subscription = Flux.interval(Duration.ZERO, Duration.ofSeconds(refreshIntervalSeconds))
+                .concatMap(tick -> refresh()
+                        .onErrorResume(error -> {
+                            log.warn("Não foi possível atualizar a matriz de permissões: {}", error.getMessage());
+                            return Mono.empty();
+                        }))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    Mono<Void> refresh() {
+        return webClient.get()
+                .uri("lb://user/api/users/permissions/version")
+                .retrieve()
+                .bodyToMono(Long.class)
+                .filter(version -> version != permissionEvaluator.getVersion())
+                .flatMap(version -> webClient.get()
+                        .uri("lb://user/api/users/permissions")
+                        .retrieve()
+                        .bodyToMono(PermissionGrants.class))
+                .doOnNext(grants -> {
+                    permissionEvaluator.update(PermissionSnapshot.from(grants));
+                    log.info("Matriz de permissões atualizada para a versão {}", grants.version());
+                })
+                .then();
+    }
+}
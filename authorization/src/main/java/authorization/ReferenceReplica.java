@@ -0,0 +1,154 @@
+package authorization;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.postgresql.PostgresqlConnectionFactory;
+import io.r2dbc.postgresql.PostgresqlConnectionFactoryProvider;
+import io.r2dbc.postgresql.api.PostgresqlConnection;
+import io.r2dbc.postgresql.api.PostgresqlResult;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+// Cópia em memória das chaves de uma tabela de outro serviço, alimentada pelo change_events do dono
+// (ver ChangeFeedSchema). Escuta o canal com LISTEN e, a cada NOTIFY ou reconexão, aplica os eventos com seq maior
+// que o último visto. Só responde depois de alcançar o log; sem conexão volta a ficar indisponível. O log é
+// compactado no dono: se exclusões que esta réplica ainda não viu já saíram (seq abaixo do horizonte), ela recarrega
+// do início. Enquanto recarrega pode dar falso "não existe", que é sempre confirmado no serviço dono.
+public class ReferenceReplica {
+
+    private final String table;
+    private final PostgresqlConnectionFactory connectionFactory;
+    private final Set<String> keys = ConcurrentHashMap.newKeySet();
+
+    private volatile long lastSeq;
+    private volatile boolean ready;
+    private Disposable subscription;
+
+    public ReferenceReplica(String table, String url, String username, String password, MeterRegistry meterRegistry) {
+        this.table = table;
+        this.connectionFactory = url == null || url.isBlank() ? null : new PostgresqlConnectionFactoryProvider().create(
+                ConnectionFactoryOptions.parse(url).mutate()
+                        .option(ConnectionFactoryOptions.USER, username)
+                        .option(ConnectionFactoryOptions.PASSWORD, password)
+                        .build());
+
+        if (meterRegistry != null) {
+            Gauge.builder("reference.replica.size", keys, Set::size)
+                    .tag("entity", table)
+                    .register(meterRegistry);
+            Gauge.builder("reference.replica.seq", this, replica -> replica.lastSeq)
+                    .tag("entity", table)
+                    .register(meterRegistry);
+        }
+    }
+
+    public static String key(String... parts) {
+        return Arrays.stream(parts)
+                .map(part -> Objects.toString(part, ""))
+                .collect(Collectors.joining(String.valueOf(ChangeFeedSchema.KEY_SEPARATOR)));
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public boolean contains(String... parts) {
+        return keys.contains(key(parts));
+    }
+
+    public void start() {
+        if (connectionFactory == null) {
+            return;
+        }
+
+        subscription = Mono.usingWhen(connectionFactory.create(), this::follow, PostgresqlConnection::close)
+                .doOnError(error -> {
+                    ready = false;
+                    System.err.println("Réplica de '" + table + "' desconectada: " + error.getMessage());
+                })
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .subscribe();
+    }
+
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    private Mono<Void> follow(PostgresqlConnection connection) {
+        return connection.createStatement("LISTEN " + ChangeFeedSchema.channel(table))
+                .execute()
+                .flatMap(PostgresqlResult::getRowsUpdated)
+                .then()
+                // Notificações primeiro, depois o catch-up inicial: nada commitado entre os dois se perde.
+                .thenMany(connection.getNotifications().map(notification -> Boolean.TRUE)
+                        .mergeWith(Mono.just(Boolean.TRUE)))
+                .onBackpressureLatest()
+                .concatMap(signal -> catchUp(connection), 1)
+                .then(Mono.error(new IllegalStateException("conexão encerrada")));
+    }
+
+    void apply(long seq, String op, String entityKey) {
+        if ("D".equals(op)) {
+            keys.remove(entityKey);
+        } else {
+            keys.add(entityKey);
+        }
+        lastSeq = seq;
+    }
+
+    // Horizonte e eventos na mesma consulta: uma compactação no meio não passa despercebida.
+    private Mono<Void> catchUp(PostgresqlConnection connection) {
+        return connection.createStatement("""
+                        SELECT h.purged_seq, e.seq, e.op, e.entity_key
+                        FROM (SELECT coalesce(max(purged_seq), 0) AS purged_seq FROM change_events_horizon WHERE entity = $1) h
+                        LEFT JOIN change_events e ON e.entity = $1 AND e.seq > $2
+                        ORDER BY e.seq
+                        """)
+                .bind(0, table)
+                .bind(1, lastSeq)
+                .execute()
+                .concatMap(result -> result.map((row, metadata) -> new CatchUpRow(row.get("purged_seq", Long.class),
+                        new ChangeEvent(Objects.requireNonNullElse(row.get("seq", Long.class), 0L),
+                                row.get("op", String.class), row.get("entity_key", String.class)))))
+                .collectList()
+                .flatMap(rows -> {
+                    List<ChangeEvent> events = rows.stream()
+                            .map(CatchUpRow::event)
+                            .filter(event -> event.entityKey() != null)
+                            .toList();
+                    return applyAll(rows.isEmpty() ? 0 : rows.get(0).purgedSeq(), events)
+                            ? Mono.<Void>fromRunnable(() -> ready = true)
+                            : catchUp(connection);
+                });
+    }
+
+    // false quando a réplica ficou abaixo do horizonte compactado: as chaves são descartadas para recarregar de seq 0.
+    boolean applyAll(long purgedSeq, List<ChangeEvent> events) {
+        if (lastSeq > 0 && purgedSeq > lastSeq) {
+            keys.clear();
+            lastSeq = 0;
+            return false;
+        }
+        events.forEach(event -> apply(event.seq(), event.op(), event.entityKey()));
+        return true;
+    }
+
+    private record CatchUpRow(long purgedSeq, ChangeEvent event) {
+    }
+
+    record ChangeEvent(long seq, String op, String entityKey) {
+    }
+}
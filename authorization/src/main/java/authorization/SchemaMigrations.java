@@ -0,0 +1,140 @@
+package authorization;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Result;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+// Migrações versionadas do esquema de um serviço. Cada versão roda uma única vez, numa transação, e fica registrada em
+// schema_migrations com o checksum das instruções: versão já aplicada cujo conteúdo mudou impede a subida, então
+// mudança de esquema entra sempre como versão nova no fim da lista. Tudo roda numa única conexão, sob um advisory lock
+// de sessão, para que instâncias do mesmo serviço subindo juntas apliquem cada versão uma vez só.
+public final class SchemaMigrations {
+
+    public record Migration(int version, String description, List<String> statements) {
+
+        public Migration {
+            statements = List.copyOf(statements);
+        }
+
+        String checksum() {
+            try {
+                MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                for (String statement : statements) {
+                    digest.update(statement.strip().getBytes(StandardCharsets.UTF_8));
+                    digest.update((byte) 0);
+                }
+                return HexFormat.of().formatHex(digest.digest());
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private final String schema;
+    private final List<Migration> migrations;
+
+    public SchemaMigrations(String schema, List<Migration> migrations) {
+        for (int i = 0; i < migrations.size(); i++) {
+            if (migrations.get(i).version() <= (i == 0 ? 0 : migrations.get(i - 1).version())) {
+                throw new IllegalArgumentException("Versões de migração devem ser positivas e crescentes: V" + migrations.get(i).version());
+            }
+        }
+        this.schema = schema;
+        this.migrations = List.copyOf(migrations);
+    }
+
+    public static Migration migration(int version, String description, String... statements) {
+        return new Migration(version, description, List.of(statements));
+    }
+
+    public static Migration migration(int version, String description, List<String> statements) {
+        return new Migration(version, description, statements);
+    }
+
+    // Aplica as versões pendentes e devolve quantas foram aplicadas. O banco pode ainda estar subindo junto com o
+    // serviço, então a conexão é tentada algumas vezes antes de desistir.
+    public Mono<Long> apply(ConnectionFactory connectionFactory) {
+        return Mono.usingWhen(Mono.from(connectionFactory.create())
+                        .retryWhen(Retry.backoff(10, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(10))),
+                this::applyOn,
+                this::release,
+                (connection, error) -> release(connection),
+                this::release);
+    }
+
+    private Mono<Long> applyOn(Connection connection) {
+        return execute(connection, "SELECT pg_advisory_lock(hashtext('schema_migrations'))")
+                .then(execute(connection, "CREATE SCHEMA IF NOT EXISTS " + schema))
+                .then(execute(connection, "SET search_path TO " + schema + ", public"))
+                .then(execute(connection, """
+                        CREATE TABLE IF NOT EXISTS schema_migrations (
+                            version INTEGER PRIMARY KEY,
+                            description VARCHAR(255) NOT NULL,
+                            checksum VARCHAR(64) NOT NULL,
+                            applied_at TIMESTAMP NOT NULL DEFAULT now()
+                        )
+                        """))
+                .then(Flux.from(connection.createStatement("SELECT version, checksum FROM schema_migrations").execute())
+                        .flatMap(result -> result.map((row, metadata) -> Map.entry(row.get("version", Integer.class), row.get("checksum", String.class))))
+                        .collectMap(Map.Entry::getKey, Map.Entry::getValue))
+                .flatMapMany(applied -> Flux.fromIterable(pending(applied)))
+                .concatMap(migration -> applyOne(connection, migration))
+                .count();
+    }
+
+    private Mono<Void> applyOne(Connection connection, Migration migration) {
+        return Mono.from(connection.beginTransaction())
+                .thenMany(Flux.fromIterable(migration.statements()).concatMap(sql -> execute(connection, sql)))
+                .then(Flux.from(connection.createStatement("INSERT INTO schema_migrations (version, description, checksum) VALUES ($1, $2, $3)")
+                                .bind(0, migration.version())
+                                .bind(1, migration.description())
+                                .bind(2, migration.checksum())
+                                .execute())
+                        .flatMap(Result::getRowsUpdated)
+                        .then())
+                .then(Mono.from(connection.commitTransaction()))
+                .doOnSuccess(unused -> System.out.println("Migração V" + migration.version() + " aplicada: " + migration.description()))
+                .onErrorResume(error -> Mono.from(connection.rollbackTransaction())
+                        .then(Mono.error(new IllegalStateException("Erro na migração V" + migration.version() + " ("
+                                + migration.description() + "): " + error.getMessage(), error))));
+    }
+
+    // Versões registradas no banco e desconhecidas aqui vêm de uma versão mais nova do serviço (troca gradual de
+    // instâncias) e são ignoradas.
+    List<Migration> pending(Map<Integer, String> applied) {
+        for (Migration migration : migrations) {
+            String checksum = applied.get(migration.version());
+            if (checksum != null && !checksum.equals(migration.checksum())) {
+                throw new IllegalStateException("Migração V" + migration.version() + " (" + migration.description()
+                        + ") foi alterada depois de aplicada; mudanças de esquema devem entrar como uma nova versão");
+            }
+        }
+        return migrations.stream()
+                .filter(migration -> !applied.containsKey(migration.version()))
+                .toList();
+    }
+
+    // A conexão pode voltar para o pool: o lock de sessão é liberado explicitamente.
+    private Mono<Void> release(Connection connection) {
+        return execute(connection, "SELECT pg_advisory_unlock(hashtext('schema_migrations'))")
+                .onErrorResume(error -> Mono.empty())
+                .then(Mono.from(connection.close()));
+    }
+
+    private static Mono<Void> execute(Connection connection, String sql) {
+        return Flux.from(connection.createStatement(sql).execute())
+                .flatMap(Result::getRowsUpdated)
+                .then();
+    }
+}
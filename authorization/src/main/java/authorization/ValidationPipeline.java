@@ -0,0 +1,46 @@
+package authorization;
+
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// Checagens independentes (permissão, existência em outros serviços) disparadas ao mesmo tempo. A recusa que vale é
+// a da checagem declarada primeiro, não a que chega antes: a permissão vem sempre na frente, então um 403 prevalece
+// sobre um 404 de existência mesmo quando a consulta de existência responde mais rápido. Decidida a recusa, as
+// checagens ainda em andamento são canceladas; se todas passarem, segue para a ação.
+public final class ValidationPipeline {
+
+    private final List<Mono<ResponseEntity<String>>> rejections = new ArrayList<>();
+
+    private ValidationPipeline() {
+    }
+
+    public static ValidationPipeline validate() {
+        return new ValidationPipeline();
+    }
+
+    // reject devolve a resposta de recusa, ou null quando a checagem passou.
+    public ValidationPipeline check(Supplier<Mono<ResponseEntity<String>>> call,
+                                    Function<ResponseEntity<String>, ResponseEntity<String>> reject) {
+        rejections.add(Mono.defer(call).mapNotNull(reject));
+        return this;
+    }
+
+    public Mono<ResponseEntity<String>> then(Supplier<Mono<ResponseEntity<String>>> action) {
+        return then(action, Function.identity());
+    }
+
+    // Para ações cuja resposta tem outro corpo: a recusa é convertida por onRejection.
+    public <T> Mono<ResponseEntity<T>> then(Supplier<Mono<ResponseEntity<T>>> action,
+                                            Function<ResponseEntity<String>, ResponseEntity<T>> onRejection) {
+        return Flux.mergeSequential(rejections)
+                .next()
+                .map(onRejection)
+                .switchIfEmpty(Mono.defer(action));
+    }
+}
@@ -0,0 +1,5 @@
+package authorization;
+
+// Identidade já validada pelo gateway: e-mail, role e a ação autorizada para a rota (vazia quando a rota não exige ação).
+public record VerifiedIdentity(String subject, String role, String action, long expiresAt) {
+}
@@ -120,4 +120,8 @@ public enum Role {
     public boolean existMeasurementPlaceItem(){
         return strategy.existMeasurementPlaceItem();
     }
+
+    public boolean importMeasurementPlaceItemHistory(){
+        return strategy.importMeasurementPlaceItemHistory();
+    }
 }
@@ -126,4 +126,9 @@ public class AdminRoleStrategy implements RoleStrategy {
     public boolean existMeasurementPlaceItem() {
         return true;
     }
+
+    @Override
+    public boolean importMeasurementPlaceItemHistory() {
+        return true;
+    }
 }
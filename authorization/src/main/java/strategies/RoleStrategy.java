@@ -51,4 +51,6 @@ public interface RoleStrategy {
     boolean deleteMeasurementPlaceItem();
 
     boolean existMeasurementPlaceItem();
+
+    boolean importMeasurementPlaceItemHistory();
 }
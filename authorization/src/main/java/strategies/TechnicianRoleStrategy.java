@@ -126,5 +126,9 @@ public class TechnicianRoleStrategy implements RoleStrategy {
     public boolean existMeasurementPlaceItem() {
         return true;
     }
-}
 
+    @Override
+    public boolean importMeasurementPlaceItemHistory() {
+        return false;
+    }
+}
@@ -0,0 +1,91 @@
+package authorization;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CoalescingLookupTest {
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private Mono<ResponseEntity<String>> remote(HttpStatus status) {
+        return Mono.fromCallable(() -> {
+            calls.incrementAndGet();
+            return ResponseEntity.status(status).body(status.getReasonPhrase());
+        }).delayElement(Duration.ofMillis(50));
+    }
+
+    @Test
+    void identicalInFlightLookupsShareOneCall() {
+        CoalescingLookup lookup = new CoalescingLookup("test", Duration.ZERO, Duration.ZERO, 100, null);
+
+        StepVerifier.create(Flux.range(0, 20)
+                        .flatMap(i -> lookup.get("contrato|2024-05", "token", () -> remote(HttpStatus.OK))))
+                .expectNextCount(20)
+                .verifyComplete();
+
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(lookup.dedupRatio()).isEqualTo(0.95);
+    }
+
+    @Test
+    void positiveAndNegativeResultsUseTheirOwnTtl() {
+        CoalescingLookup lookup = new CoalescingLookup("test", Duration.ofMinutes(1), Duration.ZERO, 100, null);
+
+        lookup.get("existe", "token", () -> remote(HttpStatus.OK)).block();
+        lookup.get("existe", "token", () -> remote(HttpStatus.OK)).block();
+        lookup.get("nao-existe", "token", () -> remote(HttpStatus.NOT_FOUND)).block();
+        ResponseEntity<String> missing = lookup.get("nao-existe", "token", () -> remote(HttpStatus.NOT_FOUND)).block();
+
+        assertThat(missing.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(calls.get()).isEqualTo(3);
+    }
+
+    @Test
+    void failuresAreNotCached() {
+        CoalescingLookup lookup = new CoalescingLookup("test", Duration.ofMinutes(1), Duration.ofMinutes(1), 100, null);
+
+        lookup.get("chave", "token", () -> remote(HttpStatus.INTERNAL_SERVER_ERROR)).block();
+        lookup.get("chave", "token", () -> remote(HttpStatus.INTERNAL_SERVER_ERROR)).block();
+
+        StepVerifier.create(lookup.get("erro", "token", () -> Mono.error(new IllegalStateException("fora do ar"))))
+                .expectError(IllegalStateException.class)
+                .verify();
+        lookup.get("erro", "token", () -> remote(HttpStatus.OK)).block();
+
+        assertThat(calls.get()).isEqualTo(3);
+    }
+
+    @Test
+    void callersWithDifferentPermissionsDoNotShareResults() {
+        CoalescingLookup lookup = new CoalescingLookup("test", Duration.ofMinutes(1), Duration.ZERO, 100, null);
+
+        ResponseEntity<String> engineer = lookup.get("chave", "token-a", () -> remote(HttpStatus.OK))
+                .contextWrite(context -> context.put(VerifiedIdentity.class, identity("ENGINEER")))
+                .block();
+        ResponseEntity<String> technician = lookup.get("chave", "token-b", () -> remote(HttpStatus.FORBIDDEN))
+                .contextWrite(context -> context.put(VerifiedIdentity.class, identity("TECHNICIAN")))
+                .block();
+        lookup.get("chave", "token-c", () -> remote(HttpStatus.OK))
+                .contextWrite(context -> context.put(VerifiedIdentity.class, identity("ENGINEER")))
+                .block();
+        ResponseEntity<String> withoutIdentity = lookup.get("chave", "token-d", () -> remote(HttpStatus.UNAUTHORIZED)).block();
+
+        assertThat(engineer.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(technician.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+        assertThat(withoutIdentity.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(calls.get()).isEqualTo(3);
+    }
+
+    private static VerifiedIdentity identity(String role) {
+        return new VerifiedIdentity("usuario@empresa.com", role, "", Long.MAX_VALUE);
+    }
+}
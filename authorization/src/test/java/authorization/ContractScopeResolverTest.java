@@ -0,0 +1,64 @@
+package authorization;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContractScopeResolverTest {
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private Mono<List<String>> remote(List<String> contracts) {
+        return Mono.fromCallable(() -> {
+            calls.incrementAndGet();
+            return contracts;
+        }).delayElement(Duration.ofMillis(20));
+    }
+
+    @Test
+    void contractsAreLoadedOnceWithinTtl() {
+        ContractScopeResolver resolver = new ContractScopeResolver(null, null, null, Duration.ofMinutes(1), 100, null);
+
+        StepVerifier.create(Flux.range(0, 10)
+                        .flatMap(i -> resolver.contracts("tecnico@empresa.com", () -> remote(List.of("SES-001", "SES-002")))))
+                .expectNextCount(10)
+                .verifyComplete();
+
+        assertThat(calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void invalidateDropsOnlyThatUser() {
+        ContractScopeResolver resolver = new ContractScopeResolver(null, null, null, Duration.ofMinutes(1), 100, null);
+
+        resolver.contracts("tecnico@empresa.com", () -> remote(List.of("SES-001"))).block();
+        resolver.contracts("coordenador@empresa.com", () -> remote(List.of("SES-001", "SES-002"))).block();
+
+        resolver.invalidate("tecnico@empresa.com");
+
+        List<String> reloaded = resolver.contracts("tecnico@empresa.com", () -> remote(List.of("SES-001", "SES-003"))).block();
+        resolver.contracts("coordenador@empresa.com", () -> remote(List.of())).block();
+
+        assertThat(reloaded).containsExactly("SES-001", "SES-003");
+        assertThat(calls.get()).isEqualTo(3);
+    }
+
+    @Test
+    void failuresAreNotCached() {
+        ContractScopeResolver resolver = new ContractScopeResolver(null, null, null, Duration.ofMinutes(1), 100, null);
+
+        StepVerifier.create(resolver.contracts("tecnico@empresa.com", () -> Mono.error(new IllegalStateException("fora do ar"))))
+                .expectError(IllegalStateException.class)
+                .verify();
+
+        assertThat(resolver.contracts("tecnico@empresa.com", () -> remote(List.of("SES-001"))).block())
+                .containsExactly("SES-001");
+    }
+}
@@ -0,0 +1,79 @@
+package authorization;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdentitySignerTest {
+
+    private static final String SECRET = "HaviaDeRecordarAquelaTardeQueSeuPaiOLevaraParaConhecerOGelo";
+
+    private IdentitySigner identitySigner;
+
+    @BeforeEach
+    void setUp() {
+        identitySigner = new IdentitySigner();
+        ReflectionTestUtils.setField(identitySigner, "secret", SECRET);
+        identitySigner.init();
+    }
+
+    private long inOneMinute() {
+        return System.currentTimeMillis() / 1000 + 60;
+    }
+
+    @Test
+    void verifyShouldReturnTheSignedIdentity() {
+        long expiresAt = inOneMinute();
+        String header = identitySigner.sign("eng.silva@empresa.com", "ENGINEER", "createPlace", expiresAt);
+
+        assertThat(identitySigner.verify(header))
+                .contains(new VerifiedIdentity("eng.silva@empresa.com", "ENGINEER", "createPlace", expiresAt));
+    }
+
+    @Test
+    void verifyShouldAcceptRoutesWithoutAction() {
+        String header = identitySigner.sign("eng.silva@empresa.com", "ENGINEER", null, inOneMinute());
+
+        assertThat(identitySigner.verify(header)).hasValueSatisfying(identity ->
+                assertThat(identity.action()).isEmpty());
+    }
+
+    @Test
+    void verifyShouldRejectTamperedHeader() {
+        String header = identitySigner.sign("eng.silva@empresa.com", "TECHNICIAN", "createItem", inOneMinute());
+
+        assertThat(identitySigner.verify(header.replace("TECHNICIAN", "ADMIN"))).isEmpty();
+    }
+
+    @Test
+    void verifyShouldRejectExpiredHeader() {
+        String header = identitySigner.sign("eng.silva@empresa.com", "ADMIN", "createItem", System.currentTimeMillis() / 1000 - 1);
+
+        assertThat(identitySigner.verify(header)).isEmpty();
+    }
+
+    @Test
+    void verifyShouldRejectMalformedHeader() {
+        assertThat(identitySigner.verify(null)).isEmpty();
+        assertThat(identitySigner.verify("sem-assinatura")).isEmpty();
+        assertThat(identitySigner.verify("a.b.c")).isEmpty();
+    }
+
+    @Test
+    void verifyServiceShouldOnlyAcceptServiceHeaderForTheAction() {
+        String header = identitySigner.signService("measurementPlaceItem", "accumulatePlaceItem");
+
+        assertThat(identitySigner.verifyService(header, "accumulatePlaceItem")).isTrue();
+        assertThat(identitySigner.verifyService(header, "createPlaceItem")).isFalse();
+        assertThat(identitySigner.verifyService(null, "accumulatePlaceItem")).isFalse();
+    }
+
+    @Test
+    void verifyServiceShouldRejectUserIdentity() {
+        String header = identitySigner.sign("eng.silva@empresa.com", "ADMIN", "accumulatePlaceItem", inOneMinute());
+
+        assertThat(identitySigner.verifyService(header, "accumulatePlaceItem")).isFalse();
+    }
+}
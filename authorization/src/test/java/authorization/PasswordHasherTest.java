@@ -0,0 +1,64 @@
+package authorization;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PasswordHasherTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private PasswordHasher passwordHasher;
+
+    @AfterEach
+    void tearDown() {
+        passwordHasher.shutdown();
+    }
+
+    @Test
+    void encodedPasswordShouldMatchOnlyTheOriginal() {
+        passwordHasher = new PasswordHasher(4, 2, 10, meterRegistry);
+
+        String hash = passwordHasher.encode("SenhaDoTecnico").block();
+
+        assertThat(hash).startsWith("$2a$04$");
+        assertThat(passwordHasher.matches("SenhaDoTecnico", hash).block()).isTrue();
+        assertThat(passwordHasher.matches("OutraSenha", hash).block()).isFalse();
+        assertThat(meterRegistry.get("password.hashing.time").tag("operation", "matches").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void hashBelowTargetCostShouldNeedRehash() {
+        passwordHasher = new PasswordHasher(5, 1, 10, meterRegistry);
+        String weakHash = new PasswordHasher(4, 1, 10, meterRegistry).encode("SenhaDoTecnico").block();
+
+        assertThat(passwordHasher.needsRehash(weakHash)).isTrue();
+        assertThat(passwordHasher.needsRehash(passwordHasher.encode("SenhaDoTecnico").block())).isFalse();
+        assertThat(passwordHasher.needsRehash("texto-puro")).isFalse();
+    }
+
+    @Test
+    void fullQueueShouldBeRejectedWithTooManyRequests() {
+        passwordHasher = new PasswordHasher(12, 1, 1, meterRegistry);
+
+        StepVerifier.create(Flux.range(0, 5)
+                        .flatMap(i -> passwordHasher.encode("SenhaDoTecnico")
+                                .map(hash -> HttpStatus.OK)
+                                .onErrorResume(ResponseStatusException.class, e -> Mono.just(HttpStatus.valueOf(e.getStatusCode().value())))))
+                .recordWith(ArrayList::new)
+                .expectNextCount(5)
+                .consumeRecordedWith(statuses -> assertThat(statuses).contains(HttpStatus.TOO_MANY_REQUESTS))
+                .verifyComplete();
+
+        assertThat(meterRegistry.get("password.hashing.rejected").counter().count()).isGreaterThan(0);
+    }
+}
@@ -0,0 +1,35 @@
+package authorization;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+// Logins por segundo (um BCrypt matches por login) em cada custo; guia o valor de password.hashing.cost.
+// Executar com: mvn -Pbenchmark verify -Dbenchmark=PasswordHashingBenchmark
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PasswordHashingBenchmark {
+
+    @Param({"8", "10", "12"})
+    public int cost;
+
+    private BCryptPasswordEncoder passwordEncoder;
+    private String encodedPassword;
+
+    @Setup
+    public void setUp() {
+        passwordEncoder = new BCryptPasswordEncoder(cost);
+        encodedPassword = passwordEncoder.encode("SenhaDoTecnico");
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean login() {
+        return passwordEncoder.matches("SenhaDoTecnico", encodedPassword);
+    }
+}
@@ -0,0 +1,101 @@
+package authorization;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PermissionDecisionCacheTest {
+
+    private static final String SECRET = "HaviaDeRecordarAquelaTardeQueSeuPaiOLevaraParaConhecerOGelo";
+
+    private PermissionDecisionCache permissionDecisionCache;
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        PermissionEvaluator permissionEvaluator = new PermissionEvaluator();
+        ReflectionTestUtils.setField(permissionEvaluator, "secret", SECRET);
+        permissionEvaluator.init();
+
+        permissionDecisionCache = new PermissionDecisionCache(permissionEvaluator,
+                new DefaultListableBeanFactory().getBeanProvider(MeterRegistry.class), 100, Duration.ofMinutes(1));
+    }
+
+    private String token(long validityMillis) {
+        return "Bearer " + Jwts.builder()
+                .setSubject("tecnico@empresa.com")
+                .claim("role", "TECHNICIAN")
+                .setExpiration(new Date(System.currentTimeMillis() + validityMillis))
+                .signWith(Keys.hmacShaKeyFor(Base64.getDecoder().decode(SECRET)))
+                .compact();
+    }
+
+    private Mono<ResponseEntity<String>> remote(HttpStatus status) {
+        return Mono.fromCallable(() -> {
+            calls.incrementAndGet();
+            return ResponseEntity.status(status).body(status.getReasonPhrase());
+        }).delayElement(Duration.ofMillis(50));
+    }
+
+    @Test
+    void concurrentMissesShouldShareOneLookup() {
+        String token = token(60_000);
+
+        StepVerifier.create(Flux.range(0, 20)
+                        .flatMap(i -> permissionDecisionCache.get(token, "createItem", () -> remote(HttpStatus.OK))))
+                .expectNextCount(20)
+                .verifyComplete();
+
+        assertThat(calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void decisionShouldBeCachedPerAction() {
+        String token = token(60_000);
+
+        permissionDecisionCache.get(token, "createItem", () -> remote(HttpStatus.OK)).block();
+        permissionDecisionCache.get(token, "createItem", () -> remote(HttpStatus.OK)).block();
+        ResponseEntity<String> denied = permissionDecisionCache.get(token, "deleteItem", () -> remote(HttpStatus.FORBIDDEN)).block();
+
+        assertThat(denied.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+        assertThat(calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void errorsShouldNotBeCached() {
+        String token = token(60_000);
+
+        permissionDecisionCache.get(token, "createItem", () -> remote(HttpStatus.INTERNAL_SERVER_ERROR)).block();
+        permissionDecisionCache.get(token, "createItem", () -> remote(HttpStatus.INTERNAL_SERVER_ERROR)).block();
+
+        assertThat(calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void decisionShouldNotOutliveTheToken() throws InterruptedException {
+        String token = token(1_000);
+
+        permissionDecisionCache.get(token, "createItem", () -> remote(HttpStatus.OK)).block();
+        Thread.sleep(1_100);
+        permissionDecisionCache.get(token, "createItem", () -> remote(HttpStatus.OK)).block();
+
+        assertThat(calls.get()).isEqualTo(2);
+    }
+}
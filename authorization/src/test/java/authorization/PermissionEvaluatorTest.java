@@ -0,0 +1,112 @@
+package authorization;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.test.StepVerifier;
+
+import java.util.Base64;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.http.HttpStatus.*;
+
+class PermissionEvaluatorTest {
+
+    private static final String SECRET = "HaviaDeRecordarAquelaTardeQueSeuPaiOLevaraParaConhecerOGelo";
+
+    private PermissionEvaluator permissionEvaluator;
+
+    @BeforeEach
+    void setUp() {
+        permissionEvaluator = new PermissionEvaluator();
+        ReflectionTestUtils.setField(permissionEvaluator, "secret", SECRET);
+        ReflectionTestUtils.setField(permissionEvaluator, "mode", "local");
+        permissionEvaluator.init();
+    }
+
+    private String token(String role) {
+        return Jwts.builder()
+                .setSubject("tecnico@empresa.com")
+                .claim("role", role)
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(Base64.getDecoder().decode(SECRET)))
+                .compact();
+    }
+
+    @Test
+    void hasPermissionShouldReturnOkWhenRoleAllowsAction() {
+        StepVerifier.create(permissionEvaluator.hasPermission("Bearer " + token("TECHNICIAN"), "createItem"))
+                .assertNext(response -> {
+                    assertThat(response.getStatusCode()).isEqualTo(OK);
+                    assertThat(response.getBody()).isEqualTo("Permissão concedida");
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void hasPermissionShouldReturnForbiddenWhenRoleDeniesAction() {
+        ResponseEntity<String> response = permissionEvaluator.evaluate(token("TECHNICIAN"), "deleteItem");
+
+        assertThat(response.getStatusCode()).isEqualTo(FORBIDDEN);
+        assertThat(response.getBody()).isEqualTo("Sem permissão para a ação: deleteItem");
+    }
+
+    @Test
+    void hasPermissionShouldReturnNotFoundWhenActionDoesNotExist() {
+        ResponseEntity<String> response = permissionEvaluator.evaluate(token("ADMIN"), "flyToTheMoon");
+
+        assertThat(response.getStatusCode()).isEqualTo(NOT_FOUND);
+    }
+
+    @Test
+    void hasPermissionShouldReturnBadRequestWhenRoleIsInvalid() {
+        ResponseEntity<String> response = permissionEvaluator.evaluate(token("VISITOR"), "createItem");
+
+        assertThat(response.getStatusCode()).isEqualTo(BAD_REQUEST);
+    }
+
+    @Test
+    void hasPermissionShouldFailWhenTokenIsInvalid() {
+        StepVerifier.create(permissionEvaluator.hasPermission("Bearer invalid-token", "createItem"))
+                .expectError()
+                .verify();
+    }
+
+    @Test
+    void isLocalShouldBeFalseInRemoteMode() {
+        ReflectionTestUtils.setField(permissionEvaluator, "mode", "remote");
+
+        assertThat(permissionEvaluator.isLocal()).isFalse();
+    }
+
+    @Test
+    void hasPermissionShouldTrustGatewayDecisionWithoutReadingTheToken() {
+        VerifiedIdentity identity = new VerifiedIdentity("tecnico@empresa.com", "TECHNICIAN", "deleteItem", Long.MAX_VALUE);
+
+        StepVerifier.create(permissionEvaluator.hasPermission("Bearer invalid-token", "deleteItem")
+                        .contextWrite(context -> context.put(VerifiedIdentity.class, identity)))
+                .assertNext(response -> assertThat(response.getStatusCode()).isEqualTo(OK))
+                .verifyComplete();
+    }
+
+    @Test
+    void hasPermissionShouldUseSignedRoleForOtherActions() {
+        VerifiedIdentity identity = new VerifiedIdentity("tecnico@empresa.com", "TECHNICIAN", "createItem", Long.MAX_VALUE);
+
+        StepVerifier.create(permissionEvaluator.hasPermission("Bearer invalid-token", "deleteItem")
+                        .contextWrite(context -> context.put(VerifiedIdentity.class, identity)))
+                .assertNext(response -> assertThat(response.getStatusCode()).isEqualTo(FORBIDDEN))
+                .verifyComplete();
+    }
+
+    @Test
+    void subjectShouldBeReadFromTheToken() {
+        StepVerifier.create(permissionEvaluator.subject("Bearer " + token("TECHNICIAN")))
+                .expectNext("tecnico@empresa.com")
+                .verifyComplete();
+    }
+}
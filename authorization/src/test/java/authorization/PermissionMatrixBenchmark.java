@@ -0,0 +1,51 @@
+package authorization;
+
+import enums.Role;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+// Executar com: mvn -Pbenchmark verify
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PermissionMatrixBenchmark {
+
+    private static final String[] ACTIONS = {
+            "createItem", "existItem", "createPlaceItem", "existPlaceItem",
+            "createMeasurementPlaceItem", "deleteProject", "getPlaceItem", "addEmailInProject"
+    };
+
+    @Param({"ADMIN", "TECHNICIAN", "ENGINEER", "COORDINATOR"})
+    public String roleName;
+
+    private Role role;
+    private PermissionMatrix permissionMatrix;
+
+    @Setup
+    public void setUp() {
+        role = Role.valueOf(roleName);
+        permissionMatrix = PermissionMatrix.fromRoles();
+    }
+
+    @Benchmark
+    public void reflective(Blackhole blackhole) throws ReflectiveOperationException {
+        for (String action : ACTIONS) {
+            Method method = Role.class.getMethod(action);
+            blackhole.consume((boolean) method.invoke(role));
+        }
+    }
+
+    @Benchmark
+    public void precompiled(Blackhole blackhole) {
+        for (String action : ACTIONS) {
+            int actionId = permissionMatrix.actionId(action);
+            blackhole.consume(permissionMatrix.isAllowed(role, actionId));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package authorization;
+
+import enums.Role;
+import org.junit.jupiter.api.Test;
+import strategies.RoleStrategy;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PermissionMatrixTest {
+
+    private final PermissionMatrix permissionMatrix = PermissionMatrix.fromRoles();
+
+    @Test
+    void precompiledMatrixShouldMatchReflectiveCheckForEveryRoleAndAction() throws ReflectiveOperationException {
+        for (Role role : Role.values()) {
+            for (Method method : RoleStrategy.class.getMethods()) {
+                boolean expected = (boolean) Role.class.getMethod(method.getName()).invoke(role);
+
+                assertThat(permissionMatrix.isAllowed(role, method.getName()))
+                        .as("%s.%s", role, method.getName())
+                        .isEqualTo(expected);
+            }
+        }
+    }
+
+    @Test
+    void unknownActionShouldNotResolveToAnId() {
+        assertThat(permissionMatrix.actionId("getStrategy")).isEqualTo(PermissionMatrix.UNKNOWN_ACTION);
+        assertThat(permissionMatrix.hasAction("getStrategy")).isFalse();
+        assertThat(permissionMatrix.isAllowed(Role.ADMIN, "getStrategy")).isFalse();
+    }
+
+    @Test
+    void grantsShouldRoundTripIntoAnEquivalentMatrix() {
+        PermissionMatrix copy = PermissionMatrix.from(permissionMatrix.toGrants(7));
+
+        for (Role role : Role.values()) {
+            for (Method method : RoleStrategy.class.getMethods()) {
+                assertThat(copy.isAllowed(role, method.getName()))
+                        .isEqualTo(permissionMatrix.isAllowed(role, method.getName()));
+            }
+        }
+    }
+
+    @Test
+    void revokedGrantShouldOnlyAffectTheNewMatrix() {
+        PermissionGrants grants = permissionMatrix.toGrants(1);
+        PermissionGrants revoked = new PermissionGrants(2, grants.actions(),
+                Map.of("TECHNICIAN", Set.of()));
+
+        PermissionMatrix updated = PermissionMatrix.from(revoked);
+
+        assertThat(updated.isAllowed(Role.TECHNICIAN, "createItem")).isFalse();
+        assertThat(updated.hasAction("createItem")).isTrue();
+        assertThat(permissionMatrix.isAllowed(Role.TECHNICIAN, "createItem")).isTrue();
+    }
+}
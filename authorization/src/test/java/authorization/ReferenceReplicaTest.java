@@ -0,0 +1,74 @@
+package authorization;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReferenceReplicaTest {
+
+    @Test
+    void appliesInsertsAndDeletesInSeqOrder() {
+        ReferenceReplica replica = new ReferenceReplica("places", null, null, null, null);
+
+        replica.apply(1, "I", ReferenceReplica.key("Bacia 1", "Contrato A"));
+        replica.apply(2, "I", ReferenceReplica.key("Bacia 2", "Contrato A"));
+        replica.apply(3, "D", ReferenceReplica.key("Bacia 1", "Contrato A"));
+
+        assertThat(replica.contains("Bacia 1", "Contrato A")).isFalse();
+        assertThat(replica.contains("Bacia 2", "Contrato A")).isTrue();
+        assertThat(replica.contains("Bacia 2", "Contrato B")).isFalse();
+    }
+
+    @Test
+    void reloadsFromTheStartWhenBehindTheCompactedHorizon() {
+        ReferenceReplica replica = new ReferenceReplica("places", null, null, null, null);
+        replica.apply(1, "I", ReferenceReplica.key("Bacia 1", "Contrato A"));
+        replica.apply(2, "I", ReferenceReplica.key("Bacia 2", "Contrato A"));
+
+        // A exclusão de "Bacia 1" (seq 3) saiu do log antes de a réplica vê-la.
+        assertThat(replica.applyAll(3, List.of())).isFalse();
+        assertThat(replica.contains("Bacia 2", "Contrato A")).isFalse();
+
+        assertThat(replica.applyAll(3, List.of(new ReferenceReplica.ChangeEvent(2, "I", ReferenceReplica.key("Bacia 2", "Contrato A"))))).isTrue();
+        assertThat(replica.contains("Bacia 1", "Contrato A")).isFalse();
+        assertThat(replica.contains("Bacia 2", "Contrato A")).isTrue();
+    }
+
+    @Test
+    void horizonAtOrBelowLastSeqKeepsCatchingUp() {
+        ReferenceReplica replica = new ReferenceReplica("places", null, null, null, null);
+        replica.apply(5, "I", ReferenceReplica.key("Bacia 1", "Contrato A"));
+
+        assertThat(replica.applyAll(5, List.of(new ReferenceReplica.ChangeEvent(6, "D", ReferenceReplica.key("Bacia 1", "Contrato A"))))).isTrue();
+        assertThat(replica.contains("Bacia 1", "Contrato A")).isFalse();
+    }
+
+    @Test
+    void withoutUrlNeverBecomesReady() {
+        ReferenceReplica replica = new ReferenceReplica("places", "", "user", "secret", null);
+
+        replica.start();
+
+        assertThat(replica.isReady()).isFalse();
+        replica.stop();
+    }
+
+    @Test
+    void keyMatchesTheTriggerEncoding() {
+        // O gatilho junta as colunas com chr(31) e troca NULL por vazio.
+        assertThat(ReferenceReplica.key("cimento", null)).isEqualTo("cimento\u001F");
+
+        List<String> statements = ChangeFeedSchema.statements("itens", "name", "unit");
+        assertThat(statements).anyMatch(sql -> sql.contains("EXECUTE FUNCTION publish_change('name', 'unit')"));
+        assertThat(statements).anyMatch(sql -> sql.contains("coalesce(name::text, '') || chr(31) || coalesce(unit::text, '')"));
+    }
+
+    @Test
+    void triggerOnlyFiresForKeyUpdates() {
+        List<String> statements = ChangeFeedSchema.statements("place_itens", "place_name", "project_contract", "item_name", "item_unit");
+        assertThat(statements).anyMatch(sql -> sql.contains(
+                "AFTER INSERT OR UPDATE OF place_name, project_contract, item_name, item_unit OR DELETE ON place_itens"));
+    }
+}
@@ -0,0 +1,56 @@
+package authorization;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static authorization.SchemaMigrations.migration;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SchemaMigrationsTest {
+
+    private final SchemaMigrations.Migration tables = migration(1, "Tabela itens", "CREATE TABLE IF NOT EXISTS itens (id SERIAL PRIMARY KEY)");
+    private final SchemaMigrations.Migration indexes = migration(2, "Índice de itens", "CREATE INDEX IF NOT EXISTS idx_itens_id ON itens (id)");
+
+    @Test
+    void pendingKeepsVersionOrderAndSkipsApplied() {
+        SchemaMigrations migrations = new SchemaMigrations("app", List.of(tables, indexes));
+
+        assertThat(migrations.pending(Map.of())).containsExactly(tables, indexes);
+        assertThat(migrations.pending(Map.of(1, tables.checksum()))).containsExactly(indexes);
+        assertThat(migrations.pending(Map.of(1, tables.checksum(), 2, indexes.checksum()))).isEmpty();
+    }
+
+    @Test
+    void appliedVersionWhoseStatementsChangedIsRejected() {
+        SchemaMigrations migrations = new SchemaMigrations("app", List.of(tables, indexes));
+
+        assertThatThrownBy(() -> migrations.pending(Map.of(1, indexes.checksum())))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("V1");
+    }
+
+    @Test
+    void versionsFromANewerReleaseAreIgnored() {
+        SchemaMigrations migrations = new SchemaMigrations("app", List.of(tables));
+
+        assertThat(migrations.pending(Map.of(1, tables.checksum(), 2, "checksum-de-outra-versao"))).isEmpty();
+    }
+
+    @Test
+    void checksumIgnoresSurroundingWhitespaceOnly() {
+        assertThat(migration(1, "a", "  SELECT 1\n").checksum()).isEqualTo(migration(1, "b", "SELECT 1").checksum());
+        assertThat(migration(1, "a", "SELECT 1").checksum()).isNotEqualTo(migration(1, "a", "SELECT 2").checksum());
+        assertThat(migration(1, "a", "SELECT 1", "SELECT 2").checksum()).isNotEqualTo(migration(1, "a", "SELECT 1SELECT 2").checksum());
+    }
+
+    @Test
+    void versionsMustIncrease() {
+        assertThatThrownBy(() -> new SchemaMigrations("app", List.of(indexes, tables)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new SchemaMigrations("app", List.of(migration(0, "zero", "SELECT 1"))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
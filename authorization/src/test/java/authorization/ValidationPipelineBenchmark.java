@@ -0,0 +1,63 @@
+package authorization;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Carga sobre o fluxo de createPlaceItem: permissão + duas consultas a outros serviços, cada uma com latência
+// simulada entre min e max ms. Compara a cadeia sequencial com o ValidationPipeline; o modo SampleTime
+// reporta p50/p99 (p0.50, p0.99) por requisição, com threads concorrentes simulando clientes simultâneos.
+// Executar com: mvn -Pbenchmark verify -Dbenchmark=ValidationPipelineBenchmark
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidationPipelineBenchmark {
+
+    @Param({"2"})
+    public int minLatencyMs;
+
+    @Param({"20"})
+    public int maxLatencyMs;
+
+    private Mono<ResponseEntity<String>> downstream() {
+        return Mono.defer(() -> Mono.delay(Duration.ofMillis(
+                        ThreadLocalRandom.current().nextInt(minLatencyMs, maxLatencyMs + 1))))
+                .thenReturn(ResponseEntity.ok("ok"));
+    }
+
+    private static ResponseEntity<String> rejectUnlessOk(ResponseEntity<String> response) {
+        return response.getStatusCode() == HttpStatus.OK ? null : response;
+    }
+
+    private static Mono<ResponseEntity<String>> create() {
+        return Mono.just(ResponseEntity.status(HttpStatus.CREATED).body(""));
+    }
+
+    @Benchmark
+    public ResponseEntity<String> sequential() {
+        return downstream()
+                .flatMap(permission -> downstream()
+                        .flatMap(place -> downstream()
+                                .flatMap(item -> create())))
+                .block();
+    }
+
+    @Benchmark
+    public ResponseEntity<String> pipeline() {
+        return ValidationPipeline.validate()
+                .check(this::downstream, ValidationPipelineBenchmark::rejectUnlessOk)
+                .check(this::downstream, ValidationPipelineBenchmark::rejectUnlessOk)
+                .check(this::downstream, ValidationPipelineBenchmark::rejectUnlessOk)
+                .then(ValidationPipelineBenchmark::create)
+                .block();
+    }
+}
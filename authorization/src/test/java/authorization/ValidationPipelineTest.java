@@ -0,0 +1,109 @@
+package authorization;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ValidationPipelineTest {
+
+    private static ResponseEntity<String> rejectUnlessOk(ResponseEntity<String> response) {
+        return response.getStatusCode() == HttpStatus.OK ? null : ResponseEntity.status(response.getStatusCode()).body("recusado");
+    }
+
+    private static Mono<ResponseEntity<String>> slowOk() {
+        return Mono.delay(Duration.ofMillis(200)).thenReturn(ResponseEntity.ok("ok"));
+    }
+
+    @Test
+    void runsChecksConcurrentlyAndThenTheAction() {
+        // Três checagens de 200ms em paralelo terminam em 200ms, não em 600ms.
+        StepVerifier.withVirtualTime(() -> ValidationPipeline.validate()
+                        .check(ValidationPipelineTest::slowOk, ValidationPipelineTest::rejectUnlessOk)
+                        .check(ValidationPipelineTest::slowOk, ValidationPipelineTest::rejectUnlessOk)
+                        .check(ValidationPipelineTest::slowOk, ValidationPipelineTest::rejectUnlessOk)
+                        .then(() -> Mono.just(ResponseEntity.status(HttpStatus.CREATED).body("criado"))))
+                .expectSubscription()
+                .thenAwait(Duration.ofMillis(200))
+                .assertNext(response -> assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED))
+                .verifyComplete();
+    }
+
+    @Test
+    void rejectionCancelsTheChecksStillRunning() {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        AtomicInteger actions = new AtomicInteger();
+
+        Mono<ResponseEntity<String>> pending = Mono.<ResponseEntity<String>>never()
+                .doOnCancel(() -> cancelled.set(true));
+
+        StepVerifier.create(ValidationPipeline.validate()
+                        .check(() -> Mono.just(ResponseEntity.status(HttpStatus.NOT_FOUND).body("não existe")),
+                                ValidationPipelineTest::rejectUnlessOk)
+                        .check(() -> pending, ValidationPipelineTest::rejectUnlessOk)
+                        .then(() -> {
+                            actions.incrementAndGet();
+                            return Mono.just(ResponseEntity.ok("executado"));
+                        }))
+                .assertNext(response -> assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND))
+                .verifyComplete();
+
+        assertThat(cancelled).isTrue();
+        assertThat(actions).hasValue(0);
+    }
+
+    @Test
+    void permissionRejectionWinsOverFasterNotFound() {
+        // A permissão, declarada primeiro, recusa depois de 200ms; a existência recusa na hora. Vale o 403.
+        StepVerifier.withVirtualTime(() -> ValidationPipeline.validate()
+                        .check(() -> Mono.delay(Duration.ofMillis(200))
+                                        .thenReturn(ResponseEntity.status(HttpStatus.FORBIDDEN).body("sem permissão")),
+                                ValidationPipelineTest::rejectUnlessOk)
+                        .check(() -> Mono.just(ResponseEntity.status(HttpStatus.NOT_FOUND).body("não existe")),
+                                ValidationPipelineTest::rejectUnlessOk)
+                        .then(() -> Mono.just(ResponseEntity.ok("executado"))))
+                .expectSubscription()
+                .thenAwait(Duration.ofMillis(200))
+                .assertNext(response -> assertThat(response.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN))
+                .verifyComplete();
+    }
+
+    @Test
+    void errorInAnyCheckFailsFast() {
+        AtomicBoolean cancelled = new AtomicBoolean();
+
+        Mono<ResponseEntity<String>> pending = Mono.<ResponseEntity<String>>never()
+                .doOnCancel(() -> cancelled.set(true));
+
+        StepVerifier.create(ValidationPipeline.validate()
+                        .check(() -> pending, ValidationPipelineTest::rejectUnlessOk)
+                        .check(() -> Mono.error(new IllegalStateException("fora do ar")), ValidationPipelineTest::rejectUnlessOk)
+                        .then(() -> Mono.just(ResponseEntity.ok("executado"))))
+                .expectError(IllegalStateException.class)
+                .verify();
+
+        assertThat(cancelled).isTrue();
+    }
+
+    @Test
+    void rejectionIsConvertedForActionsWithAnotherBody() {
+        StepVerifier.create(ValidationPipeline.validate()
+                        .check(() -> Mono.just(ResponseEntity.status(HttpStatus.FORBIDDEN).body("sem permissão")),
+                                ValidationPipelineTest::rejectUnlessOk)
+                        .then(() -> Mono.just(ResponseEntity.ok(List.of("executado"))),
+                                rejection -> ResponseEntity.status(rejection.getStatusCode()).body(List.of(rejection.getBody()))))
+                .assertNext(response -> {
+                    assertThat(response.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+                    assertThat(response.getBody()).containsExactly("sem permissão");
+                })
+                .verifyComplete();
+    }
+}
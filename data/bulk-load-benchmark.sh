@@ -0,0 +1,65 @@
+#!/usr/bin/env bash
+# Benchmark da carga em massa de measurements_places_itens (COPY via staging).
+# Pré-requisitos: containers do docker-compose deste diretório no ar e os serviços measurement, placeItem e
+# measurementPlaceItem iniciados (as réplicas precisam estar conectadas).
+#
+# Uso: TOKEN="Bearer <jwt>" ./bulk-load-benchmark.sh [linhas]
+#
+# Cria um contrato BENCH com 100 bacias x 100 itens e quantos meses forem necessários para o número de linhas,
+# gera o CSV e mede o tempo do POST. Meta: >= 100 mil linhas/s num único nó.
+set -euo pipefail
+
+ROWS=${1:-1000000}
+URL=${URL:-http://localhost:8039/api/measurementsplacesitens/bulk-load}
+CONTRACT=BENCH
+PLACES=100
+ITEMS=100
+MONTHS=$(( (ROWS + PLACES * ITEMS - 1) / (PLACES * ITEMS) ))
+CSV=$(mktemp --suffix=.csv)
+trap 'rm -f "$CSV"' EXIT
+
+: "${TOKEN:?defina TOKEN com um token de usuário que possa criar medições}"
+
+echo "Preparando $MONTHS medições e $((PLACES * ITEMS)) itens de bacia para o contrato $CONTRACT..."
+docker exec -i measurementsdata psql -q -U user -d measurementsdb <<SQL
+INSERT INTO app.measurements (project_contract, start_date, end_date, year_month)
+SELECT '$CONTRACT', d, (d + interval '1 month - 1 day')::date, to_char(d, 'YYYY-MM')
+FROM generate_series(date '2000-01-01', date '2000-01-01' + ($MONTHS - 1) * interval '1 month', interval '1 month') AS d
+WHERE NOT EXISTS (SELECT 1 FROM app.measurements m WHERE m.project_contract = '$CONTRACT' AND m.year_month = to_char(d, 'YYYY-MM'));
+SQL
+docker exec -i placeitemdata psql -q -U user -d placeitensdb <<SQL
+INSERT INTO app.place_itens (place_name, project_contract, item_name, item_unit, predicted_value, accumulated_value)
+SELECT 'Bacia ' || p, '$CONTRACT', 'Item ' || i, 'm3', 1000, 0
+FROM generate_series(1, $PLACES) AS p, generate_series(1, $ITEMS) AS i
+WHERE NOT EXISTS (SELECT 1 FROM app.place_itens x WHERE x.project_contract = '$CONTRACT' AND x.place_name = 'Bacia ' || p AND x.item_name = 'Item ' || i);
+SQL
+docker exec -i measurementsplaceitemdata psql -q -U user -d measurementsplaceitemdb \
+  -c "DELETE FROM app.measurements_places_itens WHERE project_contract = '$CONTRACT';"
+
+echo "Gerando $ROWS linhas em $CSV..."
+awk -v rows="$ROWS" -v places="$PLACES" -v items="$ITEMS" -v contract="$CONTRACT" 'BEGIN {
+  print "project_contract,start_date,end_date,year_month,place_name,item_name,item_unit,predicted_value,accumulated_value"
+  n = 0
+  for (m = 0; n < rows; m++) {
+    y = 2000 + int(m / 12); mo = m % 12 + 1
+    ym = sprintf("%04d-%02d", y, mo)
+    for (p = 1; p <= places && n < rows; p++)
+      for (i = 1; i <= items && n < rows; i++) {
+        printf "%s,%s-01,%s-28,%s,Bacia %d,Item %d,m3,1000.00,%d.00\n", contract, ym, ym, ym, p, i, n % 1000
+        n++
+      }
+  }
+}' > "$CSV"
+
+sleep 2 # tempo para as réplicas receberem os NOTIFY das linhas de referência
+
+echo "Enviando $(du -h "$CSV" | cut -f1) para $URL..."
+START=$(date +%s.%N)
+RESPONSE=$(curl -sS -X POST "$URL" -H "Authorization: $TOKEN" -H "Content-Type: text/csv" --data-binary @"$CSV")
+END=$(date +%s.%N)
+
+echo "$RESPONSE"
+awk -v rows="$ROWS" -v start="$START" -v end="$END" 'BEGIN {
+  elapsed = end - start
+  printf "%d linhas em %.2f s: %.0f linhas/s\n", rows, elapsed, rows / elapsed
+}'
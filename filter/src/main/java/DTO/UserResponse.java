@@ -9,7 +9,6 @@ public class UserResponse {
 
     private String email;
     private String role;
-    private String password;
 
     public boolean isValid() {
         return true;
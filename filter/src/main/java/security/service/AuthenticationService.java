@@ -9,11 +9,11 @@ import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Mono;
 import security.exceptions.InvalidPasswordException;
 import security.exceptions.UserNotFoundException;
@@ -37,9 +37,6 @@ public class AuthenticationService {
         this.key = Keys.hmacShaKeyFor(secretBytes);
     }
 
-
-    PasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
-
     private final WebClient webClient;
 
     @Autowired
@@ -50,17 +47,29 @@ public class AuthenticationService {
     }
 
 
+    // A senha é conferida no serviço user, ao lado dos dados; de volta vêm só e-mail e role.
     public Mono<String> authenticate(UserLoginRequest loginRequest) {
-        return webClient.get()
-
-                .uri("/getuserbyemail/" + loginRequest.getEmail())
+        return webClient.post()
+                .uri("/verify-credentials")
                 .header("Internal-Call", "true")
+                .bodyValue(loginRequest)
                 .retrieve()
+                .onStatus(
+                        HttpStatus.UNAUTHORIZED::equals,
+                        response -> Mono.error(new InvalidPasswordException("Senha inválida"))
+                )
+                .onStatus(
+                        HttpStatus.TOO_MANY_REQUESTS::equals,
+                        response -> Mono.error(new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS,
+                                "Muitas requisições simultâneas, tente novamente em instantes"))
+                )
                 .onStatus(
                         HttpStatusCode::is4xxClientError,
-                        response -> response.bodyToMono(String.class).flatMap(errorBody ->
-                                Mono.error(new UserNotFoundException("Usuário não encontrado: " + errorBody))
-                        )
+                        response -> response.bodyToMono(String.class)
+                                .defaultIfEmpty("")
+                                .flatMap(errorBody ->
+                                        Mono.error(new UserNotFoundException("Usuário não encontrado: " + errorBody))
+                                )
                 )
                 .onStatus(
                         HttpStatusCode::is5xxServerError,
@@ -71,13 +80,8 @@ public class AuthenticationService {
                 .bodyToMono(UserResponse.class)
                 .flatMap(userResponse -> {
                     if (userResponse != null && userResponse.isValid()) {
-                        if (passwordMatches(loginRequest.getPassword(), userResponse.getPassword())) {
-
-                            String token = jwtTokenProvider.generateToken(userResponse.getEmail(), userResponse.getRole());
-                            return Mono.just(token);
-                        } else {
-                            return Mono.error(new InvalidPasswordException("Senha inválida"));
-                        }
+                        String token = jwtTokenProvider.generateToken(userResponse.getEmail(), userResponse.getRole());
+                        return Mono.just(token);
                     } else {
                         return Mono.error(new UserNotFoundException("Usuário não encontrado ou inativo"));
                     }
@@ -93,10 +97,4 @@ public class AuthenticationService {
         return claims.get("role", String.class);
     }
 
-    private boolean passwordMatches(String rawPassword, String encodedPassword) {
-        return passwordEncoder.matches(rawPassword, encodedPassword);
-    }
-
-
-
 }
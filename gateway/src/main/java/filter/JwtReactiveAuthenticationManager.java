@@ -24,7 +24,10 @@ public class JwtReactiveAuthenticationManager implements ReactiveAuthenticationM
     public Mono<Authentication> authenticate(Authentication authentication) {
         String token = authentication.getCredentials().toString();
 
-        if (!jwtTokenProvider.validateToken(token)) {
+        TokenClaims claims;
+        try {
+            claims = jwtTokenProvider.getClaims(token);
+        } catch (Exception e) {
             return Mono.deferContextual(Mono::just)
                     .flatMap(context -> {
                         ServerWebExchange exchange = context.get(ServerWebExchange.class);
@@ -32,11 +35,12 @@ public class JwtReactiveAuthenticationManager implements ReactiveAuthenticationM
                     });
         }
 
-        String username = jwtTokenProvider.getUsernameFromToken(token);
-        String role = jwtTokenProvider.getRoleFromToken(token);
+        String role = claims.role();
 
-        return Mono.just(new UsernamePasswordAuthenticationToken(username, token,
-                Collections.singletonList(new SimpleGrantedAuthority(role))));
+        UsernamePasswordAuthenticationToken authenticated = new UsernamePasswordAuthenticationToken(claims.subject(), token,
+                role == null ? Collections.emptyList() : Collections.singletonList(new SimpleGrantedAuthority(role)));
+        authenticated.setDetails(claims);
+        return Mono.just(authenticated);
     }
 
     private Mono<Authentication> buildErrorResponse(ServerWebExchange exchange, HttpStatus status, String message) {
@@ -1,29 +1,78 @@
 package filter;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Base64;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtTokenProvider {
 
+    private final MeterRegistry meterRegistry;
+
     private Key key;
 
+    private JwtParser jwtParser;
+
+    // Chave é o SHA-256 do token (o token em si não fica em memória); cada entrada expira junto com o exp do JWT.
+    private Cache<String, TokenClaims> claimsCache;
+
+    @Value("${jwt.secret}")
+    String secret;
+
+    @Value("${jwt.claims-cache.maximum-size:10000}")
+    long claimsCacheMaximumSize;
+
+    public JwtTokenProvider(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
     @PostConstruct
     public void init() {
         byte[] secretBytes = Base64.getDecoder().decode(secret);
         this.key = Keys.hmacShaKeyFor(secretBytes);
-    }
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build();
+        this.claimsCache = Caffeine.newBuilder()
+                .maximumSize(claimsCacheMaximumSize)
+                .expireAfter(new Expiry<String, TokenClaims>() {
+                    @Override
+                    public long expireAfterCreate(String digest, TokenClaims claims, long currentTime) {
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, claims.expiresAt() - System.currentTimeMillis()));
+                    }
 
-    @Value("${jwt.secret}")
-    String secret;
+                    @Override
+                    public long expireAfterUpdate(String digest, TokenClaims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String digest, TokenClaims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, claimsCache, "jwtClaims");
+    }
 
     public String generateToken(String email, String role) {
         Claims claims = Jwts.claims().setSubject(email);
@@ -41,12 +90,34 @@ public class JwtTokenProvider {
                 .compact();
     }
 
+    // Valida o token no máximo uma vez enquanto ele estiver no cache; lança exceção quando é inválido ou expirou.
+    // Token sem exp é recusado: a identidade assinada para os serviços e a entrada no cache valem até o exp.
+    public TokenClaims getClaims(String token) {
+        String digest = digest(token);
+
+        TokenClaims cached = claimsCache.getIfPresent(digest);
+        if (cached != null && !cached.isExpired()) {
+            return cached;
+        }
+
+        Claims claims = parseClaims(token);
+        if (claims.getExpiration() == null) {
+            throw new JwtException("Token sem data de expiração");
+        }
+
+        TokenClaims parsed = new TokenClaims(claims.getSubject(), claims.get("role", String.class),
+                claims.getExpiration().getTime());
+        claimsCache.put(digest, parsed);
+        return parsed;
+    }
+
+    public Claims parseClaims(String token) {
+        return jwtParser.parseClaimsJws(token).getBody();
+    }
+
     public boolean validateToken(String token) {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(key)
-                    .build()
-                    .parseClaimsJws(token);
+            getClaims(token);
             return true;
         } catch (Exception e) {
             return false;
@@ -54,21 +125,20 @@ public class JwtTokenProvider {
     }
 
     public String getUsernameFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        return claims.getSubject();
+        return getClaims(token).subject();
     }
 
     public String getRoleFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        return claims.get("role", String.class);
+        return getClaims(token).role();
+    }
+
+    private String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
 }
@@ -0,0 +1,65 @@
+package filter;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+// Ação da matriz de permissões exigida por cada rota. Rotas fora da tabela só exigem um token válido.
+@Component
+public class RouteActions {
+
+    private static final Map<String, String> ACTIONS = Map.ofEntries(
+            Map.entry("POST /api/users/create", "createUser"),
+            Map.entry("POST /api/users/delete", "deleteUser"),
+
+            Map.entry("POST /api/itens/create/one", "createItem"),
+            Map.entry("POST /api/itens/import", "createItem"),
+            Map.entry("POST /api/itens/delete", "deleteItem"),
+            Map.entry("POST /api/itens/exist", "existItem"),
+            Map.entry("POST /api/itens/exist/batch", "existItem"),
+
+            Map.entry("POST /api/projects/create", "createProject"),
+            Map.entry("POST /api/projects/delete", "deleteProject"),
+            Map.entry("POST /api/projects/exist", "existProject"),
+            Map.entry("GET /api/projects/get-contracts-by-email", "getProject"),
+            Map.entry("POST /api/projects/add-email-in-project", "addEmailInProject"),
+            Map.entry("POST /api/projects/remove-email-from-project", "addEmailInProject"),
+            Map.entry("POST /api/projects/members/batch", "addEmailInProject"),
+
+            Map.entry("POST /api/places/create", "createPlace"),
+            Map.entry("POST /api/places/delete", "deletePlace"),
+            Map.entry("POST /api/places/exist", "existPlace"),
+            Map.entry("POST /api/places/exist/batch", "existPlace"),
+
+            Map.entry("POST /api/placesitens/create", "createPlaceItem"),
+            Map.entry("POST /api/placesitens/bill-of-quantities", "createPlaceItem"),
+            Map.entry("POST /api/placesitens/delete", "deletePlaceItem"),
+            Map.entry("POST /api/placesitens/exist", "existPlaceItem"),
+            Map.entry("POST /api/placesitens/exist/batch", "existPlaceItem"),
+            Map.entry("GET /api/placesitens/get-places-itens-by-token", "getPlaceItem"),
+            Map.entry("GET /api/placesitens/get-places-itens-by-token/stream", "getPlaceItem"),
+            Map.entry("GET /api/placesitens/get-places-itens-by-token/page", "getPlaceItem"),
+
+            Map.entry("POST /api/measurements/create", "createMeasurement"),
+            Map.entry("POST /api/measurements/delete", "deleteMeasurement"),
+            Map.entry("POST /api/measurements/exist", "existMeasurement"),
+
+            Map.entry("POST /api/measurementsplacesitens/create", "createMeasurementPlaceItem"),
+            Map.entry("POST /api/measurementsplacesitens/bulk-load", "importMeasurementPlaceItemHistory"),
+            Map.entry("POST /api/measurementsplacesitens/sheet", "createMeasurementPlaceItem"),
+            Map.entry("POST /api/measurementsplacesitens/delete", "deleteMeasurementPlaceItem"),
+            Map.entry("POST /api/measurementsplacesitens/exist", "existMeasurementPlaceItem")
+    );
+
+    static Map<String, String> actions() {
+        return ACTIONS;
+    }
+
+    public String resolve(HttpMethod method, String path) {
+        if (path.length() > 1 && path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+        return ACTIONS.get(method.name() + " " + path);
+    }
+}
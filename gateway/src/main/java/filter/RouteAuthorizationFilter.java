@@ -0,0 +1,101 @@
+package filter;
+
+import authorization.IdentitySigner;
+import authorization.PermissionEvaluator;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+// Decide a permissão da rota uma única vez, aqui no gateway, e repassa aos serviços a identidade verificada
+// num cabeçalho assinado. Qualquer X-Identity ou X-Service-Identity vindo do cliente é descartado.
+@Component
+public class RouteAuthorizationFilter implements GlobalFilter, Ordered {
+
+    private final RouteActions routeActions;
+    private final PermissionEvaluator permissionEvaluator;
+    private final IdentitySigner identitySigner;
+
+    public RouteAuthorizationFilter(RouteActions routeActions, PermissionEvaluator permissionEvaluator, IdentitySigner identitySigner) {
+        this.routeActions = routeActions;
+        this.permissionEvaluator = permissionEvaluator;
+        this.identitySigner = identitySigner;
+    }
+
+    @Override
+    public int getOrder() {
+        return 0;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        return ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication)
+                .filter(Authentication::isAuthenticated)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(authentication -> authentication
+                        .map(auth -> authorize(exchange, chain, auth))
+                        .orElseGet(() -> chain.filter(withIdentity(exchange, null))));
+    }
+
+    private Mono<Void> authorize(ServerWebExchange exchange, GatewayFilterChain chain, Authentication authentication) {
+        String role = authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .findFirst()
+                .orElse(null);
+        String action = routeActions.resolve(exchange.getRequest().getMethod(), exchange.getRequest().getPath().value());
+
+        if (action != null) {
+            ResponseEntity<String> decision = permissionEvaluator.decide(role, action);
+            if (!decision.getStatusCode().is2xxSuccessful()) {
+                return reject(exchange, decision.getStatusCode(), decision.getBody());
+            }
+        }
+
+        if (role == null || !(authentication.getDetails() instanceof TokenClaims claims)) {
+            return chain.filter(withIdentity(exchange, null));
+        }
+
+        String identity = identitySigner.sign(authentication.getName(), role, action, claims.expiresAt() / 1000);
+        return chain.filter(withIdentity(exchange, identity));
+    }
+
+    private ServerWebExchange withIdentity(ServerWebExchange exchange, String identity) {
+        return exchange.mutate()
+                .request(request -> request.headers(headers -> {
+                    headers.remove(IdentitySigner.HEADER);
+                    headers.remove(IdentitySigner.SERVICE_HEADER);
+                    if (identity != null) {
+                        headers.set(IdentitySigner.HEADER, identity);
+                    }
+                }))
+                .build();
+    }
+
+    private Mono<Void> reject(ServerWebExchange exchange, HttpStatusCode status, String message) {
+        exchange.getResponse().setStatusCode(status);
+        exchange.getResponse().getHeaders().setContentType(MediaType.APPLICATION_JSON);
+
+        String body = "{\"timestamp\":\"" + LocalDateTime.now() + "\"," +
+                "\"status\":" + status.value() + "," +
+                "\"message\":\"" + message + "\"," +
+                "\"path\":\"" + exchange.getRequest().getPath().value() + "\"}";
+
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        return exchange.getResponse().writeWith(Mono.just(exchange.getResponse().bufferFactory().wrap(bytes)));
+    }
+}
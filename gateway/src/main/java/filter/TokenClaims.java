@@ -0,0 +1,9 @@
+package filter;
+
+// Resultado de uma única validação do JWT; expiresAt em epoch millis.
+public record TokenClaims(String subject, String role, long expiresAt) {
+
+    public boolean isExpired() {
+        return expiresAt <= System.currentTimeMillis();
+    }
+}
@@ -1,12 +1,17 @@
 package md.gateway;
 
+import authorization.IdentitySigner;
+import authorization.PermissionEvaluator;
+import authorization.PermissionSnapshotRefresher;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
+import org.springframework.context.annotation.Import;
 
 
 @EnableDiscoveryClient
 @SpringBootApplication(scanBasePackages = {"md.gateway", "filter"})
+@Import({PermissionEvaluator.class, PermissionSnapshotRefresher.class, IdentitySigner.class})
 public class GatewayApplication {
     public static void main(String[] args) {
         SpringApplication.run(GatewayApplication.class, args);
@@ -0,0 +1,53 @@
+package filter;
+
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtTokenProviderTest {
+
+    private static final String SECRET = "HaviaDeRecordarAquelaTardeQueSeuPaiOLevaraParaConhecerOGelo";
+
+    private JwtTokenProvider jwtTokenProvider;
+
+    @BeforeEach
+    void setup() {
+        jwtTokenProvider = new JwtTokenProvider(new SimpleMeterRegistry());
+        jwtTokenProvider.secret = SECRET;
+        jwtTokenProvider.claimsCacheMaximumSize = 100;
+        jwtTokenProvider.init();
+    }
+
+    @Test
+    void tokenWithExpirationCarriesIt() {
+        String token = jwtTokenProvider.generateToken("tecnico@obra.com", "TECHNICIAN");
+
+        TokenClaims claims = jwtTokenProvider.getClaims(token);
+
+        assertThat(claims.subject()).isEqualTo("tecnico@obra.com");
+        assertThat(claims.role()).isEqualTo("TECHNICIAN");
+        assertThat(claims.expiresAt()).isGreaterThan(System.currentTimeMillis()).isLessThan(Long.MAX_VALUE);
+    }
+
+    @Test
+    void tokenWithoutExpirationIsRejected() {
+        String token = Jwts.builder()
+                .setSubject("tecnico@obra.com")
+                .claim("role", "ADMIN")
+                .setIssuedAt(new Date())
+                .signWith(Keys.hmacShaKeyFor(Base64.getDecoder().decode(SECRET)))
+                .compact();
+
+        assertThatThrownBy(() -> jwtTokenProvider.getClaims(token)).isInstanceOf(JwtException.class);
+        assertThat(jwtTokenProvider.validateToken(token)).isFalse();
+    }
+}
@@ -0,0 +1,81 @@
+package filter;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.http.HttpMethod;
+import strategies.RoleStrategy;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RouteActionsTest {
+
+    private final RouteActions routeActions = new RouteActions();
+
+    @ParameterizedTest
+    @CsvSource({
+            "POST, /api/users/create, createUser",
+            "POST, /api/users/delete, deleteUser",
+            "POST, /api/itens/create/one, createItem",
+            "POST, /api/itens/import, createItem",
+            "POST, /api/itens/delete, deleteItem",
+            "POST, /api/itens/exist, existItem",
+            "POST, /api/itens/exist/batch, existItem",
+            "POST, /api/projects/create, createProject",
+            "POST, /api/projects/delete, deleteProject",
+            "POST, /api/projects/exist, existProject",
+            "GET, /api/projects/get-contracts-by-email, getProject",
+            "POST, /api/projects/add-email-in-project, addEmailInProject",
+            "POST, /api/projects/remove-email-from-project, addEmailInProject",
+            "POST, /api/projects/members/batch, addEmailInProject",
+            "POST, /api/places/create, createPlace",
+            "POST, /api/places/delete, deletePlace",
+            "POST, /api/places/exist, existPlace",
+            "POST, /api/places/exist/batch, existPlace",
+            "POST, /api/placesitens/create, createPlaceItem",
+            "POST, /api/placesitens/bill-of-quantities, createPlaceItem",
+            "POST, /api/placesitens/delete, deletePlaceItem",
+            "POST, /api/placesitens/exist, existPlaceItem",
+            "POST, /api/placesitens/exist/batch, existPlaceItem",
+            "GET, /api/placesitens/get-places-itens-by-token, getPlaceItem",
+            "GET, /api/placesitens/get-places-itens-by-token/stream, getPlaceItem",
+            "GET, /api/placesitens/get-places-itens-by-token/page, getPlaceItem",
+            "POST, /api/measurements/create, createMeasurement",
+            "POST, /api/measurements/delete, deleteMeasurement",
+            "POST, /api/measurements/exist, existMeasurement",
+            "POST, /api/measurementsplacesitens/create, createMeasurementPlaceItem",
+            "POST, /api/measurementsplacesitens/bulk-load, importMeasurementPlaceItemHistory",
+            "POST, /api/measurementsplacesitens/sheet, createMeasurementPlaceItem",
+            "POST, /api/measurementsplacesitens/delete, deleteMeasurementPlaceItem",
+            "POST, /api/measurementsplacesitens/exist, existMeasurementPlaceItem"
+    })
+    void eachRouteRequiresItsAction(String method, String path, String action) {
+        assertThat(routeActions.resolve(HttpMethod.valueOf(method), path)).isEqualTo(action);
+        assertThat(routeActions.resolve(HttpMethod.valueOf(method), path + "/")).isEqualTo(action);
+    }
+
+    @Test
+    void tableHasNoRouteOutsideThisTest() {
+        assertThat(RouteActions.actions()).hasSize(34);
+    }
+
+    @Test
+    void everyActionExistsInThePermissionMatrix() {
+        Set<String> actions = Arrays.stream(RoleStrategy.class.getMethods())
+                .map(Method::getName)
+                .collect(Collectors.toSet());
+
+        assertThat(actions).containsAll(RouteActions.actions().values());
+    }
+
+    @Test
+    void routesOutsideTheTableRequireNoAction() {
+        assertThat(routeActions.resolve(HttpMethod.GET, "/api/projects/delete")).isNull();
+        assertThat(routeActions.resolve(HttpMethod.POST, "/api/placesitens/accumulate")).isNull();
+    }
+}
@@ -1,5 +1,7 @@
 package client;
 
+import authorization.PermissionDecisionCache;
+import authorization.PermissionEvaluator;
 
 import org.springframework.context.annotation.Lazy;
 import org.springframework.http.HttpHeaders;
@@ -20,14 +22,27 @@ public class ItemClient {
 
     private final WebClient webClient;
     private final ItemService itemService;
+    private final PermissionEvaluator permissionEvaluator;
+    private final PermissionDecisionCache permissionDecisionCache;
 
-    public ItemClient(WebClient.Builder webClientBuilder, @Lazy ItemService itemService) {
+    public ItemClient(WebClient.Builder webClientBuilder, @Lazy ItemService itemService, PermissionEvaluator permissionEvaluator, PermissionDecisionCache permissionDecisionCache) {
         this.webClient = webClientBuilder.baseUrl("lb://user").build();
         this.itemService = itemService;
+        this.permissionEvaluator = permissionEvaluator;
+        this.permissionDecisionCache = permissionDecisionCache;
     }
 
 
+    // No modo local a decisão sai da matriz em memória e da identidade do pedido; só a consulta remota vai para o cache.
     public Mono<ResponseEntity<String>> hasPermission(String token, String action) {
+        if (permissionEvaluator.isLocal()) {
+            return permissionEvaluator.hasPermission(token, action);
+        }
+
+        return permissionDecisionCache.get(token, action, () -> fetchPermission(token, action));
+    }
+
+    private Mono<ResponseEntity<String>> fetchPermission(String token, String action) {
         return webClient.post()
                 .uri("api/users/has-permission/{token}/{action}", token, action)
                 .header(HttpHeaders.AUTHORIZATION, token)
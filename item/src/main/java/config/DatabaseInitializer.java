@@ -1,40 +1,125 @@
 package config;
 
-import org.springframework.boot.CommandLineRunner;
-import org.springframework.context.annotation.Bean;
-import org.springframework.r2dbc.core.DatabaseClient;
+import authorization.SchemaMigrations;
+import io.r2dbc.spi.ConnectionFactory;
+import jakarta.annotation.PostConstruct;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
+import static authorization.SchemaMigrations.migration;
+
 @Component
 public class DatabaseInitializer {
 
-    @Bean
-    public CommandLineRunner initializeDatabase(DatabaseClient client) {
-        return args -> {
-            client.sql("CREATE SCHEMA IF NOT EXISTS app")
-                    .fetch()
-                    .rowsUpdated()
-                    .doOnSuccess(count -> System.out.println("Schema 'app' criado com sucesso!"))
-                    .then(client.sql("SET search_path TO app, public")
-                            .fetch()
-                            .rowsUpdated()
-                            .doOnSuccess(count -> System.out.println("search_path configurado para 'app, public'"))
-                    )
-                    .then(client.sql("CREATE TABLE IF NOT EXISTS itens (" +
-                                    "id SERIAL PRIMARY KEY, " +
-                                    "name VARCHAR(255) NOT NULL, " +
-                                    "unit VARCHAR(255) NOT NULL" +
-                                    ")").fetch()
-                            .rowsUpdated()
-                            .doOnSuccess(count -> System.out.println("Tabela 'itens' criada com sucesso!"))
-                    )
-                    .then(client.sql("CREATE UNIQUE INDEX IF NOT EXISTS idx_name_unit ON itens (name, unit)")
-                            .fetch()
-                            .rowsUpdated()
-                            .doOnSuccess(count -> System.out.println("Índice único 'idx_name_unit' criado com sucesso!"))
-                    )
-                    .doOnError(error -> System.err.println("Erro ao inicializar o banco de dados: " + error.getMessage()))
-                    .subscribe();
-        };
+    // Versões já aplicadas não mudam: alteração de esquema entra como uma nova versão no fim da lista.
+    static final SchemaMigrations MIGRATIONS = new SchemaMigrations("app", List.of(
+            migration(1, "Tabela itens com índice único (name, unit)",
+                    "CREATE TABLE IF NOT EXISTS itens (" +
+                            "id SERIAL PRIMARY KEY, " +
+                            "name VARCHAR(255) NOT NULL, " +
+                            "unit VARCHAR(255) NOT NULL" +
+                            ")",
+                    "CREATE UNIQUE INDEX IF NOT EXISTS idx_name_unit ON itens (name, unit)"),
+            migration(2, "Feed de alterações de itens",
+                    """
+                    CREATE TABLE IF NOT EXISTS change_events (
+                        seq BIGSERIAL PRIMARY KEY,
+                        entity VARCHAR(64) NOT NULL,
+                        op CHAR(1) NOT NULL,
+                        entity_key TEXT NOT NULL,
+                        created_at TIMESTAMP NOT NULL DEFAULT now()
+                    );
+                    """,
+                    "CREATE INDEX IF NOT EXISTS idx_change_events_entity_seq ON change_events (entity, seq);",
+                    """
+                    CREATE OR REPLACE FUNCTION publish_change() RETURNS TRIGGER AS $$
+                    DECLARE
+                        event_seq BIGINT;
+                        old_key TEXT;
+                        new_key TEXT;
+                    BEGIN
+                        IF TG_OP IN ('UPDATE', 'DELETE') THEN
+                            SELECT string_agg(coalesce(to_jsonb(OLD) ->> c.col, ''), chr(31) ORDER BY c.ord)
+                            INTO old_key FROM unnest(TG_ARGV) WITH ORDINALITY AS c(col, ord);
+                        END IF;
+                        IF TG_OP IN ('UPDATE', 'INSERT') THEN
+                            SELECT string_agg(coalesce(to_jsonb(NEW) ->> c.col, ''), chr(31) ORDER BY c.ord)
+                            INTO new_key FROM unnest(TG_ARGV) WITH ORDINALITY AS c(col, ord);
+                        END IF;
+                        IF old_key IS NOT DISTINCT FROM new_key THEN
+                            RETURN NULL;
+                        END IF;
+
+                        PERFORM pg_advisory_xact_lock(hashtext('change_events'));
+
+                        IF old_key IS NOT NULL THEN
+                            INSERT INTO change_events (entity, op, entity_key) VALUES (TG_TABLE_NAME, 'D', old_key)
+                            RETURNING seq INTO event_seq;
+                        END IF;
+                        IF new_key IS NOT NULL THEN
+                            INSERT INTO change_events (entity, op, entity_key) VALUES (TG_TABLE_NAME, 'I', new_key)
+                            RETURNING seq INTO event_seq;
+                        END IF;
+
+                        PERFORM pg_notify(TG_TABLE_NAME || '_changes', event_seq::text);
+                        RETURN NULL;
+                    END;
+                    $$ LANGUAGE plpgsql;
+                    """,
+                    "CREATE OR REPLACE TRIGGER trg_itens_changes AFTER INSERT OR UPDATE OF name, unit OR DELETE ON itens " +
+                            "FOR EACH ROW EXECUTE FUNCTION publish_change('name', 'unit');",
+                    "INSERT INTO change_events (entity, op, entity_key) SELECT 'itens', 'I', coalesce(name::text, '') || chr(31) || coalesce(unit::text, '') " +
+                            "FROM itens WHERE NOT EXISTS (SELECT 1 FROM change_events WHERE entity = 'itens');"),
+            // De cada chave fica só o último evento; exclusões saem depois da retenção e movem o horizonte das réplicas.
+            migration(3, "Compactação do change_events",
+                    """
+                    CREATE TABLE IF NOT EXISTS change_events_horizon (
+                        entity VARCHAR(64) PRIMARY KEY,
+                        purged_seq BIGINT NOT NULL
+                    );
+                    """,
+                    "CREATE INDEX IF NOT EXISTS idx_change_events_entity_key_seq ON change_events (entity, entity_key, seq);",
+                    """
+                    CREATE OR REPLACE FUNCTION compact_change_events(tombstone_retention INTERVAL) RETURNS BIGINT AS $$
+                    DECLARE
+                        superseded BIGINT;
+                        purged BIGINT;
+                    BEGIN
+                        DELETE FROM change_events c
+                        WHERE EXISTS (SELECT 1 FROM change_events n
+                                      WHERE n.entity = c.entity AND n.entity_key = c.entity_key AND n.seq > c.seq);
+                        GET DIAGNOSTICS superseded = ROW_COUNT;
+
+                        WITH tombstones AS (
+                            DELETE FROM change_events
+                            WHERE op = 'D' AND created_at < now() - tombstone_retention
+                            RETURNING entity, seq
+                        ), horizon AS (
+                            INSERT INTO change_events_horizon (entity, purged_seq)
+                            SELECT entity, max(seq) FROM tombstones GROUP BY entity
+                            ON CONFLICT (entity) DO UPDATE
+                                SET purged_seq = GREATEST(change_events_horizon.purged_seq, EXCLUDED.purged_seq)
+                        )
+                        SELECT count(*) INTO purged FROM tombstones;
+
+                        RETURN superseded + purged;
+                    END;
+                    $$ LANGUAGE plpgsql;
+                    """)
+    ));
+
+    private final ConnectionFactory connectionFactory;
+
+    public DatabaseInitializer(ConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+    }
+
+    // Roda na criação do contexto, antes de o servidor web abrir a porta e de o serviço se registrar no Eureka: só
+    // recebe tráfego com o esquema atualizado, e a subida falha se a migração falhar.
+    @PostConstruct
+    public void migrate() {
+        Long applied = MIGRATIONS.apply(connectionFactory).block();
+        System.out.println("Esquema de 'itens' atualizado: " + applied + " migração(ões) aplicada(s)");
     }
 }
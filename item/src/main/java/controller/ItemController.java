@@ -1,6 +1,8 @@
 package controller;
 
 import dto.ItemDTO;
+import dto.ItemExistBatchResponseDTO;
+import dto.ItemImportSummaryDTO;
 import dto.ItemRequestDTO;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -9,11 +11,15 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import service.ItemService;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("api/itens")
 @Tag(name = "Item Controller", description = "Controlador responsável pela criação, verificação e exclusão de itens.")
@@ -104,4 +110,50 @@ public class ItemController {
             @RequestHeader("Authorization") String token) {
         return itemService.existsByNameAndUnit(itemRequestDTO, token);
     }
+
+    @Operation(
+            summary = "Verifica a existência de vários itens",
+            description = "Recebe uma lista de pares (nome, unidade) e responde, na mesma ordem, se cada item existe. Uma única verificação de permissão e uma única consulta para o lote."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Lote verificado; exists[i] corresponde ao i-ésimo item enviado."),
+            @ApiResponse(responseCode = "400", description = "Lote vazio ou acima do tamanho máximo."),
+            @ApiResponse(responseCode = "403", description = "Ação não autorizada. Verifique o token."),
+            @ApiResponse(responseCode = "424", description = "Erro interno associado a uma dependência."),
+            @ApiResponse(responseCode = "500", description = "Erro interno .")
+    })
+    @PostMapping("/exist/batch")
+    public Mono<ResponseEntity<ItemExistBatchResponseDTO>> existItemBatch(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    description = "Itens (nome e unidade) a verificar.",
+                    required = true
+            )
+            @RequestBody List<ItemRequestDTO> itemRequestDTOs,
+            @Parameter(description = "Token de autorização do usuário.", required = true, example = "Bearer <token>")
+            @RequestHeader("Authorization") String token) {
+        return itemService.existsBatch(itemRequestDTOs, token);
+    }
+
+    @Operation(
+            summary = "Importa um catálogo de itens",
+            description = "Recebe um item por linha (application/x-ndjson) e grava em lotes. Itens repetidos no arquivo ou já existentes são ignorados."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Importação concluída, com a contagem de itens criados e ignorados."),
+            @ApiResponse(responseCode = "403", description = "Ação não autorizada. Verifique o token."),
+            @ApiResponse(responseCode = "404", description = "Ação não encontrada. Verifique o token."),
+            @ApiResponse(responseCode = "424", description = "Erro interno associado a uma dependência."),
+            @ApiResponse(responseCode = "500", description = "Erro interno.")
+    })
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public Mono<ResponseEntity<ItemImportSummaryDTO>> importItems(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    description = "Um objeto {\"name\", \"unit\"} por linha.",
+                    required = true
+            )
+            @RequestBody Flux<ItemDTO> itemDTOs,
+            @Parameter(description = "Token de autorização do usuário.", required = true, example = "Bearer <token>")
+            @RequestHeader("Authorization") String token) {
+        return itemService.importItems(itemDTOs, token);
+    }
 }
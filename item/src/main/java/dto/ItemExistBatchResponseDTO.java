@@ -0,0 +1,25 @@
+package dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// exists[i] indica se o i-ésimo par (nome, unidade) da requisição existe.
+@Getter
+@Setter
+@NoArgsConstructor
+public class ItemExistBatchResponseDTO {
+
+    private boolean[] exists;
+
+    private String message;
+
+    public ItemExistBatchResponseDTO(boolean[] exists, String message) {
+        this.exists = exists;
+        this.message = message;
+    }
+
+    public static ItemExistBatchResponseDTO error(String message) {
+        return new ItemExistBatchResponseDTO(new boolean[0], message);
+    }
+}
@@ -0,0 +1,31 @@
+package dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// skipped soma duplicados no próprio arquivo, itens que já existiam e linhas sem nome ou unidade.
+@Getter
+@Setter
+@NoArgsConstructor
+public class ItemImportSummaryDTO {
+
+    private long received;
+
+    private long created;
+
+    private long skipped;
+
+    private String message;
+
+    public ItemImportSummaryDTO(long received, long created, long skipped, String message) {
+        this.received = received;
+        this.created = created;
+        this.skipped = skipped;
+        this.message = message;
+    }
+
+    public static ItemImportSummaryDTO error(String message) {
+        return new ItemImportSummaryDTO(0, 0, 0, message);
+    }
+}
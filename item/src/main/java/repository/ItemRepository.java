@@ -2,10 +2,13 @@ package repository;
 
 
 import model.Item;
+import org.springframework.data.r2dbc.repository.Modifying;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
 import org.springframework.http.ResponseEntity;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.Optional;
@@ -15,4 +18,35 @@ public interface ItemRepository extends R2dbcRepository<Item, Long> {
 
     Mono<Item> findByNameAndUnit(String name, String unit);
 
-}
\ No newline at end of file
+    // Cria o item só se o par (name, unit) ainda não existe: 1 = criado, 0 = já existia. Uma ida ao banco e sem
+    // corrida entre a verificação e a gravação, já que quem decide é o índice único idx_name_unit.
+    @Modifying
+    @Query("INSERT INTO itens (name, unit) VALUES (:name, :unit) ON CONFLICT (name, unit) DO NOTHING")
+    Mono<Long> insertIfAbsent(@Param("name") String name, @Param("unit") String unit);
+
+    // Exclusão pela chave natural sem carregar a linha antes: 1 = excluída, 0 = não existia.
+    @Modifying
+    @Query("DELETE FROM itens WHERE name = :name AND unit = :unit")
+    Mono<Long> deleteByNameAndUnit(@Param("name") String name, @Param("unit") String unit);
+
+    // Só responde se a chave existe, resolvido pelo índice único idx_name_unit, sem materializar a entidade.
+    @Query("SELECT EXISTS (SELECT 1 FROM itens WHERE name = :name AND unit = :unit)")
+    Mono<Boolean> existsByNameAndUnit(@Param("name") String name, @Param("unit") String unit);
+
+    // Uma consulta para o lote inteiro, resolvida pelo índice único idx_name_unit.
+    @Query("""
+            SELECT * FROM itens
+            WHERE (name, unit) IN (SELECT n, u FROM unnest(CAST(:names AS text[]), CAST(:units AS text[])) AS pairs(n, u))
+            """)
+    Flux<Item> findAllByNameAndUnitIn(@Param("names") String[] names, @Param("units") String[] units);
+
+    // Grava o lote num único INSERT; pares que já existem são ignorados pelo índice único idx_name_unit.
+    // Retorna quantas linhas foram de fato inseridas.
+    @Modifying
+    @Query("""
+            INSERT INTO itens (name, unit)
+            SELECT n, u FROM unnest(CAST(:names AS text[]), CAST(:units AS text[])) AS pairs(n, u)
+            ON CONFLICT (name, unit) DO NOTHING
+            """)
+    Mono<Long> insertIgnoringConflicts(@Param("names") String[] names, @Param("units") String[] units);
+}
@@ -2,15 +2,24 @@ package service;
 
 import client.ItemClient;
 import dto.ItemDTO;
+import dto.ItemExistBatchResponseDTO;
+import dto.ItemImportSummaryDTO;
 import dto.ItemRequestDTO;
 import model.Item;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import repository.ItemRepository;
 
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
 import static org.springframework.http.HttpStatus.*;
 
 @Service
@@ -19,6 +28,11 @@ public class ItemService {
     private final ItemRepository itemRepository;
     private final ItemClient itemClient;
 
+    @Value("${itens.exist-batch.max-size:1000}")
+    private int existBatchMaxSize = 1000;
+
+    @Value("${itens.import.batch-size:1000}")
+    private int importBatchSize = 1000;
 
     public ItemService(ItemRepository itemRepository, ItemClient client) {
         this.itemClient = client;
@@ -45,22 +59,12 @@ public class ItemService {
                                 .body("Erro ao verificar permissão: " + message));
                     }
 
-                    return itemRepository.findByNameAndUnit(itemDTO.getName(), itemDTO.getUnit())
-                            .flatMap(existingItem ->
-                                    Mono.just(ResponseEntity.status(CONFLICT)
-                                            .body("O item: " + itemDTO.getName() + " já existe com a unidade: " + itemDTO.getUnit()))
-                            )
-                            .switchIfEmpty(
-                                    Mono.defer(() -> {
-                                        Item item = new Item();
-                                        item.setName(itemDTO.getName());
-                                        item.setUnit(itemDTO.getUnit());
-
-                                        return itemRepository.save(item)
-                                                .map(savedItem -> ResponseEntity.status(CREATED)
-                                                        .body("Item criado com sucesso"));
-                                    })
-                            );
+                    return itemRepository.insertIfAbsent(itemDTO.getName(), itemDTO.getUnit())
+                            .map(inserted -> inserted > 0
+                                    ? ResponseEntity.status(CREATED)
+                                            .body("Item criado com sucesso")
+                                    : ResponseEntity.status(CONFLICT)
+                                            .body("O item: " + itemDTO.getName() + " já existe com a unidade: " + itemDTO.getUnit()));
                 });
     }
 
@@ -83,13 +87,10 @@ public class ItemService {
                                 .body("Erro ao verificar permissão: " + message));
                     }
 
-                    return itemRepository.findByNameAndUnit(itemDTO.getName(), itemDTO.getUnit())
-                            .flatMap(existingItem ->
-                                    itemRepository.delete(existingItem)
-                                            .then(Mono.just(ResponseEntity.status(OK)
-                                                    .body("Item deletado com sucesso"))))
-                            .switchIfEmpty(Mono.just(ResponseEntity.status(NO_CONTENT)
-                                    .body("Item não encontrado com o nome e unidade fornecidos")));
+                    return itemRepository.deleteByNameAndUnit(itemDTO.getName(), itemDTO.getUnit())
+                            .map(deleted -> deleted > 0
+                                    ? ResponseEntity.status(OK).body("Item deletado com sucesso")
+                                    : ResponseEntity.status(NO_CONTENT).body("Item não encontrado com o nome e unidade fornecidos"));
                 })
                 .onErrorResume(error -> Mono.just(ResponseEntity.status(INTERNAL_SERVER_ERROR)
                         .body("Erro ao processar a exclusão do item: " + error.getMessage())));
@@ -114,15 +115,116 @@ public class ItemService {
                                 .body("Erro ao verificar permissão: " + message));
                     }
 
-                    return itemRepository.findByNameAndUnit(itemRequestDTO.getName(), itemRequestDTO.getUnit())
-                            .flatMap(existingItem ->
-                                    Mono.just(ResponseEntity.status(OK)
-                                            .body("Item encontrado")))
-                            .switchIfEmpty(
-                                    Mono.just(ResponseEntity.status(NO_CONTENT)
-                                            .body("Item não encontrado")));
+                    return itemRepository.existsByNameAndUnit(itemRequestDTO.getName(), itemRequestDTO.getUnit())
+                            .map(exists -> exists
+                                    ? ResponseEntity.status(OK).body("Item encontrado")
+                                    : ResponseEntity.status(NO_CONTENT).body("Item não encontrado"));
                 })
                 .onErrorResume(error -> Mono.just(ResponseEntity.status(INTERNAL_SERVER_ERROR)
                         .body("Erro ao verificar a existência do item: " + error.getMessage())));
     }
+
+    public Mono<ResponseEntity<ItemExistBatchResponseDTO>> existsBatch(List<ItemRequestDTO> itemRequestDTOs, String token) {
+        String action = "existItem";
+
+        if (itemRequestDTOs == null || itemRequestDTOs.isEmpty()) {
+            return Mono.just(ResponseEntity.status(BAD_REQUEST)
+                    .body(ItemExistBatchResponseDTO.error("Informe ao menos um item")));
+        }
+        if (itemRequestDTOs.size() > existBatchMaxSize) {
+            return Mono.just(ResponseEntity.status(BAD_REQUEST)
+                    .body(ItemExistBatchResponseDTO.error("O lote pode ter no máximo " + existBatchMaxSize + " itens")));
+        }
+
+        return itemClient.hasPermission(token, action)
+                .flatMap(responseEntity -> {
+                    HttpStatus status = (HttpStatus) responseEntity.getStatusCode();
+                    String message = responseEntity.getBody();
+
+                    if (status == NOT_FOUND) {
+                        return Mono.just(ResponseEntity.status(NOT_FOUND)
+                                .body(ItemExistBatchResponseDTO.error("Ação não encontrada: " + action)));
+                    } else if (status == FORBIDDEN) {
+                        return Mono.just(ResponseEntity.status(FORBIDDEN)
+                                .body(ItemExistBatchResponseDTO.error("Sem permissão para realizar essa ação")));
+                    } else if (status != OK) {
+                        return Mono.just(ResponseEntity.status(FAILED_DEPENDENCY)
+                                .body(ItemExistBatchResponseDTO.error("Erro ao verificar permissão: " + message)));
+                    }
+
+                    String[] names = new String[itemRequestDTOs.size()];
+                    String[] units = new String[itemRequestDTOs.size()];
+                    for (int i = 0; i < itemRequestDTOs.size(); i++) {
+                        names[i] = itemRequestDTOs.get(i).getName();
+                        units[i] = itemRequestDTOs.get(i).getUnit();
+                    }
+
+                    return itemRepository.findAllByNameAndUnitIn(names, units)
+                            .collect(HashSet<Item>::new, Set::add)
+                            .map(found -> {
+                                boolean[] exists = new boolean[names.length];
+                                int count = 0;
+                                for (int i = 0; i < names.length; i++) {
+                                    exists[i] = found.contains(new Item(names[i], units[i]));
+                                    if (exists[i]) {
+                                        count++;
+                                    }
+                                }
+                                return ResponseEntity.ok(new ItemExistBatchResponseDTO(exists,
+                                        count + " de " + names.length + " itens encontrados"));
+                            });
+                })
+                .onErrorResume(error -> Mono.just(ResponseEntity.status(INTERNAL_SERVER_ERROR)
+                        .body(ItemExistBatchResponseDTO.error("Erro ao verificar a existência dos itens: " + error.getMessage()))));
+    }
+
+    // Importação em NDJSON: o corpo é lido conforme chega, duplicados do próprio arquivo são descartados em memória
+    // e o restante vai ao banco em lotes de importBatchSize, num INSERT ... ON CONFLICT DO NOTHING por lote.
+    public Mono<ResponseEntity<ItemImportSummaryDTO>> importItems(Flux<ItemDTO> itemDTOs, String token) {
+        String action = "createItem";
+
+        return itemClient.hasPermission(token, action)
+                .flatMap(responseEntity -> {
+                    HttpStatus status = (HttpStatus) responseEntity.getStatusCode();
+                    String message = responseEntity.getBody();
+
+                    if (status == NOT_FOUND) {
+                        return Mono.just(ResponseEntity.status(NOT_FOUND)
+                                .body(ItemImportSummaryDTO.error("Ação não encontrada: " + action)));
+                    } else if (status == FORBIDDEN) {
+                        return Mono.just(ResponseEntity.status(FORBIDDEN)
+                                .body(ItemImportSummaryDTO.error("Sem permissão para realizar essa ação")));
+                    } else if (status != OK) {
+                        return Mono.just(ResponseEntity.status(FAILED_DEPENDENCY)
+                                .body(ItemImportSummaryDTO.error("Erro ao verificar permissão: " + message)));
+                    }
+
+                    AtomicLong received = new AtomicLong();
+                    Set<Item> seen = new HashSet<>();
+
+                    return itemDTOs
+                            .doOnNext(itemDTO -> received.incrementAndGet())
+                            .filter(itemDTO -> itemDTO.getName() != null && !itemDTO.getName().isBlank()
+                                    && itemDTO.getUnit() != null && !itemDTO.getUnit().isBlank())
+                            .filter(itemDTO -> seen.add(new Item(itemDTO.getName(), itemDTO.getUnit())))
+                            .buffer(importBatchSize)
+                            .concatMap(batch -> {
+                                String[] names = new String[batch.size()];
+                                String[] units = new String[batch.size()];
+                                for (int i = 0; i < batch.size(); i++) {
+                                    names[i] = batch.get(i).getName();
+                                    units[i] = batch.get(i).getUnit();
+                                }
+                                return itemRepository.insertIgnoringConflicts(names, units);
+                            })
+                            .reduce(0L, Long::sum)
+                            .map(created -> {
+                                long skipped = received.get() - created;
+                                return ResponseEntity.ok(new ItemImportSummaryDTO(received.get(), created, skipped,
+                                        created + " itens criados, " + skipped + " ignorados"));
+                            });
+                })
+                .onErrorResume(error -> Mono.just(ResponseEntity.status(INTERNAL_SERVER_ERROR)
+                        .body(ItemImportSummaryDTO.error("Erro ao importar os itens: " + error.getMessage()))));
+    }
 }
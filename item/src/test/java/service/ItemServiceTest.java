@@ -2,6 +2,8 @@ package service;
 
 import client.ItemClient;
 import dto.ItemDTO;
+import dto.ItemExistBatchResponseDTO;
+import dto.ItemImportSummaryDTO;
 import dto.ItemRequestDTO;
 import model.Item;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,9 +13,13 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Flux;
 import repository.ItemRepository;
 
+import java.util.List;
+
 import static org.mockito.Mockito.*;
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -42,11 +48,8 @@ class ItemServiceTest {
         when(itemClient.hasPermission(token, "createItem"))
                 .thenReturn(Mono.just(ResponseEntity.ok("Permission granted")));
 
-        when(itemRepository.findByNameAndUnit(itemDTO.getName(), itemDTO.getUnit()))
-                .thenReturn(Mono.empty());
-
-        when(itemRepository.save(any()))
-                .thenReturn(Mono.just(new Item("item1", "kg")));
+        when(itemRepository.insertIfAbsent(itemDTO.getName(), itemDTO.getUnit()))
+                .thenReturn(Mono.just(1L));
 
         Mono<ResponseEntity<String>> response = itemService.createItem(itemDTO, token);
 
@@ -56,8 +59,8 @@ class ItemServiceTest {
         assertThat(result.getBody()).isEqualTo("Item criado com sucesso");
 
         verify(itemClient).hasPermission(token, "createItem");
-        verify(itemRepository).findByNameAndUnit(itemDTO.getName(), itemDTO.getUnit());
-        verify(itemRepository).save(any());
+        verify(itemRepository).insertIfAbsent(itemDTO.getName(), itemDTO.getUnit());
+        verify(itemRepository, never()).findByNameAndUnit(any(), any());
     }
 
     @Test
@@ -89,8 +92,8 @@ class ItemServiceTest {
         when(itemClient.hasPermission(token, "createItem"))
                 .thenReturn(Mono.just(ResponseEntity.ok("Permission granted")));
 
-        when(itemRepository.findByNameAndUnit(itemDTO.getName(), itemDTO.getUnit()))
-                .thenReturn(Mono.just(new Item("item1", "kg")));
+        when(itemRepository.insertIfAbsent(itemDTO.getName(), itemDTO.getUnit()))
+                .thenReturn(Mono.just(0L));
 
         Mono<ResponseEntity<String>> response = itemService.createItem(itemDTO, token);
 
@@ -100,7 +103,7 @@ class ItemServiceTest {
         assertThat(result.getBody()).isEqualTo("O item: item1 já existe com a unidade: kg");
 
         verify(itemClient).hasPermission(token, "createItem");
-        verify(itemRepository).findByNameAndUnit(itemDTO.getName(), itemDTO.getUnit());
+        verify(itemRepository).insertIfAbsent(itemDTO.getName(), itemDTO.getUnit());
         verify(itemRepository, never()).save(any());
     }
 
@@ -113,11 +116,8 @@ class ItemServiceTest {
         when(itemClient.hasPermission(token, "deleteItem"))
                 .thenReturn(Mono.just(ResponseEntity.ok("Permission granted")));
 
-        when(itemRepository.findByNameAndUnit(itemDTO.getName(), itemDTO.getUnit()))
-                .thenReturn(Mono.just(new Item("item1", "kg")));
-
-        when(itemRepository.delete(any()))
-                .thenReturn(Mono.empty());
+        when(itemRepository.deleteByNameAndUnit(itemDTO.getName(), itemDTO.getUnit()))
+                .thenReturn(Mono.just(1L));
 
         Mono<ResponseEntity<String>> response = itemService.deleteItem(itemDTO, token);
 
@@ -127,8 +127,8 @@ class ItemServiceTest {
         assertThat(result.getBody()).isEqualTo("Item deletado com sucesso");
 
         verify(itemClient).hasPermission(token, "deleteItem");
-        verify(itemRepository).findByNameAndUnit(itemDTO.getName(), itemDTO.getUnit());
-        verify(itemRepository).delete(any());
+        verify(itemRepository).deleteByNameAndUnit(itemDTO.getName(), itemDTO.getUnit());
+        verify(itemRepository, never()).findByNameAndUnit(any(), any());
     }
 
     @Test
@@ -140,8 +140,8 @@ class ItemServiceTest {
         when(itemClient.hasPermission(token, "existItem"))
                 .thenReturn(Mono.just(ResponseEntity.ok("Permission granted")));
 
-        when(itemRepository.findByNameAndUnit("item1", "kg"))
-                .thenReturn(Mono.just(new Item("item1", "kg")));
+        when(itemRepository.existsByNameAndUnit("item1", "kg"))
+                .thenReturn(Mono.just(true));
 
         Mono<ResponseEntity<String>> response = itemService.existsByNameAndUnit(requestDTO, token);
 
@@ -151,7 +151,7 @@ class ItemServiceTest {
         assertThat(result.getBody()).isEqualTo("Item encontrado");
 
         verify(itemClient).hasPermission(token, "existItem");
-        verify(itemRepository).findByNameAndUnit("item1", "kg");
+        verify(itemRepository).existsByNameAndUnit("item1", "kg");
     }
 
     @Test
@@ -163,8 +163,8 @@ class ItemServiceTest {
         when(itemClient.hasPermission(token, "existItem"))
                 .thenReturn(Mono.just(ResponseEntity.ok("Permission granted")));
 
-        when(itemRepository.findByNameAndUnit("itemX", "litro"))
-                .thenReturn(Mono.empty());
+        when(itemRepository.existsByNameAndUnit("itemX", "litro"))
+                .thenReturn(Mono.just(false));
 
         Mono<ResponseEntity<String>> response = itemService.existsByNameAndUnit(requestDTO, token);
 
@@ -174,7 +174,7 @@ class ItemServiceTest {
         assertThat(result.getBody()).isEqualTo("Item não encontrado");
 
         verify(itemClient).hasPermission(token, "existItem");
-        verify(itemRepository).findByNameAndUnit("itemX", "litro");
+        verify(itemRepository).existsByNameAndUnit("itemX", "litro");
     }
 
     @Test
@@ -226,8 +226,8 @@ class ItemServiceTest {
         when(itemClient.hasPermission(token, "deleteItem"))
                 .thenReturn(Mono.just(ResponseEntity.ok("Permission granted")));
 
-        when(itemRepository.findByNameAndUnit(itemDTO.getName(), itemDTO.getUnit()))
-                .thenReturn(Mono.empty());
+        when(itemRepository.deleteByNameAndUnit(itemDTO.getName(), itemDTO.getUnit()))
+                .thenReturn(Mono.just(0L));
 
         Mono<ResponseEntity<String>> response = itemService.deleteItem(itemDTO, token);
 
@@ -237,7 +237,7 @@ class ItemServiceTest {
         assertThat(result.getBody()).isEqualTo("Item não encontrado com o nome e unidade fornecidos");
 
         verify(itemClient).hasPermission(token, "deleteItem");
-        verify(itemRepository).findByNameAndUnit("itemX", "litro");
+        verify(itemRepository).deleteByNameAndUnit("itemX", "litro");
         verify(itemRepository, never()).delete(any(Item.class));
     }
 
@@ -261,5 +261,105 @@ class ItemServiceTest {
         verifyNoInteractions(itemRepository);
     }
 
+    @Test
+    void existsBatchShouldAnswerEveryItemWithOneQuery() {
+
+        String token = "valid-token";
+        List<ItemRequestDTO> items = List.of(
+                new ItemRequestDTO("cimento", "saco"),
+                new ItemRequestDTO("areia", "m3"),
+                new ItemRequestDTO("brita", "m3"));
+
+        when(itemClient.hasPermission(token, "existItem"))
+                .thenReturn(Mono.just(ResponseEntity.ok("Permission granted")));
+
+        when(itemRepository.findAllByNameAndUnitIn(any(), any()))
+                .thenReturn(Flux.just(new Item("cimento", "saco"), new Item("brita", "m3")));
+
+        ResponseEntity<ItemExistBatchResponseDTO> result = itemService.existsBatch(items, token).block();
+
+        assertThat(result).isNotNull();
+        assertThat(result.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(result.getBody().getExists()).containsExactly(true, false, true);
+
+        verify(itemClient, times(1)).hasPermission(token, "existItem");
+        verify(itemRepository, times(1)).findAllByNameAndUnitIn(
+                new String[]{"cimento", "areia", "brita"}, new String[]{"saco", "m3", "m3"});
+    }
+
+    @Test
+    void existsBatchShouldReturnForbiddenWhenPermissionDenied() {
+
+        String token = "invalid-token";
+
+        when(itemClient.hasPermission(token, "existItem"))
+                .thenReturn(Mono.just(ResponseEntity.status(HttpStatus.FORBIDDEN).body("Permission denied")));
+
+        ResponseEntity<ItemExistBatchResponseDTO> result = itemService.existsBatch(
+                List.of(new ItemRequestDTO("cimento", "saco")), token).block();
+
+        assertThat(result).isNotNull();
+        assertThat(result.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+        assertThat(result.getBody().getMessage()).isEqualTo("Sem permissão para realizar essa ação");
+        verifyNoInteractions(itemRepository);
+    }
+
+    @Test
+    void existsBatchShouldRejectEmptyBatch() {
+
+        ResponseEntity<ItemExistBatchResponseDTO> result = itemService.existsBatch(List.of(), "valid-token").block();
 
+        assertThat(result).isNotNull();
+        assertThat(result.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        verifyNoInteractions(itemClient, itemRepository);
+    }
+
+    @Test
+    void importItemsShouldDedupeAndInsertInBatches() {
+
+        String token = "valid-token";
+        ReflectionTestUtils.setField(itemService, "importBatchSize", 2);
+
+        when(itemClient.hasPermission(token, "createItem"))
+                .thenReturn(Mono.just(ResponseEntity.ok("Permission granted")));
+
+        // o segundo lote contém um item que já existe no banco
+        when(itemRepository.insertIgnoringConflicts(any(), any()))
+                .thenReturn(Mono.just(2L), Mono.just(0L));
+
+        Flux<ItemDTO> items = Flux.just(
+                new ItemDTO("cimento", "saco"),
+                new ItemDTO("areia", "m3"),
+                new ItemDTO("cimento", "saco"),
+                new ItemDTO("", "m3"),
+                new ItemDTO("brita", "m3"));
+
+        ResponseEntity<ItemImportSummaryDTO> result = itemService.importItems(items, token).block();
+
+        assertThat(result).isNotNull();
+        assertThat(result.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(result.getBody().getReceived()).isEqualTo(5);
+        assertThat(result.getBody().getCreated()).isEqualTo(2);
+        assertThat(result.getBody().getSkipped()).isEqualTo(3);
+
+        verify(itemRepository).insertIgnoringConflicts(new String[]{"cimento", "areia"}, new String[]{"saco", "m3"});
+        verify(itemRepository).insertIgnoringConflicts(new String[]{"brita"}, new String[]{"m3"});
+        verify(itemRepository, never()).save(any());
+    }
+
+    @Test
+    void importItemsShouldNotReadTheBodyWithoutPermission() {
+
+        String token = "invalid-token";
+
+        when(itemClient.hasPermission(token, "createItem"))
+                .thenReturn(Mono.just(ResponseEntity.status(HttpStatus.FORBIDDEN).body("Permission denied")));
+
+        ResponseEntity<ItemImportSummaryDTO> result = itemService.importItems(
+                Flux.error(new IllegalStateException("corpo não deveria ser lido")), token).block();
+
+        assertThat(result).isNotNull();
+        assertThat(result.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+        verifyNoInteractions(itemRepository);
+    }
 }
@@ -1,6 +1,10 @@
 package client;
 
+import authorization.PermissionDecisionCache;
+import authorization.PermissionEvaluator;
+import authorization.ReferenceReplica;
 
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -23,14 +27,29 @@ public class MeasurementClient {
 
     private final WebClient webClient;
     private final MeasurementService measurementService;
+    private final PermissionEvaluator permissionEvaluator;
+    private final PermissionDecisionCache permissionDecisionCache;
+    private final ReferenceReplica projectReplica;
 
-    public MeasurementClient(WebClient.Builder webClientBuilder, @Lazy MeasurementService measurementService) {
+    public MeasurementClient(WebClient.Builder webClientBuilder, @Lazy MeasurementService measurementService, PermissionEvaluator permissionEvaluator, PermissionDecisionCache permissionDecisionCache, @Qualifier("projectReplica") ReferenceReplica projectReplica) {
         this.webClient = webClientBuilder.build();
         this.measurementService = measurementService;
+        this.permissionEvaluator = permissionEvaluator;
+        this.permissionDecisionCache = permissionDecisionCache;
+        this.projectReplica = projectReplica;
     }
 
 
+    // No modo local a decisão sai da matriz em memória e da identidade do pedido; só a consulta remota vai para o cache.
     public Mono<ResponseEntity<String>> hasPermission(String token, String action) {
+        if (permissionEvaluator.isLocal()) {
+            return permissionEvaluator.hasPermission(token, action);
+        }
+
+        return permissionDecisionCache.get(token, action, () -> fetchPermission(token, action));
+    }
+
+    private Mono<ResponseEntity<String>> fetchPermission(String token, String action) {
         return webClient.post()
                 .uri("lb://user/api/users/has-permission/{token}/{action}", token, action)
                 .header(HttpHeaders.AUTHORIZATION, token)
@@ -44,7 +63,24 @@ public class MeasurementClient {
                 );
     }
 
+    // Um acerto na réplica só vale se a role puder consultar no serviço dono (existAction), que recusaria a chamada
+    // remota; sem a permissão, a consulta segue para o dono e a recusa vem dele.
+    private Mono<Boolean> canUseReplica(String token, String existAction) {
+        return hasPermission(token, existAction)
+                .map(responseEntity -> responseEntity.getStatusCode() == HttpStatus.OK)
+                .onErrorReturn(false);
+    }
+
     public Mono<ResponseEntity<String>> projectExists(String token, String contract) {
+        // Presença na réplica local dispensa a chamada; ausência é confirmada no serviço dono, que pode ter acabado de criar.
+        if (projectReplica.isReady() && projectReplica.contains(contract)) {
+            return canUseReplica(token, "existProject")
+                    .flatMap(allowed -> allowed ? Mono.just(ResponseEntity.ok("Obra encontrada")) : fetchProjectExists(token, contract));
+        }
+        return fetchProjectExists(token, contract);
+    }
+
+    private Mono<ResponseEntity<String>> fetchProjectExists(String token, String contract) {
         // Cria o objeto de request para enviar o contrato no body
         Map<String, String> requestBody = new HashMap<>();
         requestBody.put("contract", contract);
@@ -0,0 +1,22 @@
+package config;
+
+import authorization.ReferenceReplica;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Réplicas locais dos dados de referência de outros serviços; sem replica.<nome>.url a réplica fica desligada
+// e as verificações seguem por HTTP.
+@Configuration
+public class ReferenceReplicaConfig {
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public ReferenceReplica projectReplica(@Value("${replica.projects.url:}") String url,
+                                     @Value("${spring.r2dbc.username}") String username,
+                                     @Value("${spring.r2dbc.password}") String password,
+                                     ObjectProvider<MeterRegistry> meterRegistry) {
+        return new ReferenceReplica("projects", url, username, password, meterRegistry.getIfAvailable());
+    }
+}
@@ -6,7 +6,7 @@ import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 import org.springframework.data.r2dbc.repository.config.EnableR2dbcRepositories;
 
-@SpringBootApplication(scanBasePackages = {"client", "config", "controller", "dto", "model", "repository", "service"})
+@SpringBootApplication(scanBasePackages = {"authorization", "client", "config", "controller", "dto", "model", "repository", "service"})
 @EntityScan(basePackages = "model")
 @EnableR2dbcRepositories(basePackages = "repository")
 @EnableDiscoveryClient
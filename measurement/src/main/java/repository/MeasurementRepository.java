@@ -3,15 +3,38 @@ package repository;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import model.Measurement;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDate;
 import java.time.YearMonth;
 
 @Repository
 public interface MeasurementRepository extends R2dbcRepository<Measurement, Long> {
 
     Mono<Object> findByProjectContractAndYearMonth(@NotBlank String projectContract, @NotNull String yearMonth);
+
+    // 1 = criada, 0 = já existe medição do contrato no mês; o índice único decide numa única ida ao banco.
+    @Modifying
+    @Query("""
+            INSERT INTO measurements (project_contract, year_month, start_date, end_date)
+            VALUES (:projectContract, :yearMonth, :startDate, :endDate)
+            ON CONFLICT (project_contract, year_month) DO NOTHING
+            """)
+    Mono<Long> insertIfAbsent(@Param("projectContract") String projectContract, @Param("yearMonth") String yearMonth,
+                              @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    // Exclusão pela chave natural sem carregar a linha antes: 1 = excluída, 0 = não existia.
+    @Modifying
+    @Query("DELETE FROM measurements WHERE project_contract = :projectContract AND year_month = :yearMonth")
+    Mono<Long> deleteByProjectContractAndYearMonth(@Param("projectContract") String projectContract, @Param("yearMonth") String yearMonth);
+
+    // Só responde se a chave existe, resolvido pelo índice único idx_measurements_contract_year_month, sem materializar a entidade.
+    @Query("SELECT EXISTS (SELECT 1 FROM measurements WHERE project_contract = :projectContract AND year_month = :yearMonth)")
+    Mono<Boolean> existsByProjectContractAndYearMonth(@Param("projectContract") String projectContract, @Param("yearMonth") String yearMonth);
 }
 
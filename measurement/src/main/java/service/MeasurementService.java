@@ -3,7 +3,6 @@ package service;
 import client.MeasurementClient;
 import dto.MeasurementDTO;
 import dto.MeasurementRequestDTO;
-import model.Measurement;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
@@ -53,23 +52,13 @@ public class MeasurementService {
                                             .body("Erro ao verificar existência do projeto"));
                                 }
 
-                                return measurementRepository.findByProjectContractAndYearMonth(measurementDTO.getProjectContract(), measurementDTO.getYearMonth())
-                                        .flatMap(existingMeasurement ->
-                                                Mono.just(ResponseEntity.status(CONFLICT)
-                                                        .body("A medição: " + measurementDTO.getYearMonth() + " já existe para o contrato: " + measurementDTO.getProjectContract()))
-                                        )
-                                        .switchIfEmpty(
-                                                Mono.defer(() -> {
-                                                    Measurement measurement = new Measurement();
-                                                    measurement.setProjectContract(measurementDTO.getProjectContract());
-                                                    measurement.setYearMonth(measurementDTO.getYearMonth());
-                                                    measurement.setStartDate(measurementDTO.getStartDate());
-                                                    measurement.setEndDate(measurementDTO.getEndDate());
-                                                    return measurementRepository.save(measurement)
-                                                            .map(savedMeasurement -> ResponseEntity.status(CREATED)
-                                                                    .body("Medição criada com sucesso"));
-                                                })
-                                        );
+                                return measurementRepository.insertIfAbsent(measurementDTO.getProjectContract(), measurementDTO.getYearMonth(),
+                                                measurementDTO.getStartDate(), measurementDTO.getEndDate())
+                                        .map(inserted -> inserted > 0
+                                                ? ResponseEntity.status(CREATED)
+                                                        .body("Medição criada com sucesso")
+                                                : ResponseEntity.status(CONFLICT)
+                                                        .body("A medição: " + measurementDTO.getYearMonth() + " já existe para o contrato: " + measurementDTO.getProjectContract()));
                             });
                 });
     }
@@ -94,13 +83,10 @@ public class MeasurementService {
                                 .body("Erro ao verificar permissão: " + message));
                     }
 
-                    return measurementRepository.findByProjectContractAndYearMonth(measurementDTO.getProjectContract(), measurementDTO.getYearMonth())
-                            .flatMap(existingMeasurement ->
-                                    measurementRepository.delete((Measurement) existingMeasurement)
-                                            .then(Mono.just(ResponseEntity.status(OK)
-                                                    .body("Medição deletada com sucesso"))))
-                            .switchIfEmpty(Mono.just(ResponseEntity.status(NO_CONTENT)
-                                    .body("Medição não encontrada com o nome e contrato fornecidos")));
+                    return measurementRepository.deleteByProjectContractAndYearMonth(measurementDTO.getProjectContract(), measurementDTO.getYearMonth())
+                            .map(deleted -> deleted > 0
+                                    ? ResponseEntity.status(OK).body("Medição deletada com sucesso")
+                                    : ResponseEntity.status(NO_CONTENT).body("Medição não encontrada com o nome e contrato fornecidos"));
                 })
                 .onErrorResume(error -> Mono.just(ResponseEntity.status(INTERNAL_SERVER_ERROR)
                         .body("Erro ao processar a exclusão da medição: " + error.getMessage())));
@@ -138,13 +124,10 @@ public class MeasurementService {
                                 }
 
                                 // Verifica se a medição já existe no banco local
-                                return measurementRepository.findByProjectContractAndYearMonth(measurementRequestDTO.getProjectContract(), measurementRequestDTO.getYearMonth())
-                                        .flatMap(existingMeasurement ->
-                                                Mono.just(ResponseEntity.status(OK)
-                                                        .body("Medição encontrada")))
-                                        .switchIfEmpty(
-                                                Mono.just(ResponseEntity.status(NO_CONTENT)
-                                                        .body("Medição não encontrada")));
+                                return measurementRepository.existsByProjectContractAndYearMonth(measurementRequestDTO.getProjectContract(), measurementRequestDTO.getYearMonth())
+                                        .map(exists -> exists
+                                                ? ResponseEntity.status(OK).body("Medição encontrada")
+                                                : ResponseEntity.status(NO_CONTENT).body("Medição não encontrada"));
                             });
                 })
                 .onErrorResume(error -> Mono.just(ResponseEntity.status(INTERNAL_SERVER_ERROR)
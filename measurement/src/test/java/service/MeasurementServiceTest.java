@@ -3,7 +3,6 @@ package service;
 import client.MeasurementClient;
 import dto.MeasurementDTO;
 import dto.MeasurementRequestDTO;
-import model.Measurement;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -136,12 +135,9 @@ class MeasurementServiceTest {
         when(measurementClient.projectExists(token, measurementDTO.getProjectContract()))
                 .thenReturn(Mono.just(ResponseEntity.ok("Projeto encontrado")));
 
-        Measurement existingMeasurement = new Measurement();
-        existingMeasurement.setProjectContract("CONTRATO-123");
-        existingMeasurement.setYearMonth("2025-01");
-
-        when(measurementRepository.findByProjectContractAndYearMonth("CONTRATO-123", "2025-01"))
-                .thenReturn(Mono.just(existingMeasurement));
+        when(measurementRepository.insertIfAbsent("CONTRATO-123", "2025-01",
+                measurementDTO.getStartDate(), measurementDTO.getEndDate()))
+                .thenReturn(Mono.just(0L));
 
         Mono<ResponseEntity<String>> result = measurementService.createMeasurement(measurementDTO, token);
 
@@ -161,14 +157,9 @@ class MeasurementServiceTest {
         when(measurementClient.projectExists(token, measurementDTO.getProjectContract()))
                 .thenReturn(Mono.just(ResponseEntity.ok("Projeto encontrado")));
 
-        when(measurementRepository.findByProjectContractAndYearMonth("CONTRATO-123", "2025-01"))
-                .thenReturn(Mono.empty());
-
-        when(measurementRepository.save(any(Measurement.class)))
-                .thenAnswer(invocation -> {
-                    Measurement measurementSalva = invocation.getArgument(0);
-                    return Mono.just(measurementSalva);
-                });
+        when(measurementRepository.insertIfAbsent("CONTRATO-123", "2025-01",
+                measurementDTO.getStartDate(), measurementDTO.getEndDate()))
+                .thenReturn(Mono.just(1L));
 
         Mono<ResponseEntity<String>> result = measurementService.createMeasurement(measurementDTO, token);
 
@@ -238,8 +229,8 @@ class MeasurementServiceTest {
         when(measurementClient.hasPermission(token, action))
                 .thenReturn(Mono.just(ResponseEntity.ok("Permitido")));
 
-        when(measurementRepository.findByProjectContractAndYearMonth("CONTRATO-123", "2025-01"))
-                .thenReturn(Mono.empty());
+        when(measurementRepository.deleteByProjectContractAndYearMonth("CONTRATO-123", "2025-01"))
+                .thenReturn(Mono.just(0L));
 
         Mono<ResponseEntity<String>> result = measurementService.deleteMeasurement(measurementDTO, token);
 
@@ -258,15 +249,8 @@ class MeasurementServiceTest {
         when(measurementClient.hasPermission(token, action))
                 .thenReturn(Mono.just(ResponseEntity.ok("Permitido")));
 
-        Measurement existingMeasurement = new Measurement();
-        existingMeasurement.setProjectContract("CONTRATO-123");
-        existingMeasurement.setYearMonth("2025-01");
-
-        when(measurementRepository.findByProjectContractAndYearMonth("CONTRATO-123", "2025-01"))
-                .thenReturn(Mono.just(existingMeasurement));
-
-        when(measurementRepository.delete(existingMeasurement))
-                .thenReturn(Mono.empty());
+        when(measurementRepository.deleteByProjectContractAndYearMonth("CONTRATO-123", "2025-01"))
+                .thenReturn(Mono.just(1L));
 
         Mono<ResponseEntity<String>> result = measurementService.deleteMeasurement(measurementDTO, token);
 
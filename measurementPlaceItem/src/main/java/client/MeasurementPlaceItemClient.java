@@ -1,6 +1,14 @@
 package client;
 
+import authorization.CoalescingLookup;
+import authorization.IdentitySigner;
+import authorization.PermissionDecisionCache;
+import authorization.PermissionEvaluator;
+import authorization.ReferenceReplica;
 
+import dto.AccumulationResultDTO;
+import dto.PlaceItemExistBatchResponseDTO;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -13,7 +21,10 @@ import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Mono;
 import service.MeasurementPlaceItemService;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Component
@@ -23,14 +34,37 @@ public class MeasurementPlaceItemClient {
 
     private final WebClient webClient;
     private final MeasurementPlaceItemService measurementPlaceItemService;
+    private final PermissionEvaluator permissionEvaluator;
+    private final PermissionDecisionCache permissionDecisionCache;
+    private final ReferenceReplica measurementReplica;
+    private final ReferenceReplica placeItemReplica;
+    private final CoalescingLookup measurementLookup;
+    private final CoalescingLookup placeItemLookup;
+    private final IdentitySigner identitySigner;
 
-    public MeasurementPlaceItemClient(WebClient.Builder webClientBuilder, @Lazy MeasurementPlaceItemService measurementPlaceItemService) {
+    public MeasurementPlaceItemClient(WebClient.Builder webClientBuilder, @Lazy MeasurementPlaceItemService measurementPlaceItemService, PermissionEvaluator permissionEvaluator, PermissionDecisionCache permissionDecisionCache, @Qualifier("measurementReplica") ReferenceReplica measurementReplica, @Qualifier("placeItemReplica") ReferenceReplica placeItemReplica, @Qualifier("measurementLookup") CoalescingLookup measurementLookup, @Qualifier("placeItemLookup") CoalescingLookup placeItemLookup, IdentitySigner identitySigner) {
         this.webClient = webClientBuilder.build();
         this.measurementPlaceItemService = measurementPlaceItemService;
+        this.permissionEvaluator = permissionEvaluator;
+        this.permissionDecisionCache = permissionDecisionCache;
+        this.measurementReplica = measurementReplica;
+        this.placeItemReplica = placeItemReplica;
+        this.measurementLookup = measurementLookup;
+        this.placeItemLookup = placeItemLookup;
+        this.identitySigner = identitySigner;
     }
 
 
+    // No modo local a decisão sai da matriz em memória e da identidade do pedido; só a consulta remota vai para o cache.
     public Mono<ResponseEntity<String>> hasPermission(String token, String action) {
+        if (permissionEvaluator.isLocal()) {
+            return permissionEvaluator.hasPermission(token, action);
+        }
+
+        return permissionDecisionCache.get(token, action, () -> fetchPermission(token, action));
+    }
+
+    private Mono<ResponseEntity<String>> fetchPermission(String token, String action) {
         return webClient.post()
                 .uri("lb://user/api/users/has-permission/{token}/{action}", token, action)
                 .header(HttpHeaders.AUTHORIZATION, token)
@@ -45,7 +79,29 @@ public class MeasurementPlaceItemClient {
     }
 
 
+    // Um acerto na réplica só vale se a role puder consultar no serviço dono (existAction), que recusaria a chamada
+    // remota; sem a permissão, a consulta segue para o dono e a recusa vem dele.
+    private Mono<Boolean> canUseReplica(String token, String existAction) {
+        return hasPermission(token, existAction)
+                .map(responseEntity -> responseEntity.getStatusCode() == HttpStatus.OK)
+                .onErrorReturn(false);
+    }
+
     public Mono<ResponseEntity<String>> measurementExists(String token, String contract, String yearMonth) {
+        // Presença na réplica local dispensa a chamada; ausência é confirmada no serviço dono, que pode ter acabado de criar.
+        if (measurementReplica.isReady() && measurementReplica.contains(contract, yearMonth)) {
+            return canUseReplica(token, "existMeasurement")
+                    .flatMap(allowed -> allowed ? Mono.just(ResponseEntity.ok("Medição encontrada")) : lookupMeasurementExists(token, contract, yearMonth));
+        }
+        return lookupMeasurementExists(token, contract, yearMonth);
+    }
+
+    // Vários técnicos lançando medições do mesmo contrato ao mesmo tempo compartilham uma única consulta (por role).
+    private Mono<ResponseEntity<String>> lookupMeasurementExists(String token, String contract, String yearMonth) {
+        return measurementLookup.get(ReferenceReplica.key(contract, yearMonth), token, () -> fetchMeasurementExists(token, contract, yearMonth));
+    }
+
+    private Mono<ResponseEntity<String>> fetchMeasurementExists(String token, String contract, String yearMonth) {
 
         Map<String, String> requestBody = new HashMap<>();
         requestBody.put("projectContract", contract);
@@ -86,6 +142,20 @@ public class MeasurementPlaceItemClient {
 
 
     public Mono<ResponseEntity<String>> placeItemExists(String token, String placeName, String contract, String itemName, String itemUnit) {
+        if (placeItemReplica.isReady() && placeItemReplica.contains(placeName, contract, itemName, itemUnit)) {
+            return canUseReplica(token, "existPlaceItem")
+                    .flatMap(allowed -> allowed ? Mono.just(ResponseEntity.ok("Item encontrado"))
+                            : lookupPlaceItemExists(token, placeName, contract, itemName, itemUnit));
+        }
+        return lookupPlaceItemExists(token, placeName, contract, itemName, itemUnit);
+    }
+
+    private Mono<ResponseEntity<String>> lookupPlaceItemExists(String token, String placeName, String contract, String itemName, String itemUnit) {
+        return placeItemLookup.get(ReferenceReplica.key(placeName, contract, itemName, itemUnit), token,
+                () -> fetchPlaceItemExists(token, placeName, contract, itemName, itemUnit));
+    }
+
+    private Mono<ResponseEntity<String>> fetchPlaceItemExists(String token, String placeName, String contract, String itemName, String itemUnit) {
         // Criando um DTO para o corpo da requisição
         Map<String, String> requestBody = Map.of(
                 "placeName", placeName,
@@ -127,4 +197,98 @@ public class MeasurementPlaceItemClient {
                 });
     }
 
+    // keys[i] = {bacia, contrato, item, unidade}; um resultado por chave, na mesma ordem. O que a réplica já conhece
+    // não vai para o serviço placeItem; o restante segue numa única chamada ao lote.
+    public Mono<boolean[]> placeItemsExist(String token, List<String[]> keys) {
+        Mono<Boolean> useReplica = placeItemReplica.isReady() ? canUseReplica(token, "existPlaceItem") : Mono.just(false);
+        return useReplica.flatMap(allowed -> placeItemsExist(token, keys, allowed));
+    }
+
+    private Mono<boolean[]> placeItemsExist(String token, List<String[]> keys, boolean useReplica) {
+        boolean[] exists = new boolean[keys.size()];
+        List<Integer> misses = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            exists[i] = useReplica && placeItemReplica.contains(keys.get(i));
+            if (!exists[i]) {
+                misses.add(i);
+            }
+        }
+        if (misses.isEmpty()) {
+            return Mono.just(exists);
+        }
+
+        List<Map<String, String>> requestBody = misses.stream()
+                .map(i -> Map.of(
+                        "placeName", keys.get(i)[0],
+                        "projectContract", keys.get(i)[1],
+                        "itemName", keys.get(i)[2],
+                        "itemUnit", keys.get(i)[3]))
+                .toList();
+
+        return webClient.post()
+                .uri("lb://placeItem/api/placesitens/exist/batch")
+                .header(HttpHeaders.AUTHORIZATION, token)
+                .bodyValue(requestBody)
+                .exchangeToMono(clientResponse -> clientResponse.toEntity(PlaceItemExistBatchResponseDTO.class))
+                .flatMap(response -> {
+                    PlaceItemExistBatchResponseDTO body = response.getBody();
+                    if (response.getStatusCode() != HttpStatus.OK || body == null
+                            || body.getExists() == null || body.getExists().length != misses.size()) {
+                        String reason = body != null ? body.getMessage() : null;
+                        return Mono.error(new ResponseStatusException(HttpStatus.FAILED_DEPENDENCY,
+                                "Erro ao verificar existência dos itens das bacias" + (reason != null ? ": " + reason : "")));
+                    }
+                    for (int k = 0; k < misses.size(); k++) {
+                        exists[misses.get(k)] = body.getExists()[k];
+                    }
+                    return Mono.just(exists);
+                });
+    }
+
+    // keys[i] = {bacia, item, unidade} do contrato; deltas[i] é somado ao acumulado do item da bacia (negativo estorna).
+    // Uma situação por linha, na mesma ordem (AccumulationResultDTO.APPLIED, EXCEEDS_PREDICTED ou
+    // PLACE_ITEM_NOT_FOUND). Deltas zero não saem do serviço.
+    public Mono<String[]> accumulate(String token, String projectContract, List<String[]> keys, List<BigDecimal> deltas) {
+        String[] status = new String[keys.size()];
+        List<Integer> sent = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            if (deltas.get(i).signum() == 0) {
+                status[i] = AccumulationResultDTO.APPLIED;
+            } else {
+                sent.add(i);
+            }
+        }
+        if (sent.isEmpty()) {
+            return Mono.just(status);
+        }
+
+        List<Map<String, Object>> lines = sent.stream()
+                .map(i -> Map.<String, Object>of(
+                        "placeName", keys.get(i)[0],
+                        "itemName", keys.get(i)[1],
+                        "itemUnit", keys.get(i)[2],
+                        "delta", deltas.get(i)))
+                .toList();
+
+        return webClient.post()
+                .uri("lb://placeItem/api/placesitens/accumulate")
+                .header(HttpHeaders.AUTHORIZATION, token)
+                // A rota é bloqueada no gateway; o placeItem só aceita a chamada com este cabeçalho assinado.
+                .header(IdentitySigner.SERVICE_HEADER, identitySigner.signService("measurementPlaceItem", "accumulatePlaceItem"))
+                .bodyValue(Map.of("projectContract", projectContract, "lines", lines))
+                .exchangeToMono(clientResponse -> clientResponse.toEntity(AccumulationResultDTO.class))
+                .flatMap(response -> {
+                    AccumulationResultDTO body = response.getBody();
+                    if (response.getStatusCode() != HttpStatus.OK || body == null
+                            || body.getStatus() == null || body.getStatus().length != sent.size()) {
+                        String reason = body != null ? body.getMessage() : null;
+                        return Mono.error(new ResponseStatusException(HttpStatus.FAILED_DEPENDENCY,
+                                "Erro ao atualizar o acumulado dos itens das bacias" + (reason != null ? ": " + reason : "")));
+                    }
+                    for (int k = 0; k < sent.size(); k++) {
+                        status[sent.get(k)] = body.getStatus()[k];
+                    }
+                    return Mono.just(status);
+                });
+    }
 }
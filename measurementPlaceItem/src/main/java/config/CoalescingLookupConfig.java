@@ -0,0 +1,33 @@
+package config;
+
+import authorization.CoalescingLookup;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class CoalescingLookupConfig {
+
+    @Value("${lookups.positive-ttl:5s}")
+    private Duration positiveTtl;
+
+    @Value("${lookups.negative-ttl:1s}")
+    private Duration negativeTtl;
+
+    @Value("${lookups.maximum-size:10000}")
+    private long maximumSize;
+
+    @Bean
+    public CoalescingLookup measurementLookup(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new CoalescingLookup("measurementExists", positiveTtl, negativeTtl, maximumSize, meterRegistry.getIfAvailable());
+    }
+
+    @Bean
+    public CoalescingLookup placeItemLookup(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new CoalescingLookup("placeItemExists", positiveTtl, negativeTtl, maximumSize, meterRegistry.getIfAvailable());
+    }
+}
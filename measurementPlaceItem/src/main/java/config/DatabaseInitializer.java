@@ -1,38 +1,55 @@
 package config;
 
-import org.springframework.boot.CommandLineRunner;
-import org.springframework.context.annotation.Bean;
-import org.springframework.r2dbc.core.DatabaseClient;
+import authorization.SchemaMigrations;
+import io.r2dbc.spi.ConnectionFactory;
+import jakarta.annotation.PostConstruct;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
+import static authorization.SchemaMigrations.migration;
+
 @Component
 public class DatabaseInitializer {
 
-    @Bean
-    public CommandLineRunner initializeDatabase(DatabaseClient client) {
-        return args -> {
-            client.sql("CREATE SCHEMA IF NOT EXISTS app;")
-                    .then()
-                    .then(client.sql("SET search_path TO app, public;").then())
-                    .then(client.sql("""
-                            CREATE TABLE IF NOT EXISTS measurements_places_itens (
-                                id SERIAL PRIMARY KEY,
-                                project_contract VARCHAR(255) NOT NULL,
-                                start_date DATE NOT NULL,
-                                end_date DATE NOT NULL,
-                                year_month VARCHAR(7) NOT NULL,
-                                place_name VARCHAR(255) NOT NULL,
-                                item_name VARCHAR(255) NOT NULL,
-                                item_unit VARCHAR(50) NOT NULL,
-                                predicted_value NUMERIC(15, 2),
-                                accumulated_value NUMERIC(15, 2)
-                            );
-                            """).then())
-                    .then(client.sql("CREATE INDEX IF NOT EXISTS idx_project_contract_year_month_place_item " +
-                            "ON measurements_places_itens(project_contract, year_month, place_name, item_name);").then())
-                    .doOnSuccess(unused -> System.out.println("Tabela 'measurements_places_itens' configurada com sucesso com índices!"))
-                    .doOnError(error -> System.err.println("Erro ao configurar tabela 'measurements_places_itens': " + error.getMessage()))
-                    .subscribe();
-        };
+    // Versões já aplicadas não mudam: alteração de esquema entra como uma nova versão no fim da lista.
+    static final SchemaMigrations MIGRATIONS = new SchemaMigrations("app", List.of(
+            migration(1, "Tabela measurements_places_itens com índice único pela chave natural",
+                    """
+                    CREATE TABLE IF NOT EXISTS measurements_places_itens (
+                        id SERIAL PRIMARY KEY,
+                        project_contract VARCHAR(255) NOT NULL,
+                        start_date DATE NOT NULL,
+                        end_date DATE NOT NULL,
+                        year_month VARCHAR(7) NOT NULL,
+                        place_name VARCHAR(255) NOT NULL,
+                        item_name VARCHAR(255) NOT NULL,
+                        item_unit VARCHAR(50) NOT NULL,
+                        predicted_value NUMERIC(15, 2),
+                        accumulated_value NUMERIC(15, 2)
+                    );
+                    """,
+                    // Uma linha por item de bacia em cada medição. Duplicatas de antes do índice único ficam só com a mais antiga.
+                    "DELETE FROM measurements_places_itens a USING measurements_places_itens b " +
+                            "WHERE a.id > b.id AND a.project_contract = b.project_contract AND a.year_month = b.year_month " +
+                            "AND a.place_name = b.place_name AND a.item_name = b.item_name AND a.item_unit = b.item_unit;",
+                    // (project_contract, year_month) na frente: também atende a leitura da folha do mês (findSheetLines).
+                    "CREATE UNIQUE INDEX IF NOT EXISTS idx_measurements_places_itens_key " +
+                            "ON measurements_places_itens(project_contract, year_month, place_name, item_name, item_unit);",
+                    "DROP INDEX IF EXISTS idx_project_contract_year_month_place_item;")
+    ));
+
+    private final ConnectionFactory connectionFactory;
+
+    public DatabaseInitializer(ConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+    }
+
+    // Roda na criação do contexto, antes de o servidor web abrir a porta e de o serviço se registrar no Eureka: só
+    // recebe tráfego com o esquema atualizado, e a subida falha se a migração falhar.
+    @PostConstruct
+    public void migrate() {
+        Long applied = MIGRATIONS.apply(connectionFactory).block();
+        System.out.println("Esquema de 'measurements_places_itens' atualizado: " + applied + " migração(ões) aplicada(s)");
     }
 }
@@ -1,10 +1,16 @@
 package controller;
 
+import dto.BulkLoadSummaryDTO;
 import dto.MeasurementPlaceItemDTO;
+import dto.MeasurementSheetDTO;
+import dto.MeasurementSheetResultDTO;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import service.MeasurementPlaceItemBulkLoader;
 import service.MeasurementPlaceItemService;
 
 
@@ -15,12 +21,20 @@ public class MeasurementPlaceItemController {
     @Autowired
     private MeasurementPlaceItemService measurementPlaceItemService;
 
+    @Autowired
+    private MeasurementPlaceItemBulkLoader measurementPlaceItemBulkLoader;
+
     @PostMapping("/create")
     public Mono<ResponseEntity<String>> createMeasurement(@RequestBody MeasurementPlaceItemDTO measurementPlaceItemDTO, @RequestHeader("Authorization") String token) {
         System.out.println("Executei");
         return measurementPlaceItemService.createMeasurementPlaceItem(measurementPlaceItemDTO, token);
     }
 
+    @PostMapping("/sheet")
+    public Mono<ResponseEntity<MeasurementSheetResultDTO>> submitSheet(@RequestBody MeasurementSheetDTO measurementSheetDTO, @RequestHeader("Authorization") String token) {
+        return measurementPlaceItemService.submitSheet(measurementSheetDTO, token);
+    }
+
     @PostMapping("/delete")
     public Mono<ResponseEntity<String>> deleteMeasurement(@RequestBody MeasurementPlaceItemDTO measurementPlaceItemDTO, @RequestHeader("Authorization") String token) {
         return measurementPlaceItemService.deleteMeasurement(measurementPlaceItemDTO, token);
@@ -30,4 +44,10 @@ public class MeasurementPlaceItemController {
     public Mono<ResponseEntity<String>> existMeasurementPlaceItem(@RequestBody MeasurementPlaceItemDTO measurementPlaceItemDTO, @RequestHeader("Authorization") String token) {
         return measurementPlaceItemService.existsByPlaceNameProjectContractItemNameItemUnitYearMonth(measurementPlaceItemDTO, token);
     }
+
+    // CSV com cabeçalho, colunas na ordem de MeasurementPlaceItemBulkLoader.COLUMNS.
+    @PostMapping(value = "/bulk-load", consumes = "text/csv")
+    public Mono<ResponseEntity<BulkLoadSummaryDTO>> bulkLoad(@RequestBody Flux<DataBuffer> csv, @RequestHeader("Authorization") String token) {
+        return measurementPlaceItemBulkLoader.load(csv, token);
+    }
 }
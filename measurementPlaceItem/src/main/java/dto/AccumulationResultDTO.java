@@ -0,0 +1,27 @@
+package dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Resposta de POST /api/placesitens/accumulate do serviço placeItem. status[i] é a situação da i-ésima linha.
+@Getter
+@Setter
+@NoArgsConstructor
+public class AccumulationResultDTO {
+
+    public static final String APPLIED = "APPLIED";
+    public static final String EXCEEDS_PREDICTED = "EXCEEDS_PREDICTED";
+    public static final String PLACE_ITEM_NOT_FOUND = "PLACE_ITEM_NOT_FOUND";
+
+    private boolean[] applied;
+
+    private String[] status;
+
+    private String message;
+
+    public AccumulationResultDTO(String[] status, String message) {
+        this.status = status;
+        this.message = message;
+    }
+}
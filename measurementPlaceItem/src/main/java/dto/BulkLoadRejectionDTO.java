@@ -0,0 +1,43 @@
+package dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+// Item de bacia cujas linhas da carga foram retiradas: rows linhas somando quantity, recusadas pelo placeItem com
+// status EXCEEDS_PREDICTED ou PLACE_ITEM_NOT_FOUND.
+@Getter
+@Setter
+@NoArgsConstructor
+public class BulkLoadRejectionDTO {
+
+    private String projectContract;
+
+    private String placeName;
+
+    private String itemName;
+
+    private String itemUnit;
+
+    private long rows;
+
+    private BigDecimal quantity;
+
+    private String status;
+
+    private String message;
+
+    public BulkLoadRejectionDTO(String projectContract, String placeName, String itemName, String itemUnit, long rows,
+                                BigDecimal quantity, String status, String message) {
+        this.projectContract = projectContract;
+        this.placeName = placeName;
+        this.itemName = itemName;
+        this.itemUnit = itemUnit;
+        this.rows = rows;
+        this.quantity = quantity;
+        this.status = status;
+        this.message = message;
+    }
+}
@@ -0,0 +1,51 @@
+package dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+// received = linhas copiadas; invalid = campos obrigatórios ausentes, datas incoerentes ou valores negativos;
+// unknownReferences = medição ou item da bacia inexistente; skipped = repetidas no arquivo ou já gravadas;
+// rejectedRows = linhas retiradas porque o acumulado do item da bacia as recusou, detalhadas em rejected.
+@Getter
+@Setter
+@NoArgsConstructor
+public class BulkLoadSummaryDTO {
+
+    private long received;
+
+    private long invalid;
+
+    private long unknownReferences;
+
+    private long skipped;
+
+    private long rejectedRows;
+
+    private long inserted;
+
+    private long elapsedMillis;
+
+    private List<BulkLoadRejectionDTO> rejected;
+
+    private String message;
+
+    public BulkLoadSummaryDTO(long received, long invalid, long unknownReferences, long skipped, long rejectedRows, long inserted,
+                              long elapsedMillis, List<BulkLoadRejectionDTO> rejected, String message) {
+        this.received = received;
+        this.invalid = invalid;
+        this.unknownReferences = unknownReferences;
+        this.skipped = skipped;
+        this.rejectedRows = rejectedRows;
+        this.inserted = inserted;
+        this.elapsedMillis = elapsedMillis;
+        this.rejected = rejected;
+        this.message = message;
+    }
+
+    public static BulkLoadSummaryDTO error(String message) {
+        return new BulkLoadSummaryDTO(0, 0, 0, 0, 0, 0, 0, List.of(), message);
+    }
+}
@@ -0,0 +1,30 @@
+package dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// line é a posição (a partir de 0) na lista enviada.
+@Getter
+@Setter
+@NoArgsConstructor
+public class LineOutcomeDTO {
+
+    public static final String DUPLICATE_LINE = "DUPLICATE_LINE";
+    public static final String PLACE_ITEM_NOT_FOUND = "PLACE_ITEM_NOT_FOUND";
+    public static final String INVALID = "INVALID";
+    public static final String EXCEEDS_PREDICTED = "EXCEEDS_PREDICTED";
+    public static final String CHANGED_CONCURRENTLY = "CHANGED_CONCURRENTLY";
+
+    private int line;
+
+    private String status;
+
+    private String message;
+
+    public LineOutcomeDTO(int line, String status, String message) {
+        this.line = line;
+        this.status = status;
+        this.message = message;
+    }
+}
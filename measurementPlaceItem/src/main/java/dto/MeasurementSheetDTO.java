@@ -0,0 +1,25 @@
+package dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Folha de medição do mês: contrato, período e todas as linhas (bacia, item) lançadas pelo técnico.
+@Getter
+@Setter
+@NoArgsConstructor
+public class MeasurementSheetDTO {
+
+    private String projectContract;
+
+    private String yearMonth;
+
+    private LocalDate startDate;
+
+    private LocalDate endDate;
+
+    private List<MeasurementSheetLineDTO> lines;
+}
@@ -0,0 +1,23 @@
+package dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class MeasurementSheetLineDTO {
+
+    private String placeName;
+
+    private String itemName;
+
+    private String itemUnit;
+
+    private BigDecimal predictedValue;
+
+    private BigDecimal accumulatedValue;
+}
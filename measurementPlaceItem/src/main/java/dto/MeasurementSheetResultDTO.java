@@ -0,0 +1,33 @@
+package dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+// Relatório compacto: só as linhas recusadas aparecem em rejected; as gravadas entram apenas nas contagens.
+@Getter
+@Setter
+@NoArgsConstructor
+public class MeasurementSheetResultDTO {
+
+    private int created;
+
+    private int updated;
+
+    private List<LineOutcomeDTO> rejected;
+
+    private String message;
+
+    public MeasurementSheetResultDTO(int created, int updated, List<LineOutcomeDTO> rejected, String message) {
+        this.created = created;
+        this.updated = updated;
+        this.rejected = rejected;
+        this.message = message;
+    }
+
+    public static MeasurementSheetResultDTO error(String message) {
+        return new MeasurementSheetResultDTO(0, 0, List.of(), message);
+    }
+}
@@ -0,0 +1,16 @@
+package dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Resposta de POST /api/placesitens/exist/batch do serviço placeItem.
+@Getter
+@Setter
+@NoArgsConstructor
+public class PlaceItemExistBatchResponseDTO {
+
+    private boolean[] exists;
+
+    private String message;
+}
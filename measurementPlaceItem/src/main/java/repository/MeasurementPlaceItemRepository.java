@@ -3,13 +3,103 @@ package repository;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import model.MeasurementPlaceItem;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
 @Repository
 public interface MeasurementPlaceItemRepository extends R2dbcRepository<MeasurementPlaceItem, Long> {
 
     Mono<MeasurementPlaceItem> findByPlaceNameAndProjectContractAndItemNameAndItemUnitAndYearMonth(String placeName, String projectContract, String itemName, String itemUnit, String yearMonth);
-}
 
+    // 1 = criada, 0 = já existe a linha da medição; o índice único idx_measurements_places_itens_key decide numa
+    // única ida ao banco.
+    @Modifying
+    @Query("""
+            INSERT INTO measurements_places_itens (project_contract, start_date, end_date, year_month, place_name,
+                                                   item_name, item_unit, predicted_value, accumulated_value)
+            VALUES (:projectContract, :startDate, :endDate, :yearMonth, :placeName, :itemName, :itemUnit, :predictedValue, :accumulatedValue)
+            ON CONFLICT (project_contract, year_month, place_name, item_name, item_unit) DO NOTHING
+            """)
+    Mono<Long> insertIfAbsent(@Param("projectContract") String projectContract, @Param("yearMonth") String yearMonth,
+                              @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate,
+                              @Param("placeName") String placeName, @Param("itemName") String itemName, @Param("itemUnit") String itemUnit,
+                              @Param("predictedValue") BigDecimal predictedValue, @Param("accumulatedValue") BigDecimal accumulatedValue);
+
+    // Exclusão pela chave natural sem carregar a linha antes; devolve a linha excluída (vazio se não existia), cujo
+    // valor medido é estornado do item da bacia.
+    @Query("""
+            DELETE FROM measurements_places_itens
+            WHERE project_contract = :projectContract AND year_month = :yearMonth AND place_name = :placeName AND item_name = :itemName AND item_unit = :itemUnit
+            RETURNING *
+            """)
+    Mono<MeasurementPlaceItem> deleteByNaturalKey(@Param("projectContract") String projectContract, @Param("yearMonth") String yearMonth,
+                                   @Param("placeName") String placeName, @Param("itemName") String itemName,
+                                   @Param("itemUnit") String itemUnit);
+
+    // Só responde se a chave existe, resolvido pelo índice único idx_measurements_places_itens_key, sem materializar a entidade.
+    @Query("""
+            SELECT EXISTS (SELECT 1 FROM measurements_places_itens
+                           WHERE project_contract = :projectContract AND year_month = :yearMonth AND place_name = :placeName AND item_name = :itemName AND item_unit = :itemUnit)
+            """)
+    Mono<Boolean> existsByNaturalKey(@Param("projectContract") String projectContract, @Param("yearMonth") String yearMonth,
+                                      @Param("placeName") String placeName, @Param("itemName") String itemName,
+                                      @Param("itemUnit") String itemUnit);
+
+    // Linhas já gravadas no mês para as chaves (bacia, item, unidade) da folha.
+    @Query("""
+            SELECT * FROM measurements_places_itens
+            WHERE project_contract = :projectContract AND year_month = :yearMonth
+              AND (place_name, item_name, item_unit) IN (
+                  SELECT p, n, u FROM unnest(CAST(:placeNames AS text[]), CAST(:itemNames AS text[]), CAST(:itemUnits AS text[])) AS keys(p, n, u))
+            """)
+    Flux<MeasurementPlaceItem> findSheetLines(@Param("projectContract") String projectContract, @Param("yearMonth") String yearMonth,
+                                              @Param("placeNames") String[] placeNames, @Param("itemNames") String[] itemNames,
+                                              @Param("itemUnits") String[] itemUnits);
+
+    // Grava a folha inteira num único comando. previousValues[i] é o valor que a linha tinha quando a folha foi lida
+    // (null = não existia): linhas existentes só são atualizadas se ainda têm esse valor e as novas só entram se ninguém
+    // as criou antes. As linhas chegam em arrays paralelos (valores numéricos como texto); devolve a posição (a partir
+    // de 1) de cada linha gravada.
+    @Query("""
+            WITH lines AS (
+                SELECT l.p, l.n, l.u, CAST(l.v AS numeric) AS v, CAST(l.a AS numeric) AS a, CAST(l.o AS numeric) AS o, l.ord
+                FROM unnest(CAST(:placeNames AS text[]), CAST(:itemNames AS text[]), CAST(:itemUnits AS text[]),
+                            CAST(:predictedValues AS text[]), CAST(:accumulatedValues AS text[]), CAST(:previousValues AS text[]))
+                     WITH ORDINALITY AS l(p, n, u, v, a, o, ord)
+            ), updated AS (
+                UPDATE measurements_places_itens m
+                SET start_date = :startDate, end_date = :endDate, predicted_value = lines.v, accumulated_value = lines.a
+                FROM lines
+                WHERE lines.o IS NOT NULL
+                  AND m.project_contract = :projectContract AND m.year_month = :yearMonth
+                  AND m.place_name = lines.p AND m.item_name = lines.n AND m.item_unit = lines.u
+                  AND COALESCE(m.accumulated_value, 0) = lines.o
+                RETURNING lines.ord
+            ), inserted AS (
+                INSERT INTO measurements_places_itens (project_contract, start_date, end_date, year_month, place_name,
+                                                       item_name, item_unit, predicted_value, accumulated_value)
+                SELECT :projectContract, :startDate, :endDate, :yearMonth, lines.p, lines.n, lines.u, lines.v, lines.a
+                FROM lines
+                WHERE lines.o IS NULL
+                ON CONFLICT (project_contract, year_month, place_name, item_name, item_unit) DO NOTHING
+                RETURNING place_name, item_name, item_unit
+            )
+            SELECT ord FROM updated
+            UNION ALL
+            SELECT lines.ord FROM inserted
+            JOIN lines ON inserted.place_name = lines.p AND inserted.item_name = lines.n AND inserted.item_unit = lines.u
+            """)
+    Flux<Long> writeSheetLines(@Param("projectContract") String projectContract, @Param("yearMonth") String yearMonth,
+                               @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate,
+                               @Param("placeNames") String[] placeNames, @Param("itemNames") String[] itemNames,
+                               @Param("itemUnits") String[] itemUnits, @Param("predictedValues") String[] predictedValues,
+                               @Param("accumulatedValues") String[] accumulatedValues, @Param("previousValues") String[] previousValues);
+}
@@ -0,0 +1,373 @@
+package service;
+
+import authorization.ReferenceReplica;
+import client.MeasurementPlaceItemClient;
+import dto.AccumulationResultDTO;
+import dto.BulkLoadRejectionDTO;
+import dto.BulkLoadSummaryDTO;
+import io.r2dbc.postgresql.api.PostgresqlConnection;
+import io.r2dbc.postgresql.api.PostgresqlResult;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.R2dbcException;
+import io.r2dbc.spi.Wrapped;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.springframework.http.HttpStatus.*;
+
+// Carga em massa de measurements_places_itens (migração de histórico). O CSV vai direto do corpo da requisição para
+// uma tabela temporária via COPY FROM STDIN; validação e gravação final são feitas em conjunto, no banco, numa única
+// transação: linhas inválidas e referências desconhecidas são removidas da staging e o restante entra com um
+// INSERT ... SELECT que ignora o que já existe.
+// Antes do commit, o que entrou é somado por item de bacia e lançado no acumulado do placeItem, como nas medições
+// lançadas uma a uma. Os itens cujo lançamento ultrapassaria o previsto (ou que não existem mais) têm as linhas
+// retiradas da carga e voltam no resumo; se a transação não chega ao commit, o que já foi lançado é estornado.
+// A carga serve só para trazer o histórico na migração: fica desligada por padrão
+// (measurementsplacesitens.bulk-load.enabled) e exige a ação importMeasurementPlaceItemHistory, que só o ADMIN tem.
+@Service
+public class MeasurementPlaceItemBulkLoader {
+
+    static final String COLUMNS = "project_contract, start_date, end_date, year_month, place_name, item_name, item_unit, predicted_value, accumulated_value";
+
+    // Limite de linhas por chamada a POST /api/placesitens/accumulate (placesitens.exist-batch.max-size no placeItem).
+    static final int ACCUMULATE_BATCH_SIZE = 1000;
+
+    private final ConnectionFactory connectionFactory;
+    private final MeasurementPlaceItemClient measurementPlaceItemClient;
+    private final ReferenceReplica measurementReplica;
+    private final ReferenceReplica placeItemReplica;
+
+    @Value("${measurementsplacesitens.bulk-load.enabled:false}")
+    private boolean enabled = false;
+
+    public MeasurementPlaceItemBulkLoader(ConnectionFactory connectionFactory,
+                                          MeasurementPlaceItemClient measurementPlaceItemClient,
+                                          @Qualifier("measurementReplica") ReferenceReplica measurementReplica,
+                                          @Qualifier("placeItemReplica") ReferenceReplica placeItemReplica) {
+        this.connectionFactory = connectionFactory;
+        this.measurementPlaceItemClient = measurementPlaceItemClient;
+        this.measurementReplica = measurementReplica;
+        this.placeItemReplica = placeItemReplica;
+    }
+
+    public Mono<ResponseEntity<BulkLoadSummaryDTO>> load(Flux<DataBuffer> csv, String token) {
+        String action = "importMeasurementPlaceItemHistory";
+
+        if (!enabled) {
+            return Mono.just(ResponseEntity.status(FORBIDDEN)
+                    .body(BulkLoadSummaryDTO.error("Carga em massa desativada: é usada só na migração do histórico")));
+        }
+
+        return measurementPlaceItemClient.hasPermission(token, action)
+                .flatMap(responseEntity -> {
+                    HttpStatus status = (HttpStatus) responseEntity.getStatusCode();
+                    String message = responseEntity.getBody();
+
+                    if (status == NOT_FOUND) {
+                        return Mono.just(ResponseEntity.status(NOT_FOUND)
+                                .body(BulkLoadSummaryDTO.error("Ação não encontrada: " + action)));
+                    } else if (status == FORBIDDEN) {
+                        return Mono.just(ResponseEntity.status(FORBIDDEN)
+                                .body(BulkLoadSummaryDTO.error("Sem permissão para realizar essa ação")));
+                    } else if (status != OK) {
+                        return Mono.just(ResponseEntity.status(INTERNAL_SERVER_ERROR)
+                                .body(BulkLoadSummaryDTO.error("Erro ao verificar permissão: " + message)));
+                    }
+
+                    // A validação das referências é feita contra as réplicas locais; sem elas não há como validar.
+                    if (!measurementReplica.isReady() || !placeItemReplica.isReady()) {
+                        return Mono.just(ResponseEntity.status(SERVICE_UNAVAILABLE)
+                                .body(BulkLoadSummaryDTO.error("Réplicas de medições e itens das bacias indisponíveis, tente novamente em instantes")));
+                    }
+
+                    long start = System.currentTimeMillis();
+                    return Mono.usingWhen(connectionFactory.create(),
+                                    connection -> inTransaction(postgres(connection), csv, token),
+                                    Connection::close)
+                            .map(counts -> ResponseEntity.ok(counts.summary(System.currentTimeMillis() - start)));
+                })
+                .onErrorResume(ResponseStatusException.class, error -> Mono.just(ResponseEntity.status(error.getStatusCode())
+                        .body(BulkLoadSummaryDTO.error(error.getReason()))))
+                .onErrorResume(R2dbcException.class, error -> {
+                    // Classe 22 (data exception): valor do CSV que não converte para a coluna; a mensagem traz a linha.
+                    HttpStatus status = error.getSqlState() != null && error.getSqlState().startsWith("22") ? BAD_REQUEST : INTERNAL_SERVER_ERROR;
+                    return Mono.just(ResponseEntity.status(status)
+                            .body(BulkLoadSummaryDTO.error("Erro na carga em massa: " + error.getMessage())));
+                })
+                .onErrorResume(error -> Mono.just(ResponseEntity.status(INTERNAL_SERVER_ERROR)
+                        .body(BulkLoadSummaryDTO.error("Erro na carga em massa: " + error.getMessage()))));
+    }
+
+    private Mono<Counts> inTransaction(PostgresqlConnection connection, Flux<DataBuffer> csv, String token) {
+        List<Launch> launched = new ArrayList<>();
+        return connection.beginTransaction()
+                .then(execute(connection, """
+                        CREATE TEMP TABLE measurements_places_itens_staging (
+                            project_contract TEXT,
+                            start_date DATE,
+                            end_date DATE,
+                            year_month TEXT,
+                            place_name TEXT,
+                            item_name TEXT,
+                            item_unit TEXT,
+                            predicted_value NUMERIC(15, 2),
+                            accumulated_value NUMERIC(15, 2)
+                        ) ON COMMIT DROP
+                        """))
+                .then(connection.copyIn("COPY measurements_places_itens_staging (" + COLUMNS + ") FROM STDIN WITH (FORMAT csv, HEADER true)",
+                        csv.map(MeasurementPlaceItemBulkLoader::toByteBuffer)))
+                .flatMap(received -> execute(connection, "ANALYZE measurements_places_itens_staging")
+                        .then(execute(connection, """
+                                DELETE FROM measurements_places_itens_staging
+                                WHERE project_contract IS NULL OR year_month IS NULL OR place_name IS NULL
+                                   OR item_name IS NULL OR item_unit IS NULL OR start_date IS NULL OR end_date IS NULL
+                                   OR year_month !~ '^[0-9]{4}-(0[1-9]|1[0-2])$'
+                                   OR start_date > end_date
+                                   OR predicted_value < 0 OR accumulated_value < 0
+                                """))
+                        .flatMap(invalid -> removeUnknownReferences(connection)
+                                .flatMap(unknown -> insert(connection)
+                                        .flatMap(inserted -> launch(token, inserted, launched)
+                                                .flatMap(rejected -> deleteIds(connection, rejected.stream()
+                                                                .flatMap(rejection -> Stream.of(rejection.launch().ids()))
+                                                                .toArray(Long[]::new))
+                                                        .thenReturn(new Counts(received, invalid, unknown,
+                                                                inserted.stream().mapToLong(Launch::rows).sum(), rejected)))))))
+                .flatMap(counts -> connection.commitTransaction().thenReturn(counts))
+                .onErrorResume(error -> connection.rollbackTransaction()
+                        .onErrorResume(rollbackError -> Mono.empty())
+                        .then(release(token, launched))
+                        .then(Mono.error(error)));
+    }
+
+    // Grava o que não existe e devolve o que entrou somado por item de bacia, com os ids das linhas de cada um.
+    private static Mono<List<Launch>> insert(PostgresqlConnection connection) {
+        return connection.createStatement("""
+                        WITH inserted AS (
+                            INSERT INTO measurements_places_itens (%s)
+                            SELECT DISTINCT ON (s.project_contract, s.year_month, s.place_name, s.item_name, s.item_unit) s.*
+                            FROM measurements_places_itens_staging s
+                            WHERE NOT EXISTS (
+                                SELECT 1 FROM measurements_places_itens m
+                                WHERE m.project_contract = s.project_contract AND m.year_month = s.year_month
+                                  AND m.place_name = s.place_name AND m.item_name = s.item_name AND m.item_unit = s.item_unit
+                            )
+                            ON CONFLICT (project_contract, year_month, place_name, item_name, item_unit) DO NOTHING
+                            RETURNING id, project_contract, place_name, item_name, item_unit, accumulated_value
+                        )
+                        SELECT project_contract, place_name, item_name, item_unit,
+                               SUM(COALESCE(accumulated_value, 0)) AS quantity, CAST(array_agg(id) AS bigint[]) AS ids
+                        FROM inserted
+                        GROUP BY project_contract, place_name, item_name, item_unit
+                        ORDER BY project_contract, place_name, item_name, item_unit
+                        """.formatted(COLUMNS))
+                .execute()
+                .concatMap(result -> result.map((row, metadata) -> new Launch(
+                        row.get("project_contract", String.class),
+                        row.get("place_name", String.class),
+                        row.get("item_name", String.class),
+                        row.get("item_unit", String.class),
+                        row.get("quantity", BigDecimal.class),
+                        row.get("ids", Long[].class))))
+                .collectList();
+    }
+
+    // Lança as quantidades contrato a contrato, em lotes. O que foi aplicado entra em launched (para o estorno, se a
+    // carga não chegar ao commit); o que foi recusado volta com a situação informada pelo placeItem.
+    private Mono<List<Rejection>> launch(String token, List<Launch> launches, List<Launch> launched) {
+        List<List<Launch>> batches = new ArrayList<>();
+        launches.stream()
+                .collect(Collectors.groupingBy(Launch::projectContract, LinkedHashMap::new, Collectors.toList()))
+                .values()
+                .forEach(contract -> {
+                    for (int i = 0; i < contract.size(); i += ACCUMULATE_BATCH_SIZE) {
+                        batches.add(contract.subList(i, Math.min(i + ACCUMULATE_BATCH_SIZE, contract.size())));
+                    }
+                });
+
+        return Flux.fromIterable(batches)
+                .concatMap(batch -> measurementPlaceItemClient.accumulate(token, batch.get(0).projectContract(),
+                                batch.stream().map(Launch::key).toList(), batch.stream().map(Launch::quantity).toList())
+                        .flatMapIterable(status -> {
+                            List<Rejection> rejected = new ArrayList<>();
+                            for (int k = 0; k < batch.size(); k++) {
+                                if (AccumulationResultDTO.APPLIED.equals(status[k])) {
+                                    launched.add(batch.get(k));
+                                } else {
+                                    rejected.add(new Rejection(batch.get(k), status[k]));
+                                }
+                            }
+                            return rejected;
+                        }))
+                .collectList();
+    }
+
+    // Compensação: devolve aos itens das bacias o que foi lançado por uma carga que não chegou ao commit. Se o estorno
+    // falha, o acumulado fica maior que as medições: a carga termina em FAILED_DEPENDENCY e o log traz cada quantidade
+    // a estornar.
+    private Mono<Void> release(String token, List<Launch> launched) {
+        if (launched.isEmpty()) {
+            return Mono.empty();
+        }
+        List<Launch> pending = List.copyOf(launched);
+        return launch(token, pending.stream().map(Launch::reversal).toList(), new ArrayList<>())
+                .then()
+                .onErrorResume(error -> {
+                    for (Launch launch : pending) {
+                        System.err.println("Estorno pendente no contrato " + launch.projectContract() + ": bacia " + launch.placeName()
+                                + ", item " + launch.itemName() + " (" + launch.itemUnit() + "), quantidade " + launch.quantity().toPlainString());
+                    }
+                    return Mono.error(new ResponseStatusException(FAILED_DEPENDENCY,
+                            "Não foi possível estornar o acumulado dos itens das bacias lançado pela carga; o acumulado ficou "
+                                    + "maior que as medições gravadas: " + error.getMessage()));
+                });
+    }
+
+    private static Mono<Long> deleteIds(PostgresqlConnection connection, Long[] ids) {
+        if (ids.length == 0) {
+            return Mono.just(0L);
+        }
+        return connection.createStatement("DELETE FROM measurements_places_itens WHERE id = ANY(CAST($1 AS bigint[]))")
+                .bind(0, ids)
+                .execute()
+                .flatMap(PostgresqlResult::getRowsUpdated)
+                .reduce(0L, Long::sum);
+    }
+
+    // As chaves distintas da carga são poucas perto do número de linhas: são verificadas nas réplicas em memória e
+    // as desconhecidas removidas da staging com um DELETE por tipo de referência.
+    private Mono<Long> removeUnknownReferences(PostgresqlConnection connection) {
+        Mono<Long> measurements = distinctKeys(connection, "project_contract, year_month")
+                .filter(key -> !measurementReplica.contains(key))
+                .collectList()
+                .flatMap(unknown -> deleteKeys(connection, unknown, "project_contract, year_month"));
+
+        Mono<Long> placeItems = distinctKeys(connection, "place_name, project_contract, item_name, item_unit")
+                .filter(key -> !placeItemReplica.contains(key))
+                .collectList()
+                .flatMap(unknown -> deleteKeys(connection, unknown, "place_name, project_contract, item_name, item_unit"));
+
+        return measurements.flatMap(removed -> placeItems.map(more -> removed + more));
+    }
+
+    private static Flux<String[]> distinctKeys(PostgresqlConnection connection, String columns) {
+        int size = columns.split(",").length;
+        return connection.createStatement("SELECT DISTINCT " + columns + " FROM measurements_places_itens_staging")
+                .execute()
+                .concatMap(result -> result.map((row, metadata) -> {
+                    String[] key = new String[size];
+                    for (int i = 0; i < size; i++) {
+                        key[i] = row.get(i, String.class);
+                    }
+                    return key;
+                }));
+    }
+
+    private static Mono<Long> deleteKeys(PostgresqlConnection connection, List<String[]> keys, String columns) {
+        if (keys.isEmpty()) {
+            return Mono.just(0L);
+        }
+
+        String[] names = columns.split(",\\s*");
+        List<String> unnestArgs = new ArrayList<>();
+        for (int i = 0; i < names.length; i++) {
+            unnestArgs.add("CAST($" + (i + 1) + " AS text[])");
+        }
+
+        var statement = connection.createStatement("DELETE FROM measurements_places_itens_staging WHERE (" + columns + ") IN " +
+                "(SELECT * FROM unnest(" + String.join(", ", unnestArgs) + "))");
+        for (int i = 0; i < names.length; i++) {
+            String[] values = new String[keys.size()];
+            for (int k = 0; k < keys.size(); k++) {
+                values[k] = keys.get(k)[i];
+            }
+            statement.bind(i, values);
+        }
+        return statement.execute()
+                .flatMap(PostgresqlResult::getRowsUpdated)
+                .reduce(0L, Long::sum);
+    }
+
+    private static Mono<Long> execute(PostgresqlConnection connection, String sql) {
+        return connection.createStatement(sql)
+                .execute()
+                .flatMap(PostgresqlResult::getRowsUpdated)
+                .reduce(0L, Long::sum);
+    }
+
+    private static ByteBuffer toByteBuffer(DataBuffer dataBuffer) {
+        byte[] bytes = new byte[dataBuffer.readableByteCount()];
+        dataBuffer.read(bytes);
+        DataBufferUtils.release(dataBuffer);
+        return ByteBuffer.wrap(bytes);
+    }
+
+    // O pool do Spring Boot embrulha a conexão; COPY só existe na conexão nativa do r2dbc-postgresql.
+    private static PostgresqlConnection postgres(Connection connection) {
+        Object target = connection;
+        while (!(target instanceof PostgresqlConnection) && target instanceof Wrapped<?> wrapped) {
+            target = wrapped.unwrap();
+        }
+        if (target instanceof PostgresqlConnection postgresqlConnection) {
+            return postgresqlConnection;
+        }
+        throw new IllegalStateException("A carga em massa exige uma conexão r2dbc-postgresql");
+    }
+
+    // Linhas gravadas de um item de bacia, somadas; ids são as linhas de measurements_places_itens que as trouxeram.
+    private record Launch(String projectContract, String placeName, String itemName, String itemUnit, BigDecimal quantity, Long[] ids) {
+
+        String[] key() {
+            return new String[]{placeName, itemName, itemUnit};
+        }
+
+        long rows() {
+            return ids.length;
+        }
+
+        Launch reversal() {
+            return new Launch(projectContract, placeName, itemName, itemUnit, quantity.negate(), ids);
+        }
+    }
+
+    private record Rejection(Launch launch, String status) {
+
+        BulkLoadRejectionDTO toDTO() {
+            String message = AccumulationResultDTO.PLACE_ITEM_NOT_FOUND.equals(status)
+                    ? "Item não encontrado na bacia"
+                    : "A quantidade carregada ultrapassa a prevista para o item na bacia";
+            return new BulkLoadRejectionDTO(launch.projectContract(), launch.placeName(), launch.itemName(), launch.itemUnit(),
+                    launch.rows(), launch.quantity(), status, message);
+        }
+    }
+
+    private record Counts(long received, long invalid, long unknownReferences, long inserted, List<Rejection> rejected) {
+
+        BulkLoadSummaryDTO summary(long elapsedMillis) {
+            long skipped = received - invalid - unknownReferences - inserted;
+            long rejectedRows = rejected.stream().mapToLong(rejection -> rejection.launch().rows()).sum();
+            long written = inserted - rejectedRows;
+            return new BulkLoadSummaryDTO(received, invalid, unknownReferences, skipped, rejectedRows, written, elapsedMillis,
+                    rejected.stream().map(Rejection::toDTO).toList(),
+                    written + " de " + received + " linhas gravadas em " + elapsedMillis + " ms"
+                            + (rejectedRows > 0 ? ", " + rejectedRows + " recusadas pelo acumulado dos itens das bacias" : ""));
+        }
+    }
+}
@@ -1,101 +1,378 @@
 package service;
 
+import authorization.ReferenceReplica;
+import authorization.ValidationPipeline;
 import client.MeasurementPlaceItemClient;
+import dto.AccumulationResultDTO;
+import dto.LineOutcomeDTO;
 import dto.MeasurementPlaceItemDTO;
+import dto.MeasurementSheetDTO;
+import dto.MeasurementSheetLineDTO;
+import dto.MeasurementSheetResultDTO;
 import model.MeasurementPlaceItem;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Mono;
 import repository.MeasurementPlaceItemRepository;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
 import static org.springframework.http.HttpStatus.*;
 
 @Service
 public class MeasurementPlaceItemService {
 
+    private static final Pattern YEAR_MONTH = Pattern.compile("^[0-9]{4}-(0[1-9]|1[0-2])$");
+
     private final MeasurementPlaceItemRepository measurementPlaceItemRepository;
+    private final MeasurementPlaceItemClient measurementPlaceItemClient;
+
+    @Value("${measurementsplacesitens.sheet.max-lines:1000}")
+    private int sheetMaxLines = 1000;
 
-    public MeasurementPlaceItemService(MeasurementPlaceItemRepository measurementPlaceItemRepository) {
+    public MeasurementPlaceItemService(MeasurementPlaceItemRepository measurementPlaceItemRepository, MeasurementPlaceItemClient measurementPlaceItemClient) {
         this.measurementPlaceItemRepository = measurementPlaceItemRepository;
+        this.measurementPlaceItemClient = measurementPlaceItemClient;
     }
 
-    @Autowired
-    private MeasurementPlaceItemClient measurementPlaceItemClient;
-
     public Mono<ResponseEntity<String>> createMeasurementPlaceItem(MeasurementPlaceItemDTO measurementPlaceItemDTO, String token) {
 
         String action = "createMeasurementPlaceItem";
 
-        return measurementPlaceItemClient.hasPermission(token, action)
-                .flatMap(responseEntity -> {
-                    HttpStatus status = (HttpStatus) responseEntity.getStatusCode();
-                    String message = responseEntity.getBody();
+        if (isNegative(measurementPlaceItemDTO.getPredictedValue()) || isNegative(measurementPlaceItemDTO.getAccumulatedValue())) {
+            return Mono.just(ResponseEntity.status(BAD_REQUEST)
+                    .body("Valores não podem ser negativos"));
+        }
 
-                    if (status == NOT_FOUND) {
+        // Permissão, medição e item da bacia não dependem um do outro: as três consultas saem juntas.
+        return ValidationPipeline.validate()
+                .check(() -> measurementPlaceItemClient.hasPermission(token, action), permissionRejection(action))
+                .check(() -> measurementPlaceItemClient.measurementExists(token, measurementPlaceItemDTO.getProjectContract(), measurementPlaceItemDTO.getYearMonth()),
+                        measurementRejection(measurementPlaceItemDTO.getProjectContract()))
+                .check(() -> measurementPlaceItemClient.placeItemExists(token, measurementPlaceItemDTO.getPlaceName(),
+                        measurementPlaceItemDTO.getProjectContract(), measurementPlaceItemDTO.getItemName(),
+                        measurementPlaceItemDTO.getItemUnit()), placeItemExistsResponse -> {
+                    if (placeItemExistsResponse.getStatusCode() == NOT_FOUND) {
+                        return ResponseEntity.status(NOT_FOUND)
+                                .body("Item ou lugar não encontrado: " + measurementPlaceItemDTO.getPlaceName() + ", " + measurementPlaceItemDTO.getItemName());
+                    } else if (placeItemExistsResponse.getStatusCode() != OK) {
+                        return ResponseEntity.status(INTERNAL_SERVER_ERROR)
+                                .body("Erro ao verificar existência do item e lugar");
+                    }
+                    return null;
+                })
+                .then(() -> launchAndInsert(measurementPlaceItemDTO, token));
+    }
+
+    // O valor medido é lançado primeiro no item da bacia, que recusa o que ultrapassaria o previsto; só então a linha é
+    // gravada. Se ela já existia (ou a gravação falha) o lançamento é estornado.
+    private Mono<ResponseEntity<String>> launchAndInsert(MeasurementPlaceItemDTO measurementPlaceItemDTO, String token) {
+        String projectContract = measurementPlaceItemDTO.getProjectContract();
+        List<String[]> keys = List.<String[]>of(new String[]{measurementPlaceItemDTO.getPlaceName(),
+                measurementPlaceItemDTO.getItemName(), measurementPlaceItemDTO.getItemUnit()});
+        List<BigDecimal> deltas = List.of(orZero(measurementPlaceItemDTO.getAccumulatedValue()));
+
+        return measurementPlaceItemClient.accumulate(token, projectContract, keys, deltas)
+                .flatMap(status -> {
+                    if (AccumulationResultDTO.PLACE_ITEM_NOT_FOUND.equals(status[0])) {
                         return Mono.just(ResponseEntity.status(NOT_FOUND)
-                                .body("Ação não encontrada: " + action));
-                    } else if (status == FORBIDDEN) {
-                        return Mono.just(ResponseEntity.status(FORBIDDEN)
-                                .body("Sem permissão para realizar essa ação"));
-                    } else if (status != OK) {
-                        return Mono.just(ResponseEntity.status(INTERNAL_SERVER_ERROR)
-                                .body("Erro ao verificar permissão: " + message));
+                                .body("Item ou lugar não encontrado: " + measurementPlaceItemDTO.getPlaceName() + ", " + measurementPlaceItemDTO.getItemName()));
+                    } else if (!AccumulationResultDTO.APPLIED.equals(status[0])) {
+                        return Mono.just(ResponseEntity.status(CONFLICT)
+                                .body("A quantidade medida ultrapassa a prevista para o item na bacia"));
                     }
 
-                    return measurementPlaceItemClient.measurementExists(token, measurementPlaceItemDTO.getProjectContract(), measurementPlaceItemDTO.getYearMonth())
-                            .flatMap(measurementExistsResponse -> {
-                                if (measurementExistsResponse.getStatusCode() == NOT_FOUND) {
-                                    return Mono.just(ResponseEntity.status(NOT_FOUND)
-                                            .body("Medição não encontrada para o contrato: " + measurementPlaceItemDTO.getProjectContract()));
-                                } else if (measurementExistsResponse.getStatusCode() != OK) {
-                                    return Mono.just(ResponseEntity.status(INTERNAL_SERVER_ERROR)
-                                            .body("Erro ao verificar existência da medição"));
-                                }
+                    return measurementPlaceItemRepository.insertIfAbsent(
+                                    projectContract,
+                                    measurementPlaceItemDTO.getYearMonth(),
+                                    measurementPlaceItemDTO.getStartDate(),
+                                    measurementPlaceItemDTO.getEndDate(),
+                                    measurementPlaceItemDTO.getPlaceName(),
+                                    measurementPlaceItemDTO.getItemName(),
+                                    measurementPlaceItemDTO.getItemUnit(),
+                                    measurementPlaceItemDTO.getPredictedValue(),
+                                    measurementPlaceItemDTO.getAccumulatedValue())
+                            .onErrorResume(error -> release(token, projectContract, keys, deltas).then(Mono.<Long>error(error)))
+                            .flatMap(inserted -> inserted > 0
+                                    ? Mono.just(ResponseEntity.status(CREATED)
+                                            .body("Medição criada com sucesso"))
+                                    : release(token, projectContract, keys, deltas)
+                                            .thenReturn(ResponseEntity.status(CONFLICT)
+                                                    .body("A medição para o item já existe no lugar e período especificados")));
+                })
+                .onErrorResume(ResponseStatusException.class, error -> Mono.just(ResponseEntity.status(error.getStatusCode())
+                        .body(error.getReason())));
+    }
 
-                                return measurementPlaceItemClient.placeItemExists(token, measurementPlaceItemDTO.getPlaceName(),
-                                                measurementPlaceItemDTO.getProjectContract(), measurementPlaceItemDTO.getItemName(),
-                                                measurementPlaceItemDTO.getItemUnit())
-                                        .flatMap(placeItemExistsResponse -> {
-                                            if (placeItemExistsResponse.getStatusCode() == NOT_FOUND) {
-                                                return Mono.just(ResponseEntity.status(NOT_FOUND)
-                                                        .body("Item ou lugar não encontrado: " + measurementPlaceItemDTO.getPlaceName() + ", " + measurementPlaceItemDTO.getItemName()));
-                                            } else if (placeItemExistsResponse.getStatusCode() != OK) {
-                                                return Mono.just(ResponseEntity.status(INTERNAL_SERVER_ERROR)
-                                                        .body("Erro ao verificar existência do item e lugar"));
-                                            }
+    // Permissão e medição são verificadas uma vez para a folha toda e os itens das bacias num único lote. As linhas
+    // válidas são gravadas (atualizadas ou inseridas) num único comando; as recusadas voltam no relatório.
+    public Mono<ResponseEntity<MeasurementSheetResultDTO>> submitSheet(MeasurementSheetDTO measurementSheetDTO, String token) {
+        String action = "createMeasurementPlaceItem";
+        String projectContract = measurementSheetDTO.getProjectContract();
+        String yearMonth = measurementSheetDTO.getYearMonth();
+        List<MeasurementSheetLineDTO> lines = measurementSheetDTO.getLines();
+
+        if (isBlank(projectContract) || yearMonth == null || !YEAR_MONTH.matcher(yearMonth).matches()) {
+            return Mono.just(ResponseEntity.status(BAD_REQUEST)
+                    .body(MeasurementSheetResultDTO.error("Informe o contrato e o mês no formato AAAA-MM")));
+        }
+        if (measurementSheetDTO.getStartDate() == null || measurementSheetDTO.getEndDate() == null
+                || measurementSheetDTO.getStartDate().isAfter(measurementSheetDTO.getEndDate())) {
+            return Mono.just(ResponseEntity.status(BAD_REQUEST)
+                    .body(MeasurementSheetResultDTO.error("Período da medição inválido")));
+        }
+        if (lines == null || lines.isEmpty()) {
+            return Mono.just(ResponseEntity.status(BAD_REQUEST)
+                    .body(MeasurementSheetResultDTO.error("Informe ao menos uma linha")));
+        }
+        if (lines.size() > sheetMaxLines) {
+            return Mono.just(ResponseEntity.status(BAD_REQUEST)
+                    .body(MeasurementSheetResultDTO.error("A folha pode ter no máximo " + sheetMaxLines + " linhas")));
+        }
+
+        List<LineOutcomeDTO> rejected = new ArrayList<>();
+        Map<String, Integer> firstLineByKey = new HashMap<>();
+        List<Integer> candidates = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            MeasurementSheetLineDTO line = lines.get(i);
+            if (line == null || isBlank(line.getPlaceName()) || isBlank(line.getItemName()) || isBlank(line.getItemUnit())) {
+                rejected.add(new LineOutcomeDTO(i, LineOutcomeDTO.INVALID, "Informe a bacia, o item e a unidade"));
+                continue;
+            }
+            if (isNegative(line.getPredictedValue()) || isNegative(line.getAccumulatedValue())) {
+                rejected.add(new LineOutcomeDTO(i, LineOutcomeDTO.INVALID, "Valores não podem ser negativos"));
+                continue;
+            }
+            Integer first = firstLineByKey.putIfAbsent(ReferenceReplica.key(line.getPlaceName(), line.getItemName(), line.getItemUnit()), i);
+            if (first != null) {
+                rejected.add(new LineOutcomeDTO(i, LineOutcomeDTO.DUPLICATE_LINE, "Linha repetida, ver linha " + first));
+                continue;
+            }
+            candidates.add(i);
+        }
+
+        return ValidationPipeline.validate()
+                .check(() -> measurementPlaceItemClient.hasPermission(token, action), permissionRejection(action))
+                .check(() -> measurementPlaceItemClient.measurementExists(token, projectContract, yearMonth), measurementRejection(projectContract))
+                .then(() -> saveSheet(measurementSheetDTO, candidates, rejected, token),
+                        rejection -> ResponseEntity.status(rejection.getStatusCode())
+                                .body(MeasurementSheetResultDTO.error(rejection.getBody())))
+                .onErrorResume(ResponseStatusException.class, error -> Mono.just(ResponseEntity.status(error.getStatusCode())
+                        .body(MeasurementSheetResultDTO.error(error.getReason()))))
+                .onErrorResume(error -> Mono.just(ResponseEntity.status(INTERNAL_SERVER_ERROR)
+                        .body(MeasurementSheetResultDTO.error("Erro ao gravar a folha de medição: " + error.getMessage()))));
+    }
+
+    private Mono<ResponseEntity<MeasurementSheetResultDTO>> saveSheet(MeasurementSheetDTO measurementSheetDTO, List<Integer> candidates,
+                                                                     List<LineOutcomeDTO> rejected, String token) {
+        List<MeasurementSheetLineDTO> lines = measurementSheetDTO.getLines();
+        String projectContract = measurementSheetDTO.getProjectContract();
+
+        if (candidates.isEmpty()) {
+            return Mono.just(ResponseEntity.ok(report(0, 0, rejected)));
+        }
+
+        List<String[]> keys = candidates.stream()
+                .map(i -> new String[]{lines.get(i).getPlaceName(), projectContract, lines.get(i).getItemName(), lines.get(i).getItemUnit()})
+                .toList();
+
+        return measurementPlaceItemClient.placeItemsExist(token, keys)
+                .flatMap(exists -> {
+                    List<Integer> accepted = new ArrayList<>();
+                    for (int k = 0; k < candidates.size(); k++) {
+                        int i = candidates.get(k);
+                        if (exists[k]) {
+                            accepted.add(i);
+                        } else {
+                            rejected.add(new LineOutcomeDTO(i, LineOutcomeDTO.PLACE_ITEM_NOT_FOUND,
+                                    "Item ou lugar não encontrado: " + lines.get(i).getPlaceName() + ", " + lines.get(i).getItemName()));
+                        }
+                    }
+                    if (accepted.isEmpty()) {
+                        return Mono.just(ResponseEntity.ok(report(0, 0, rejected)));
+                    }
+                    return launchSheet(measurementSheetDTO, accepted, rejected, token);
+                });
+    }
+
+    // Cada linha lança no item da bacia a diferença entre o valor novo e o já gravado no mês; as que ultrapassariam o
+    // previsto são recusadas sem gravar. As demais são gravadas num único comando, condicionado ao valor lido: a linha
+    // que outra submissão alterou nesse meio-tempo não é gravada e tem o lançamento estornado.
+    private Mono<ResponseEntity<MeasurementSheetResultDTO>> launchSheet(MeasurementSheetDTO measurementSheetDTO, List<Integer> accepted,
+                                                                       List<LineOutcomeDTO> rejected, String token) {
+        List<MeasurementSheetLineDTO> lines = measurementSheetDTO.getLines();
+        String projectContract = measurementSheetDTO.getProjectContract();
+        String yearMonth = measurementSheetDTO.getYearMonth();
+
+        String[] placeNames = accepted.stream().map(i -> lines.get(i).getPlaceName()).toArray(String[]::new);
+        String[] itemNames = accepted.stream().map(i -> lines.get(i).getItemName()).toArray(String[]::new);
+        String[] itemUnits = accepted.stream().map(i -> lines.get(i).getItemUnit()).toArray(String[]::new);
+
+        return measurementPlaceItemRepository.findSheetLines(projectContract, yearMonth, placeNames, itemNames, itemUnits)
+                .collectMap(row -> ReferenceReplica.key(row.getPlaceName(), row.getItemName(), row.getItemUnit()),
+                        row -> orZero(row.getAccumulatedValue()))
+                .flatMap(previous -> {
+                    BigDecimal[] previousValues = new BigDecimal[accepted.size()];
+                    List<String[]> keys = new ArrayList<>();
+                    List<BigDecimal> deltas = new ArrayList<>();
+                    for (int k = 0; k < accepted.size(); k++) {
+                        previousValues[k] = previous.get(ReferenceReplica.key(placeNames[k], itemNames[k], itemUnits[k]));
+                        keys.add(new String[]{placeNames[k], itemNames[k], itemUnits[k]});
+                        deltas.add(orZero(lines.get(accepted.get(k)).getAccumulatedValue()).subtract(orZero(previousValues[k])));
+                    }
+
+                    return measurementPlaceItemClient.accumulate(token, projectContract, keys, deltas)
+                            .flatMap(status -> {
+                                List<Integer> launched = new ArrayList<>();
+                                for (int k = 0; k < accepted.size(); k++) {
+                                    if (AccumulationResultDTO.APPLIED.equals(status[k])) {
+                                        launched.add(k);
+                                    } else if (AccumulationResultDTO.PLACE_ITEM_NOT_FOUND.equals(status[k])) {
+                                        // Excluído entre a checagem de existência e o lançamento.
+                                        rejected.add(new LineOutcomeDTO(accepted.get(k), LineOutcomeDTO.PLACE_ITEM_NOT_FOUND,
+                                                "Item ou lugar não encontrado: " + placeNames[k] + ", " + itemNames[k]));
+                                    } else {
+                                        rejected.add(new LineOutcomeDTO(accepted.get(k), LineOutcomeDTO.EXCEEDS_PREDICTED,
+                                                "A quantidade medida ultrapassa a prevista para o item na bacia"));
+                                    }
+                                }
+                                if (launched.isEmpty()) {
+                                    return Mono.just(ResponseEntity.ok(report(0, 0, rejected)));
+                                }
 
+                                int size = launched.size();
+                                String[] writePlaceNames = new String[size];
+                                String[] writeItemNames = new String[size];
+                                String[] writeItemUnits = new String[size];
+                                String[] predictedValues = new String[size];
+                                String[] accumulatedValues = new String[size];
+                                String[] expectedValues = new String[size];
+                                List<String[]> launchedKeys = new ArrayList<>();
+                                List<BigDecimal> launchedDeltas = new ArrayList<>();
+                                for (int w = 0; w < size; w++) {
+                                    int k = launched.get(w);
+                                    MeasurementSheetLineDTO line = lines.get(accepted.get(k));
+                                    writePlaceNames[w] = line.getPlaceName();
+                                    writeItemNames[w] = line.getItemName();
+                                    writeItemUnits[w] = line.getItemUnit();
+                                    predictedValues[w] = line.getPredictedValue() != null ? line.getPredictedValue().toPlainString() : null;
+                                    accumulatedValues[w] = line.getAccumulatedValue() != null ? line.getAccumulatedValue().toPlainString() : null;
+                                    expectedValues[w] = previousValues[k] != null ? previousValues[k].toPlainString() : null;
+                                    launchedKeys.add(keys.get(k));
+                                    launchedDeltas.add(deltas.get(k));
+                                }
 
-                                            return measurementPlaceItemRepository.findByPlaceNameAndProjectContractAndItemNameAndItemUnitAndYearMonth(
-                                                            measurementPlaceItemDTO.getPlaceName(),
-                                                            measurementPlaceItemDTO.getProjectContract(),
-                                                            measurementPlaceItemDTO.getItemName(),
-                                                            measurementPlaceItemDTO.getItemUnit(),
-                                                            measurementPlaceItemDTO.getYearMonth())
-                                                    .flatMap(existingItem -> Mono.just(ResponseEntity.status(CONFLICT)
-                                                            .body("A medição para o item já existe no lugar e período especificados")))
-                                                    .switchIfEmpty(Mono.defer(() -> {
-                                                        MeasurementPlaceItem newMeasurementPlaceItem = new MeasurementPlaceItem();
-                                                        newMeasurementPlaceItem.setPlaceName(measurementPlaceItemDTO.getPlaceName());
-                                                        newMeasurementPlaceItem.setItemName(measurementPlaceItemDTO.getItemName());
-                                                        newMeasurementPlaceItem.setItemUnit(measurementPlaceItemDTO.getItemUnit());
-                                                        newMeasurementPlaceItem.setYearMonth(measurementPlaceItemDTO.getYearMonth());
-                                                        newMeasurementPlaceItem.setPredictedValue(measurementPlaceItemDTO.getPredictedValue());
-                                                        newMeasurementPlaceItem.setAccumulatedValue(measurementPlaceItemDTO.getAccumulatedValue());
-                                                        newMeasurementPlaceItem.setProjectContract(measurementPlaceItemDTO.getProjectContract());
-                                                        newMeasurementPlaceItem.setStartDate(measurementPlaceItemDTO.getStartDate());
-                                                        newMeasurementPlaceItem.setEndDate(measurementPlaceItemDTO.getEndDate());
-
-                                                        return measurementPlaceItemRepository.save(newMeasurementPlaceItem)
-                                                                .map(savedItem -> ResponseEntity.status(CREATED)
-                                                                        .body("Medição criada com sucesso"));
-                                                    }));
+                                return measurementPlaceItemRepository.writeSheetLines(projectContract, yearMonth,
+                                                measurementSheetDTO.getStartDate(), measurementSheetDTO.getEndDate(),
+                                                writePlaceNames, writeItemNames, writeItemUnits, predictedValues, accumulatedValues, expectedValues)
+                                        .collect(Collectors.toSet())
+                                        .onErrorResume(error -> release(token, projectContract, launchedKeys, launchedDeltas)
+                                                .then(Mono.<Set<Long>>error(error)))
+                                        .flatMap(written -> {
+                                            int created = 0;
+                                            List<String[]> lostKeys = new ArrayList<>();
+                                            List<BigDecimal> lostDeltas = new ArrayList<>();
+                                            for (int w = 0; w < size; w++) {
+                                                if (written.contains((long) w + 1)) {
+                                                    if (expectedValues[w] == null) {
+                                                        created++;
+                                                    }
+                                                    continue;
+                                                }
+                                                lostKeys.add(launchedKeys.get(w));
+                                                lostDeltas.add(launchedDeltas.get(w));
+                                                rejected.add(new LineOutcomeDTO(accepted.get(launched.get(w)), LineOutcomeDTO.CHANGED_CONCURRENTLY,
+                                                        "A linha foi alterada por outra submissão; envie novamente"));
+                                            }
+                                            return release(token, projectContract, lostKeys, lostDeltas)
+                                                    .thenReturn(ResponseEntity.ok(report(created, written.size() - created, rejected)));
                                         });
                             });
                 });
     }
 
+    // Compensação: devolve aos itens das bacias o que foi lançado para linhas que acabaram não gravadas. Se o estorno
+    // falha, o acumulado fica maior que as medições: a requisição termina em FAILED_DEPENDENCY, nunca como sucesso, e
+    // o log traz cada quantidade a estornar.
+    private Mono<Void> release(String token, String projectContract, List<String[]> keys, List<BigDecimal> deltas) {
+        if (keys.isEmpty()) {
+            return Mono.empty();
+        }
+        return measurementPlaceItemClient.accumulate(token, projectContract, keys, deltas.stream().map(BigDecimal::negate).toList())
+                .then()
+                .onErrorResume(error -> {
+                    for (int i = 0; i < keys.size(); i++) {
+                        System.err.println("Estorno pendente no contrato " + projectContract + ": bacia " + keys.get(i)[0]
+                                + ", item " + keys.get(i)[1] + " (" + keys.get(i)[2] + "), quantidade " + deltas.get(i).toPlainString());
+                    }
+                    return Mono.error(new ResponseStatusException(FAILED_DEPENDENCY,
+                            "Não foi possível estornar o acumulado dos itens das bacias do contrato " + projectContract
+                                    + "; o acumulado ficou maior que as medições gravadas: " + error.getMessage()));
+                });
+    }
+
+    private static MeasurementSheetResultDTO report(int created, int updated, List<LineOutcomeDTO> rejected) {
+        rejected.sort(Comparator.comparingInt(LineOutcomeDTO::getLine));
+        return new MeasurementSheetResultDTO(created, updated, rejected,
+                (created + updated) + " linhas gravadas, " + rejected.size() + " recusadas");
+    }
+
+    private Function<ResponseEntity<String>, ResponseEntity<String>> permissionRejection(String action) {
+        return responseEntity -> {
+            HttpStatus status = (HttpStatus) responseEntity.getStatusCode();
+            String message = responseEntity.getBody();
+
+            if (status == NOT_FOUND) {
+                return ResponseEntity.status(NOT_FOUND)
+                        .body("Ação não encontrada: " + action);
+            } else if (status == FORBIDDEN) {
+                return ResponseEntity.status(FORBIDDEN)
+                        .body("Sem permissão para realizar essa ação");
+            } else if (status != OK) {
+                return ResponseEntity.status(INTERNAL_SERVER_ERROR)
+                        .body("Erro ao verificar permissão: " + message);
+            }
+            return null;
+        };
+    }
+
+    private Function<ResponseEntity<String>, ResponseEntity<String>> measurementRejection(String projectContract) {
+        return measurementExistsResponse -> {
+            if (measurementExistsResponse.getStatusCode() == NOT_FOUND) {
+                return ResponseEntity.status(NOT_FOUND)
+                        .body("Medição não encontrada para o contrato: " + projectContract);
+            } else if (measurementExistsResponse.getStatusCode() != OK) {
+                return ResponseEntity.status(INTERNAL_SERVER_ERROR)
+                        .body("Erro ao verificar existência da medição");
+            }
+            return null;
+        };
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static boolean isNegative(BigDecimal value) {
+        return value != null && value.signum() < 0;
+    }
+
+    private static BigDecimal orZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+
     public Mono<ResponseEntity<String>> deleteMeasurement(MeasurementPlaceItemDTO measurementPlaceItemDTO, String token) {
         String action = "deleteMeasurementPlaceItem";
 
@@ -115,15 +392,20 @@ public class MeasurementPlaceItemService {
                                 .body("Erro ao verificar permissão: " + message));
                     }
 
-                    return measurementPlaceItemRepository.findByPlaceNameAndProjectContractAndItemNameAndItemUnitAndYearMonth(
-                                    measurementPlaceItemDTO.getPlaceName(),
+                    return measurementPlaceItemRepository.deleteByNaturalKey(
                                     measurementPlaceItemDTO.getProjectContract(),
+                                    measurementPlaceItemDTO.getYearMonth(),
+                                    measurementPlaceItemDTO.getPlaceName(),
                                     measurementPlaceItemDTO.getItemName(),
-                                    measurementPlaceItemDTO.getItemUnit(),
-                                    measurementPlaceItemDTO.getYearMonth())
-                            .flatMap(existingItem -> measurementPlaceItemRepository.delete(existingItem)
-                                    .then(Mono.just(ResponseEntity.status(OK)
-                                            .body("Medição deletada com sucesso"))))
+                                    measurementPlaceItemDTO.getItemUnit())
+                            .flatMap(deleted -> measurementPlaceItemClient.accumulate(token, deleted.getProjectContract(),
+                                            List.<String[]>of(new String[]{deleted.getPlaceName(), deleted.getItemName(), deleted.getItemUnit()}),
+                                            List.of(orZero(deleted.getAccumulatedValue()).negate()))
+                                    .thenReturn(ResponseEntity.status(OK).body("Medição deletada com sucesso"))
+                                    // Sem o estorno a linha volta, para o acumulado do item da bacia continuar batendo com as medições.
+                                    .onErrorResume(error -> restore(deleted)
+                                            .thenReturn(ResponseEntity.status(FAILED_DEPENDENCY)
+                                                    .body("Não foi possível estornar a quantidade no item da bacia; a medição foi mantida"))))
                             .switchIfEmpty(Mono.just(ResponseEntity.status(NOT_FOUND)
                                     .body("Medição não encontrada para os parâmetros fornecidos")));
                 })
@@ -131,6 +413,12 @@ public class MeasurementPlaceItemService {
                         .body("Erro ao processar exclusão: " + error.getMessage())));
     }
 
+    private Mono<Long> restore(MeasurementPlaceItem deleted) {
+        return measurementPlaceItemRepository.insertIfAbsent(deleted.getProjectContract(), deleted.getYearMonth(),
+                deleted.getStartDate(), deleted.getEndDate(), deleted.getPlaceName(), deleted.getItemName(),
+                deleted.getItemUnit(), deleted.getPredictedValue(), deleted.getAccumulatedValue());
+    }
+
     public Mono<ResponseEntity<String>> existsByPlaceNameProjectContractItemNameItemUnitYearMonth(MeasurementPlaceItemDTO measurementPlaceItemDTO, String token) {
 
         String action = "existMeasurementPlaceItem";
@@ -151,16 +439,15 @@ public class MeasurementPlaceItemService {
                                 .body("Erro ao verificar permissão: " + message));
                     }
 
-                    return measurementPlaceItemRepository.findByPlaceNameAndProjectContractAndItemNameAndItemUnitAndYearMonth(
-                                    measurementPlaceItemDTO.getPlaceName(),
+                    return measurementPlaceItemRepository.existsByNaturalKey(
                                     measurementPlaceItemDTO.getProjectContract(),
+                                    measurementPlaceItemDTO.getYearMonth(),
+                                    measurementPlaceItemDTO.getPlaceName(),
                                     measurementPlaceItemDTO.getItemName(),
-                                    measurementPlaceItemDTO.getItemUnit(),
-                                    measurementPlaceItemDTO.getYearMonth())
-                            .flatMap(existingItem -> Mono.just(ResponseEntity.status(OK)
-                                    .body("Medição encontrada para os parâmetros fornecidos")))
-                            .switchIfEmpty(Mono.just(ResponseEntity.status(NOT_FOUND)
-                                    .body("Medição não encontrada para os parâmetros fornecidos")));
+                                    measurementPlaceItemDTO.getItemUnit())
+                            .map(exists -> exists
+                                    ? ResponseEntity.status(OK).body("Medição encontrada para os parâmetros fornecidos")
+                                    : ResponseEntity.status(NOT_FOUND).body("Medição não encontrada para os parâmetros fornecidos"));
                 })
                 .onErrorResume(error -> Mono.just(ResponseEntity.status(INTERNAL_SERVER_ERROR)
                         .body("Erro ao verificar existência: " + error.getMessage())));
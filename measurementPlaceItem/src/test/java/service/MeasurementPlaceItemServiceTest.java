@@ -0,0 +1,229 @@
+package service;
+
+import client.MeasurementPlaceItemClient;
+import dto.AccumulationResultDTO;
+import dto.LineOutcomeDTO;
+import dto.MeasurementPlaceItemDTO;
+import dto.MeasurementSheetDTO;
+import dto.MeasurementSheetLineDTO;
+import model.MeasurementPlaceItem;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import repository.MeasurementPlaceItemRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.http.HttpStatus.*;
+
+@ExtendWith(MockitoExtension.class)
+class MeasurementPlaceItemServiceTest {
+
+    private static final String CONTRACT = "CONTRATO-123";
+    private static final String YEAR_MONTH = "2025-01";
+
+    @Mock
+    private MeasurementPlaceItemRepository measurementPlaceItemRepository;
+
+    @Mock
+    private MeasurementPlaceItemClient measurementPlaceItemClient;
+
+    @InjectMocks
+    private MeasurementPlaceItemService measurementPlaceItemService;
+
+    private MeasurementPlaceItemDTO measurementPlaceItemDTO;
+    private String token;
+
+    @BeforeEach
+    void setup() {
+        token = "token-teste";
+        measurementPlaceItemDTO = new MeasurementPlaceItemDTO();
+        measurementPlaceItemDTO.setProjectContract(CONTRACT);
+        measurementPlaceItemDTO.setYearMonth(YEAR_MONTH);
+        measurementPlaceItemDTO.setStartDate(LocalDate.parse("2025-01-01"));
+        measurementPlaceItemDTO.setEndDate(LocalDate.parse("2025-01-31"));
+        measurementPlaceItemDTO.setPlaceName("Bacia 1");
+        measurementPlaceItemDTO.setItemName("Escavação");
+        measurementPlaceItemDTO.setItemUnit("m3");
+        measurementPlaceItemDTO.setPredictedValue(new BigDecimal("100.00"));
+        measurementPlaceItemDTO.setAccumulatedValue(new BigDecimal("40.00"));
+    }
+
+    private void referencesExist() {
+        when(measurementPlaceItemClient.hasPermission(token, "createMeasurementPlaceItem"))
+                .thenReturn(Mono.just(ResponseEntity.ok("Permitido")));
+        when(measurementPlaceItemClient.measurementExists(token, CONTRACT, YEAR_MONTH))
+                .thenReturn(Mono.just(ResponseEntity.ok("Medição encontrada")));
+        when(measurementPlaceItemClient.placeItemExists(token, "Bacia 1", CONTRACT, "Escavação", "m3"))
+                .thenReturn(Mono.just(ResponseEntity.ok("Item encontrado")));
+    }
+
+    private void rowAlreadyExists() {
+        when(measurementPlaceItemRepository.insertIfAbsent(CONTRACT, YEAR_MONTH, measurementPlaceItemDTO.getStartDate(),
+                measurementPlaceItemDTO.getEndDate(), "Bacia 1", "Escavação", "m3", new BigDecimal("100.00"), new BigDecimal("40.00")))
+                .thenReturn(Mono.just(0L));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<BigDecimal> deltasOfCall(int call, int calls) {
+        ArgumentCaptor<List<BigDecimal>> deltas = ArgumentCaptor.forClass(List.class);
+        verify(measurementPlaceItemClient, times(calls)).accumulate(eq(token), eq(CONTRACT), anyList(), deltas.capture());
+        return deltas.getAllValues().get(call);
+    }
+
+    @Test
+    void createMeasurementPlaceItem_ConflitoEstornaLancamento() {
+        referencesExist();
+        when(measurementPlaceItemClient.accumulate(eq(token), eq(CONTRACT), anyList(), anyList()))
+                .thenReturn(Mono.just(new String[]{AccumulationResultDTO.APPLIED}));
+        rowAlreadyExists();
+
+        StepVerifier.create(measurementPlaceItemService.createMeasurementPlaceItem(measurementPlaceItemDTO, token))
+                .assertNext(response -> {
+                    assertEquals(CONFLICT, response.getStatusCode());
+                    assertEquals("A medição para o item já existe no lugar e período especificados", response.getBody());
+                })
+                .verifyComplete();
+
+        assertEquals(List.of(new BigDecimal("-40.00")), deltasOfCall(1, 2));
+    }
+
+    @Test
+    void createMeasurementPlaceItem_EstornoFalhaRetornaFailedDependency() {
+        referencesExist();
+        when(measurementPlaceItemClient.accumulate(eq(token), eq(CONTRACT), anyList(), anyList()))
+                .thenReturn(Mono.just(new String[]{AccumulationResultDTO.APPLIED}),
+                        Mono.error(new ResponseStatusException(FAILED_DEPENDENCY, "placeItem fora do ar")));
+        rowAlreadyExists();
+
+        StepVerifier.create(measurementPlaceItemService.createMeasurementPlaceItem(measurementPlaceItemDTO, token))
+                .assertNext(response -> assertEquals(FAILED_DEPENDENCY, response.getStatusCode()))
+                .verifyComplete();
+    }
+
+    @Test
+    void createMeasurementPlaceItem_UltrapassaPrevisto() {
+        referencesExist();
+        when(measurementPlaceItemClient.accumulate(eq(token), eq(CONTRACT), anyList(), anyList()))
+                .thenReturn(Mono.just(new String[]{AccumulationResultDTO.EXCEEDS_PREDICTED}));
+
+        StepVerifier.create(measurementPlaceItemService.createMeasurementPlaceItem(measurementPlaceItemDTO, token))
+                .assertNext(response -> {
+                    assertEquals(CONFLICT, response.getStatusCode());
+                    assertEquals("A quantidade medida ultrapassa a prevista para o item na bacia", response.getBody());
+                })
+                .verifyComplete();
+
+        verifyNoInteractions(measurementPlaceItemRepository);
+    }
+
+    @Test
+    void createMeasurementPlaceItem_ItemDaBaciaExcluidoAntesDoLancamento() {
+        referencesExist();
+        when(measurementPlaceItemClient.accumulate(eq(token), eq(CONTRACT), anyList(), anyList()))
+                .thenReturn(Mono.just(new String[]{AccumulationResultDTO.PLACE_ITEM_NOT_FOUND}));
+
+        StepVerifier.create(measurementPlaceItemService.createMeasurementPlaceItem(measurementPlaceItemDTO, token))
+                .assertNext(response -> {
+                    assertEquals(NOT_FOUND, response.getStatusCode());
+                    assertEquals("Item ou lugar não encontrado: Bacia 1, Escavação", response.getBody());
+                })
+                .verifyComplete();
+
+        verifyNoInteractions(measurementPlaceItemRepository);
+    }
+
+    @Test
+    void submitSheet_LinhaAcimaDoPrevistoVoltaNoRelatorio() {
+        MeasurementSheetLineDTO over = new MeasurementSheetLineDTO();
+        over.setPlaceName("Bacia 1");
+        over.setItemName("Escavação");
+        over.setItemUnit("m3");
+        over.setAccumulatedValue(new BigDecimal("150.00"));
+        MeasurementSheetLineDTO missing = new MeasurementSheetLineDTO();
+        missing.setPlaceName("Bacia 2");
+        missing.setItemName("Aterro");
+        missing.setItemUnit("m3");
+        missing.setAccumulatedValue(new BigDecimal("10.00"));
+
+        MeasurementSheetDTO sheet = new MeasurementSheetDTO();
+        sheet.setProjectContract(CONTRACT);
+        sheet.setYearMonth(YEAR_MONTH);
+        sheet.setStartDate(LocalDate.parse("2025-01-01"));
+        sheet.setEndDate(LocalDate.parse("2025-01-31"));
+        sheet.setLines(List.of(over, missing));
+
+        when(measurementPlaceItemClient.hasPermission(token, "createMeasurementPlaceItem"))
+                .thenReturn(Mono.just(ResponseEntity.ok("Permitido")));
+        when(measurementPlaceItemClient.measurementExists(token, CONTRACT, YEAR_MONTH))
+                .thenReturn(Mono.just(ResponseEntity.ok("Medição encontrada")));
+        when(measurementPlaceItemClient.placeItemsExist(eq(token), anyList()))
+                .thenReturn(Mono.just(new boolean[]{true, true}));
+        when(measurementPlaceItemRepository.findSheetLines(eq(CONTRACT), eq(YEAR_MONTH), any(), any(), any()))
+                .thenReturn(Flux.empty());
+        when(measurementPlaceItemClient.accumulate(eq(token), eq(CONTRACT), anyList(), anyList()))
+                .thenReturn(Mono.just(new String[]{AccumulationResultDTO.EXCEEDS_PREDICTED, AccumulationResultDTO.PLACE_ITEM_NOT_FOUND}));
+
+        StepVerifier.create(measurementPlaceItemService.submitSheet(sheet, token))
+                .assertNext(response -> {
+                    assertEquals(OK, response.getStatusCode());
+                    assertEquals(0, response.getBody().getCreated());
+                    List<LineOutcomeDTO> rejected = response.getBody().getRejected();
+                    assertEquals(2, rejected.size());
+                    assertEquals(LineOutcomeDTO.EXCEEDS_PREDICTED, rejected.get(0).getStatus());
+                    assertEquals(LineOutcomeDTO.PLACE_ITEM_NOT_FOUND, rejected.get(1).getStatus());
+                })
+                .verifyComplete();
+
+        verify(measurementPlaceItemRepository, never()).writeSheetLines(any(), any(), any(), any(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void deleteMeasurement_EstornoFalhaRestauraLinha() {
+        MeasurementPlaceItem deleted = new MeasurementPlaceItem();
+        deleted.setProjectContract(CONTRACT);
+        deleted.setYearMonth(YEAR_MONTH);
+        deleted.setStartDate(measurementPlaceItemDTO.getStartDate());
+        deleted.setEndDate(measurementPlaceItemDTO.getEndDate());
+        deleted.setPlaceName("Bacia 1");
+        deleted.setItemName("Escavação");
+        deleted.setItemUnit("m3");
+        deleted.setPredictedValue(new BigDecimal("100.00"));
+        deleted.setAccumulatedValue(new BigDecimal("40.00"));
+
+        when(measurementPlaceItemClient.hasPermission(token, "deleteMeasurementPlaceItem"))
+                .thenReturn(Mono.just(ResponseEntity.ok("Permitido")));
+        when(measurementPlaceItemRepository.deleteByNaturalKey(CONTRACT, YEAR_MONTH, "Bacia 1", "Escavação", "m3"))
+                .thenReturn(Mono.just(deleted));
+        when(measurementPlaceItemClient.accumulate(eq(token), eq(CONTRACT), anyList(), anyList()))
+                .thenReturn(Mono.error(new ResponseStatusException(FAILED_DEPENDENCY, "placeItem fora do ar")));
+        when(measurementPlaceItemRepository.insertIfAbsent(CONTRACT, YEAR_MONTH, deleted.getStartDate(), deleted.getEndDate(),
+                "Bacia 1", "Escavação", "m3", new BigDecimal("100.00"), new BigDecimal("40.00")))
+                .thenReturn(Mono.just(1L));
+
+        StepVerifier.create(measurementPlaceItemService.deleteMeasurement(measurementPlaceItemDTO, token))
+                .assertNext(response -> {
+                    assertEquals(FAILED_DEPENDENCY, response.getStatusCode());
+                    assertEquals("Não foi possível estornar a quantidade no item da bacia; a medição foi mantida", response.getBody());
+                })
+                .verifyComplete();
+
+        verify(measurementPlaceItemRepository).insertIfAbsent(CONTRACT, YEAR_MONTH, deleted.getStartDate(), deleted.getEndDate(),
+                "Bacia 1", "Escavação", "m3", new BigDecimal("100.00"), new BigDecimal("40.00"));
+        assertEquals(List.of(new BigDecimal("-40.00")), deltasOfCall(0, 1));
+    }
+}
@@ -1,5 +1,7 @@
 package client;
 
+import authorization.PermissionDecisionCache;
+import authorization.PermissionEvaluator;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -20,14 +22,27 @@ public class PlaceClient {
 
     private final WebClient webClient;
     private final PlaceService placeService;
+    private final PermissionEvaluator permissionEvaluator;
+    private final PermissionDecisionCache permissionDecisionCache;
 
-    public PlaceClient(WebClient.Builder webClientBuilder, @Lazy PlaceService placeService) {
+    public PlaceClient(WebClient.Builder webClientBuilder, @Lazy PlaceService placeService, PermissionEvaluator permissionEvaluator, PermissionDecisionCache permissionDecisionCache) {
         this.webClient = webClientBuilder.baseUrl("lb://user").build();
         this.placeService = placeService;
+        this.permissionEvaluator = permissionEvaluator;
+        this.permissionDecisionCache = permissionDecisionCache;
     }
 
 
+    // No modo local a decisão sai da matriz em memória e da identidade do pedido; só a consulta remota vai para o cache.
     public Mono<ResponseEntity<String>> hasPermission(String token, String action) {
+        if (permissionEvaluator.isLocal()) {
+            return permissionEvaluator.hasPermission(token, action);
+        }
+
+        return permissionDecisionCache.get(token, action, () -> fetchPermission(token, action));
+    }
+
+    private Mono<ResponseEntity<String>> fetchPermission(String token, String action) {
         return webClient.post()
                 .uri("api/users/has-permission/{token}/{action}", token, action)
                 .header(HttpHeaders.AUTHORIZATION, token)
@@ -1,6 +1,7 @@
 package controller;
 
 import dto.PlaceDTO;
+import dto.PlaceExistBatchResponseDTO;
 import dto.PlaceRequestDTO;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -14,6 +15,8 @@ import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Mono;
 import service.PlaceService;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("api/places")
 @Tag(name = "Place Controller", description = "Controlador responsável pela criação, verificação e exclusão de bacias.")
@@ -106,4 +109,27 @@ public class PlaceController {
             @RequestHeader("Authorization") String token) {
         return placeService.existsByNameAndProjectContract(placeRequestDTO, token);
     }
+
+    @Operation(
+            summary = "Verifica a existência de várias bacias",
+            description = "Recebe uma lista de pares (nome, contrato), de um ou mais contratos, e responde na mesma ordem se cada bacia existe."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Lote verificado; exists[i] corresponde à i-ésima bacia enviada."),
+            @ApiResponse(responseCode = "400", description = "Lote vazio ou acima do tamanho máximo."),
+            @ApiResponse(responseCode = "403", description = "Ação não autorizada. Verifique o token."),
+            @ApiResponse(responseCode = "424", description = "Erro interno associado a uma dependência."),
+            @ApiResponse(responseCode = "500", description = "Erro interno.")
+    })
+    @PostMapping("/exist/batch")
+    public Mono<ResponseEntity<PlaceExistBatchResponseDTO>> existPlaceBatch(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    description = "Bacias (nome e contrato) a verificar.",
+                    required = true
+            )
+            @RequestBody List<PlaceRequestDTO> placeRequestDTOs,
+            @Parameter(description = "Token de autorização do usuário.", required = true, example = "Bearer <token>")
+            @RequestHeader("Authorization") String token) {
+        return placeService.existsBatch(placeRequestDTOs, token);
+    }
 }
@@ -0,0 +1,25 @@
+package dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// exists[i] indica se a i-ésima bacia (nome, contrato) da requisição existe.
+@Getter
+@Setter
+@NoArgsConstructor
+public class PlaceExistBatchResponseDTO {
+
+    private boolean[] exists;
+
+    private String message;
+
+    public PlaceExistBatchResponseDTO(boolean[] exists, String message) {
+        this.exists = exists;
+        this.message = message;
+    }
+
+    public static PlaceExistBatchResponseDTO error(String message) {
+        return new PlaceExistBatchResponseDTO(new boolean[0], message);
+    }
+}
@@ -2,12 +2,37 @@ package repository;
 
 import jakarta.validation.constraints.NotBlank;
 import model.Place;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @Repository
 public interface PlaceRepository extends R2dbcRepository<Place, Long> {
 
     Mono<Place> findByNameAndProjectContract(@NotBlank(message = "O nome nao pode ser vazio") String name, @NotBlank(message = "O contrato nao pode ser vazio") String projectContract);
-}
\ No newline at end of file
+
+    // 1 = criada, 0 = já existia; o índice único idx_name_projct_contract decide numa única ida ao banco.
+    @Modifying
+    @Query("INSERT INTO places (name, project_contract) VALUES (:name, :projectContract) ON CONFLICT (name, project_contract) DO NOTHING")
+    Mono<Long> insertIfAbsent(@Param("name") String name, @Param("projectContract") String projectContract);
+
+    // Exclusão pela chave natural sem carregar a linha antes: 1 = excluída, 0 = não existia.
+    @Modifying
+    @Query("DELETE FROM places WHERE name = :name AND project_contract = :projectContract")
+    Mono<Long> deleteByNameAndProjectContract(@Param("name") String name, @Param("projectContract") String projectContract);
+
+    // Só responde se a chave existe, resolvido pelo índice único idx_name_projct_contract, sem materializar a entidade.
+    @Query("SELECT EXISTS (SELECT 1 FROM places WHERE name = :name AND project_contract = :projectContract)")
+    Mono<Boolean> existsByNameAndProjectContract(@Param("name") String name, @Param("projectContract") String projectContract);
+
+    // Uma consulta para o lote inteiro, resolvida pelo índice único idx_name_projct_contract.
+    @Query("""
+            SELECT * FROM places
+            WHERE (name, project_contract) IN (SELECT n, c FROM unnest(CAST(:names AS text[]), CAST(:contracts AS text[])) AS pairs(n, c))
+            """)
+    Flux<Place> findAllByNameAndProjectContractIn(@Param("names") String[] names, @Param("contracts") String[] contracts);
+}
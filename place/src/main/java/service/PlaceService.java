@@ -2,14 +2,20 @@ package service;
 
 import client.PlaceClient;
 import dto.PlaceDTO;
+import dto.PlaceExistBatchResponseDTO;
 import dto.PlaceRequestDTO;
 import model.Place;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 import repository.PlaceRepository;
 
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 import static org.springframework.http.HttpStatus.*;
 
 @Service
@@ -18,6 +24,9 @@ public class PlaceService {
     private final PlaceRepository placeRepository;
     private final PlaceClient placeClient;
 
+    @Value("${places.exist-batch.max-size:1000}")
+    private int existBatchMaxSize = 1000;
+
     public PlaceService(PlaceRepository placeRepository, PlaceClient placeClient) {
         this.placeRepository = placeRepository;
         this.placeClient = placeClient;
@@ -43,22 +52,12 @@ public class PlaceService {
                                 .body("Erro ao verificar permissão: " + message));
                     }
 
-                    return placeRepository.findByNameAndProjectContract(placeDTO.getName(), placeDTO.getProjectContract())
-                            .flatMap(existingPlace ->
-                                    Mono.just(ResponseEntity.status(CONFLICT)
-                                            .body("A bacia: " + placeDTO.getName() + " já existe para o contrato: " + placeDTO.getProjectContract()))
-                            )
-                            .switchIfEmpty(
-                                    Mono.defer(() -> {
-                                        Place place = new Place();
-                                        place.setName(placeDTO.getName());
-                                        place.setProjectContract(placeDTO.getProjectContract());
-
-                                        return placeRepository.save(place)
-                                                .map(savedUser -> ResponseEntity.status(CREATED)
-                                                        .body("Bacia criada com sucesso"));
-                                    })
-                            );
+                    return placeRepository.insertIfAbsent(placeDTO.getName(), placeDTO.getProjectContract())
+                            .map(inserted -> inserted > 0
+                                    ? ResponseEntity.status(CREATED)
+                                            .body("Bacia criada com sucesso")
+                                    : ResponseEntity.status(CONFLICT)
+                                            .body("A bacia: " + placeDTO.getName() + " já existe para o contrato: " + placeDTO.getProjectContract()));
                 });
     }
 
@@ -82,13 +81,10 @@ public class PlaceService {
                                 .body("Erro ao verificar permissão: " + message));
                     }
 
-                    return placeRepository.findByNameAndProjectContract(placeDTO.getName(), placeDTO.getProjectContract())
-                            .flatMap(existingPlace ->
-                                    placeRepository.delete(existingPlace)
-                                            .then(Mono.just(ResponseEntity.status(HttpStatus.OK)
-                                                    .body("Bacia deletada com sucesso"))))
-                            .switchIfEmpty(Mono.just(ResponseEntity.status(NO_CONTENT)
-                                    .body("Bacia não encontrada com o nome e contrato de projeto fornecidos")));
+                    return placeRepository.deleteByNameAndProjectContract(placeDTO.getName(), placeDTO.getProjectContract())
+                            .map(deleted -> deleted > 0
+                                    ? ResponseEntity.status(HttpStatus.OK).body("Bacia deletada com sucesso")
+                                    : ResponseEntity.status(NO_CONTENT).body("Bacia não encontrada com o nome e contrato de projeto fornecidos"));
                 })
                 .onErrorResume(error -> Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                         .body("Erro ao processar a exclusão da bacia: " + error.getMessage())));
@@ -114,15 +110,70 @@ public class PlaceService {
                                 .body("Erro ao verificar permissão: " + message));
                     }
 
-                    return placeRepository.findByNameAndProjectContract(placeRequestDTO.getName(), placeRequestDTO.getContract())
-                            .flatMap(existingPlace ->
-                                    Mono.just(ResponseEntity.status(OK)
-                                            .body("Bacia encontrada")))
-                            .switchIfEmpty(
-                                    Mono.just(ResponseEntity.status(NO_CONTENT)
-                                            .body("Bacia não encontrada")));
+                    return placeRepository.existsByNameAndProjectContract(placeRequestDTO.getName(), placeRequestDTO.getContract())
+                            .map(exists -> exists
+                                    ? ResponseEntity.status(OK).body("Bacia encontrada")
+                                    : ResponseEntity.status(NO_CONTENT).body("Bacia não encontrada"));
                 })
                 .onErrorResume(error -> Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                         .body("Erro ao verificar a existência da bacia: " + error.getMessage())));
     }
+
+    public Mono<ResponseEntity<PlaceExistBatchResponseDTO>> existsBatch(List<PlaceRequestDTO> placeRequestDTOs, String token) {
+        String action = "existPlace";
+
+        if (placeRequestDTOs == null || placeRequestDTOs.isEmpty()) {
+            return Mono.just(ResponseEntity.status(BAD_REQUEST)
+                    .body(PlaceExistBatchResponseDTO.error("Informe ao menos uma bacia")));
+        }
+        if (placeRequestDTOs.size() > existBatchMaxSize) {
+            return Mono.just(ResponseEntity.status(BAD_REQUEST)
+                    .body(PlaceExistBatchResponseDTO.error("O lote pode ter no máximo " + existBatchMaxSize + " bacias")));
+        }
+
+        return placeClient.hasPermission(token, action)
+                .flatMap(responseEntity -> {
+                    HttpStatus status = (HttpStatus) responseEntity.getStatusCode();
+                    String message = responseEntity.getBody();
+
+                    if (status == NOT_FOUND) {
+                        return Mono.just(ResponseEntity.status(NOT_FOUND)
+                                .body(PlaceExistBatchResponseDTO.error("Ação não encontrada: " + action)));
+                    } else if (status == FORBIDDEN) {
+                        return Mono.just(ResponseEntity.status(FORBIDDEN)
+                                .body(PlaceExistBatchResponseDTO.error("Sem permissão para realizar essa ação")));
+                    } else if (status != OK) {
+                        return Mono.just(ResponseEntity.status(FAILED_DEPENDENCY)
+                                .body(PlaceExistBatchResponseDTO.error("Erro ao verificar permissão: " + message)));
+                    }
+
+                    String[] names = new String[placeRequestDTOs.size()];
+                    String[] contracts = new String[placeRequestDTOs.size()];
+                    for (int i = 0; i < placeRequestDTOs.size(); i++) {
+                        names[i] = placeRequestDTOs.get(i).getName();
+                        contracts[i] = placeRequestDTOs.get(i).getContract();
+                    }
+
+                    return placeRepository.findAllByNameAndProjectContractIn(names, contracts)
+                            .map(place -> new PlaceKey(place.getName(), place.getProjectContract()))
+                            .collect(HashSet<PlaceKey>::new, Set::add)
+                            .map(found -> {
+                                boolean[] exists = new boolean[names.length];
+                                int count = 0;
+                                for (int i = 0; i < names.length; i++) {
+                                    exists[i] = found.contains(new PlaceKey(names[i], contracts[i]));
+                                    if (exists[i]) {
+                                        count++;
+                                    }
+                                }
+                                return ResponseEntity.ok(new PlaceExistBatchResponseDTO(exists,
+                                        count + " de " + names.length + " bacias encontradas"));
+                            });
+                })
+                .onErrorResume(error -> Mono.just(ResponseEntity.status(INTERNAL_SERVER_ERROR)
+                        .body(PlaceExistBatchResponseDTO.error("Erro ao verificar a existência das bacias: " + error.getMessage()))));
+    }
+
+    private record PlaceKey(String name, String contract) {
+    }
 }
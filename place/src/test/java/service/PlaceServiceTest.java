@@ -2,6 +2,7 @@ package service;
 
 import client.PlaceClient;
 import dto.PlaceDTO;
+import dto.PlaceExistBatchResponseDTO;
 import dto.PlaceRequestDTO;
 import model.Place;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,13 +12,19 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 import repository.PlaceRepository;
 
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.http.HttpStatus.*;
 
@@ -46,11 +53,8 @@ class PlaceServiceTest {
         when(placeClient.hasPermission(any(), eq("createPlace")))
                 .thenReturn(Mono.just(ResponseEntity.ok("Permission Granted")));
 
-        when(placeRepository.findByNameAndProjectContract(placeDTO.getName(), placeDTO.getProjectContract()))
-                .thenReturn(Mono.empty());
-
-        when(placeRepository.save(any(Place.class)))
-                .thenReturn(Mono.just(new Place("Test Place", "Test Contract")));
+        when(placeRepository.insertIfAbsent(placeDTO.getName(), placeDTO.getProjectContract()))
+                .thenReturn(Mono.just(1L));
 
         StepVerifier.create(placeService.createPlace(placeDTO, "test-token"))
                 .assertNext(response -> {
@@ -69,8 +73,8 @@ class PlaceServiceTest {
         when(placeClient.hasPermission(any(), eq("createPlace")))
                 .thenReturn(Mono.just(ResponseEntity.ok("Permission Granted")));
 
-        when(placeRepository.findByNameAndProjectContract(placeDTO.getName(), placeDTO.getProjectContract()))
-                .thenReturn(Mono.just(new Place("Existing Place", "Existing Contract")));
+        when(placeRepository.insertIfAbsent(placeDTO.getName(), placeDTO.getProjectContract()))
+                .thenReturn(Mono.just(0L));
 
         StepVerifier.create(placeService.createPlace(placeDTO, "test-token"))
                 .assertNext(response -> {
@@ -106,8 +110,8 @@ class PlaceServiceTest {
         when(placeClient.hasPermission(any(), eq("deletePlace")))
                 .thenReturn(Mono.just(ResponseEntity.ok("Permission Granted")));
 
-        when(placeRepository.findByNameAndProjectContract(placeDTO.getName(), placeDTO.getProjectContract()))
-                .thenReturn(Mono.empty());
+        when(placeRepository.deleteByNameAndProjectContract(placeDTO.getName(), placeDTO.getProjectContract()))
+                .thenReturn(Mono.just(0L));
 
         StepVerifier.create(placeService.deletePlace(placeDTO, "test-token"))
                 .assertNext(response -> {
@@ -143,8 +147,8 @@ class PlaceServiceTest {
         when(placeClient.hasPermission(any(), eq("existPlace")))
                 .thenReturn(Mono.just(ResponseEntity.ok("Permission Granted")));
 
-        when(placeRepository.findByNameAndProjectContract(requestDTO.getName(), requestDTO.getContract()))
-                .thenReturn(Mono.just(new Place("Existing Place", "Existing Contract")));
+        when(placeRepository.existsByNameAndProjectContract(requestDTO.getName(), requestDTO.getContract()))
+                .thenReturn(Mono.just(true));
 
         StepVerifier.create(placeService.existsByNameAndProjectContract(requestDTO, "test-token"))
                 .assertNext(response -> {
@@ -163,8 +167,8 @@ class PlaceServiceTest {
         when(placeClient.hasPermission(any(), eq("existPlace")))
                 .thenReturn(Mono.just(ResponseEntity.ok("Permission Granted")));
 
-        when(placeRepository.findByNameAndProjectContract(requestDTO.getName(), requestDTO.getContract()))
-                .thenReturn(Mono.empty());
+        when(placeRepository.existsByNameAndProjectContract(requestDTO.getName(), requestDTO.getContract()))
+                .thenReturn(Mono.just(false));
 
         StepVerifier.create(placeService.existsByNameAndProjectContract(requestDTO, "test-token"))
                 .assertNext(response -> {
@@ -174,5 +178,56 @@ class PlaceServiceTest {
                 .verifyComplete();
     }
 
+    @Test
+    @DisplayName("Deve responder todas as bacias do lote, de contratos diferentes, com uma única consulta")
+    void testExistsBatch_ShouldReturnExistsInRequestOrder() {
+
+        List<PlaceRequestDTO> requests = List.of(
+                placeRequest("Bacia 1", "Contrato A"),
+                placeRequest("Bacia 2", "Contrato A"),
+                placeRequest("Bacia 1", "Contrato B"));
+
+        when(placeClient.hasPermission(any(), eq("existPlace")))
+                .thenReturn(Mono.just(ResponseEntity.ok("Permission Granted")));
+
+        when(placeRepository.findAllByNameAndProjectContractIn(any(), any()))
+                .thenReturn(Flux.just(new Place("Bacia 1", "Contrato A"), new Place("Bacia 1", "Contrato B")));
 
+        StepVerifier.create(placeService.existsBatch(requests, "test-token"))
+                .assertNext(response -> {
+                    assertEquals(OK, response.getStatusCode());
+                    PlaceExistBatchResponseDTO body = response.getBody();
+                    assertArrayEquals(new boolean[]{true, false, true}, body.getExists());
+                    assertEquals("2 de 3 bacias encontradas", body.getMessage());
+                })
+                .verifyComplete();
+
+        verify(placeRepository).findAllByNameAndProjectContractIn(
+                new String[]{"Bacia 1", "Bacia 2", "Bacia 1"},
+                new String[]{"Contrato A", "Contrato A", "Contrato B"});
+    }
+
+    @Test
+    @DisplayName("Deve retornar FORBIDDEN no existsBatch sem consultar o banco")
+    void testExistsBatch_ShouldReturnForbidden() {
+
+        when(placeClient.hasPermission(any(), eq("existPlace")))
+                .thenReturn(Mono.just(ResponseEntity.status(FORBIDDEN).body("Permission Denied")));
+
+        StepVerifier.create(placeService.existsBatch(List.of(placeRequest("Bacia 1", "Contrato A")), "test-token"))
+                .assertNext(response -> {
+                    assertEquals(FORBIDDEN, response.getStatusCode());
+                    assertEquals("Sem permissão para realizar essa ação", response.getBody().getMessage());
+                })
+                .verifyComplete();
+
+        verifyNoInteractions(placeRepository);
+    }
+
+    private static PlaceRequestDTO placeRequest(String name, String contract) {
+        PlaceRequestDTO requestDTO = new PlaceRequestDTO();
+        requestDTO.setName(name);
+        requestDTO.setContract(contract);
+        return requestDTO;
+    }
 }
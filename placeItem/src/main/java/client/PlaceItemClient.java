@@ -1,7 +1,13 @@
 package client;
 
+import authorization.PermissionDecisionCache;
+import authorization.PermissionEvaluator;
+import authorization.ReferenceReplica;
 
+import dto.ItemExistBatchResponseDTO;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -13,6 +19,8 @@ import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Mono;
 import service.PlaceItemService;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 @Component
@@ -22,14 +30,31 @@ public class PlaceItemClient {
 
     private final WebClient webClient;
     private final PlaceItemService placeItemService;
+    private final PermissionEvaluator permissionEvaluator;
+    private final PermissionDecisionCache permissionDecisionCache;
+    private final ReferenceReplica itemReplica;
+    private final ReferenceReplica placeReplica;
 
-    public PlaceItemClient(WebClient.Builder webClientBuilder, @Lazy PlaceItemService placeItemService) {
+    public PlaceItemClient(WebClient.Builder webClientBuilder, @Lazy PlaceItemService placeItemService, PermissionEvaluator permissionEvaluator, PermissionDecisionCache permissionDecisionCache, @Qualifier("itemReplica") ReferenceReplica itemReplica, @Qualifier("placeReplica") ReferenceReplica placeReplica) {
         this.webClient = webClientBuilder.build();
         this.placeItemService = placeItemService;
+        this.permissionEvaluator = permissionEvaluator;
+        this.permissionDecisionCache = permissionDecisionCache;
+        this.itemReplica = itemReplica;
+        this.placeReplica = placeReplica;
     }
 
 
+    // No modo local a decisão sai da matriz em memória e da identidade do pedido; só a consulta remota vai para o cache.
     public Mono<ResponseEntity<String>> hasPermission(String token, String action) {
+        if (permissionEvaluator.isLocal()) {
+            return permissionEvaluator.hasPermission(token, action);
+        }
+
+        return permissionDecisionCache.get(token, action, () -> fetchPermission(token, action));
+    }
+
+    private Mono<ResponseEntity<String>> fetchPermission(String token, String action) {
         return webClient.post()
                 .uri("lb://user/api/users/has-permission/{token}/{action}", token, action)
                 .header(HttpHeaders.AUTHORIZATION, token)
@@ -43,7 +68,24 @@ public class PlaceItemClient {
                 );
     }
 
+    // Um acerto na réplica só vale se a role puder consultar no serviço dono (existAction), que recusaria a chamada
+    // remota; sem a permissão, a consulta segue para o dono e a recusa vem dele.
+    private Mono<Boolean> canUseReplica(String token, String existAction) {
+        return hasPermission(token, existAction)
+                .map(responseEntity -> responseEntity.getStatusCode() == HttpStatus.OK)
+                .onErrorReturn(false);
+    }
+
     public Mono<ResponseEntity<String>> itemExists(String token, String name, String unit) {
+        // Presença na réplica local dispensa a chamada; ausência é confirmada no serviço dono, que pode ter acabado de criar.
+        if (itemReplica.isReady() && itemReplica.contains(name, unit)) {
+            return canUseReplica(token, "existItem")
+                    .flatMap(allowed -> allowed ? Mono.just(ResponseEntity.ok("Item encontrado")) : fetchItemExists(token, name, unit));
+        }
+        return fetchItemExists(token, name, unit);
+    }
+
+    private Mono<ResponseEntity<String>> fetchItemExists(String token, String name, String unit) {
         // Cria um DTO ou Map para representar o corpo da requisição
         Map<String, String> requestBody = Map.of(
                 "name", name,
@@ -79,7 +121,59 @@ public class PlaceItemClient {
                 });
     }
 
+    // Um resultado por par (nome, unidade), na mesma ordem. O que a réplica já conhece não vai para o serviço item;
+    // o restante segue numa única chamada ao lote.
+    public Mono<boolean[]> itemsExist(String token, List<String> names, List<String> units) {
+        Mono<Boolean> useReplica = itemReplica.isReady() ? canUseReplica(token, "existItem") : Mono.just(false);
+        return useReplica.flatMap(allowed -> itemsExist(token, names, units, allowed));
+    }
+
+    private Mono<boolean[]> itemsExist(String token, List<String> names, List<String> units, boolean useReplica) {
+        boolean[] exists = new boolean[names.size()];
+        List<Integer> misses = new ArrayList<>();
+        for (int i = 0; i < names.size(); i++) {
+            exists[i] = useReplica && itemReplica.contains(names.get(i), units.get(i));
+            if (!exists[i]) {
+                misses.add(i);
+            }
+        }
+        if (misses.isEmpty()) {
+            return Mono.just(exists);
+        }
+
+        List<Map<String, String>> requestBody = misses.stream()
+                .map(i -> Map.of("name", names.get(i), "unit", units.get(i)))
+                .toList();
+
+        return webClient.post()
+                .uri("lb://item/api/itens/exist/batch")
+                .header(HttpHeaders.AUTHORIZATION, token)
+                .bodyValue(requestBody)
+                .exchangeToMono(clientResponse -> clientResponse.toEntity(ItemExistBatchResponseDTO.class))
+                .flatMap(response -> {
+                    ItemExistBatchResponseDTO body = response.getBody();
+                    if (response.getStatusCode() != HttpStatus.OK || body == null
+                            || body.getExists() == null || body.getExists().length != misses.size()) {
+                        String reason = body != null ? body.getMessage() : null;
+                        return Mono.error(new ResponseStatusException(HttpStatus.FAILED_DEPENDENCY,
+                                "Erro ao verificar existência dos itens" + (reason != null ? ": " + reason : "")));
+                    }
+                    for (int k = 0; k < misses.size(); k++) {
+                        exists[misses.get(k)] = body.getExists()[k];
+                    }
+                    return Mono.just(exists);
+                });
+    }
+
     public Mono<ResponseEntity<String>> placeExists(String token, String name, String contract) {
+        if (placeReplica.isReady() && placeReplica.contains(name, contract)) {
+            return canUseReplica(token, "existPlace")
+                    .flatMap(allowed -> allowed ? Mono.just(ResponseEntity.ok("Bacia encontrada")) : fetchPlaceExists(token, name, contract));
+        }
+        return fetchPlaceExists(token, name, contract);
+    }
+
+    private Mono<ResponseEntity<String>> fetchPlaceExists(String token, String name, String contract) {
         // Cria um DTO ou Map para representar o corpo da requisição
         Map<String, String> requestBody = Map.of(
                 "name", name,
@@ -115,31 +209,26 @@ public class PlaceItemClient {
                 });
     }
 
-    public Mono<ResponseEntity<String>> getEmailByToken(String token) {
+    // Contratos em que o e-mail participa. O serviço project responde 404 quando não há nenhum.
+    public Mono<List<String>> getContractsByEmail(String email, String token) {
         return webClient.get()
-                .uri("lb://user/api/users/get-email-by-token")
+                .uri("lb://project/api/projects/get-contracts-by-email?userEmail={email}", email)
                 .header(HttpHeaders.AUTHORIZATION, token)
-                .retrieve()
-                .onStatus(HttpStatus.NOT_FOUND::equals, clientResponse ->
-                        Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "Ação não encontrada"))
-                )
-                .toEntity(String.class)
-                .onErrorResume(ResponseStatusException.class, ex ->
-                        Mono.just(ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getReason()))
-                );
-    }
+                .exchangeToMono(clientResponse -> {
+                    HttpStatus statusCode = (HttpStatus) clientResponse.statusCode();
 
-    public Mono<ResponseEntity<String>> getProjectsContractsByEmail(String email, String token) {
-        return webClient.get()
-                .uri("lb://project/api/projects/get-contracts-by-email?email={email}", email)
-                .header(HttpHeaders.AUTHORIZATION, token)
-                .retrieve()
-                .onStatus(HttpStatus.NOT_FOUND::equals, clientResponse ->
-                        Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "Ação não encontrada"))
-                )
-                .toEntity(String.class)
-                .onErrorResume(ResponseStatusException.class, ex ->
-                        Mono.just(ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getReason()))
-                );
+                    if (statusCode == HttpStatus.NOT_FOUND) {
+                        return clientResponse.releaseBody().thenReturn(List.<String>of());
+                    }
+
+                    if (statusCode.isError()) {
+                        return clientResponse.bodyToMono(String.class)
+                                .defaultIfEmpty("")
+                                .flatMap(errorBody -> Mono.error(new ResponseStatusException(statusCode, errorBody)));
+                    }
+
+                    return clientResponse.bodyToMono(new ParameterizedTypeReference<List<String>>() {
+                    }).defaultIfEmpty(List.of());
+                });
     }
 }
@@ -0,0 +1,26 @@
+package config;
+
+import authorization.ContractScopeResolver;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+// Contratos por usuário guardados localmente; scope.projects.url aponta para o banco do serviço project, de onde
+// chegam os avisos de mudança de participação. Sem ela, só o ttl limita o quanto a lista pode ficar desatualizada.
+@Configuration
+public class ContractScopeConfig {
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public ContractScopeResolver contractScopeResolver(@Value("${scope.projects.url:}") String url,
+                                                       @Value("${spring.r2dbc.username}") String username,
+                                                       @Value("${spring.r2dbc.password}") String password,
+                                                       @Value("${scope.contracts.ttl:5m}") Duration ttl,
+                                                       @Value("${scope.contracts.maximum-size:10000}") long maximumSize,
+                                                       ObjectProvider<MeterRegistry> meterRegistry) {
+        return new ContractScopeResolver(url, username, password, ttl, maximumSize, meterRegistry.getIfAvailable());
+    }
+}
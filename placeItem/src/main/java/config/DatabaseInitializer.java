@@ -1,33 +1,155 @@
 package config;
 
-import org.springframework.boot.CommandLineRunner;
-import org.springframework.context.annotation.Bean;
-import org.springframework.r2dbc.core.DatabaseClient;
+import authorization.SchemaMigrations;
+import io.r2dbc.spi.ConnectionFactory;
+import jakarta.annotation.PostConstruct;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
+import static authorization.SchemaMigrations.migration;
+
 @Component
 public class DatabaseInitializer {
 
-    @Bean
-    public CommandLineRunner initializeDatabase(DatabaseClient client) {
-        return args -> {
-            client.sql("CREATE SCHEMA IF NOT EXISTS app;")
-                    .then()
-                    .then(client.sql("SET search_path TO app, public;").then())
-                    .then(client.sql("""
-                                                CREATE TABLE IF NOT EXISTS place_itens (
-                            id SERIAL PRIMARY KEY,
-                            place_name VARCHAR(255),
-                            project_contract VARCHAR(255),
-                            item_name VARCHAR(255),
-                            item_unit VARCHAR(50),
-                            predicted_value DECIMAL(19, 2),
-                            accumulated_value DECIMAL(19, 2)
-                                                );
-                            """).then())
-                    .doOnSuccess(unused -> System.out.println("Tabela 'projects' configurada com sucesso com índices!"))
-                    .doOnError(error -> System.err.println("Erro ao configurar tabela 'projects': " + error.getMessage()))
-                    .subscribe();
-        };
+    // Versões já aplicadas não mudam: alteração de esquema entra como uma nova versão no fim da lista.
+    static final SchemaMigrations MIGRATIONS = new SchemaMigrations("app", List.of(
+            migration(1, "Tabela place_itens com índice único pela chave natural",
+                    """
+                    CREATE TABLE IF NOT EXISTS place_itens (
+                        id SERIAL PRIMARY KEY,
+                        place_name VARCHAR(255),
+                        project_contract VARCHAR(255),
+                        item_name VARCHAR(255),
+                        item_unit VARCHAR(50),
+                        predicted_value DECIMAL(19, 2),
+                        accumulated_value DECIMAL(19, 2)
+                    );
+                    """,
+                    // Um item por bacia. Duplicatas de antes do índice único ficam só com a mais antiga.
+                    "DELETE FROM place_itens a USING place_itens b " +
+                            "WHERE a.id > b.id AND a.place_name = b.place_name AND a.project_contract = b.project_contract " +
+                            "AND a.item_name = b.item_name AND a.item_unit = b.item_unit;",
+                    "CREATE UNIQUE INDEX IF NOT EXISTS idx_place_itens_place_item " +
+                            "ON place_itens(place_name, project_contract, item_name, item_unit);",
+                    "CREATE INDEX IF NOT EXISTS idx_place_itens_contract_id ON place_itens(project_contract, id);"),
+            migration(2, "Feed de alterações de place_itens",
+                    """
+                    CREATE TABLE IF NOT EXISTS change_events (
+                        seq BIGSERIAL PRIMARY KEY,
+                        entity VARCHAR(64) NOT NULL,
+                        op CHAR(1) NOT NULL,
+                        entity_key TEXT NOT NULL,
+                        created_at TIMESTAMP NOT NULL DEFAULT now()
+                    );
+                    """,
+                    "CREATE INDEX IF NOT EXISTS idx_change_events_entity_seq ON change_events (entity, seq);",
+                    """
+                    CREATE OR REPLACE FUNCTION publish_change() RETURNS TRIGGER AS $$
+                    DECLARE
+                        event_seq BIGINT;
+                        old_key TEXT;
+                        new_key TEXT;
+                    BEGIN
+                        IF TG_OP IN ('UPDATE', 'DELETE') THEN
+                            SELECT string_agg(coalesce(to_jsonb(OLD) ->> c.col, ''), chr(31) ORDER BY c.ord)
+                            INTO old_key FROM unnest(TG_ARGV) WITH ORDINALITY AS c(col, ord);
+                        END IF;
+                        IF TG_OP IN ('UPDATE', 'INSERT') THEN
+                            SELECT string_agg(coalesce(to_jsonb(NEW) ->> c.col, ''), chr(31) ORDER BY c.ord)
+                            INTO new_key FROM unnest(TG_ARGV) WITH ORDINALITY AS c(col, ord);
+                        END IF;
+                        IF old_key IS NOT DISTINCT FROM new_key THEN
+                            RETURN NULL;
+                        END IF;
+
+                        PERFORM pg_advisory_xact_lock(hashtext('change_events'));
+
+                        IF old_key IS NOT NULL THEN
+                            INSERT INTO change_events (entity, op, entity_key) VALUES (TG_TABLE_NAME, 'D', old_key)
+                            RETURNING seq INTO event_seq;
+                        END IF;
+                        IF new_key IS NOT NULL THEN
+                            INSERT INTO change_events (entity, op, entity_key) VALUES (TG_TABLE_NAME, 'I', new_key)
+                            RETURNING seq INTO event_seq;
+                        END IF;
+
+                        PERFORM pg_notify(TG_TABLE_NAME || '_changes', event_seq::text);
+                        RETURN NULL;
+                    END;
+                    $$ LANGUAGE plpgsql;
+                    """,
+                    "CREATE OR REPLACE TRIGGER trg_place_itens_changes AFTER INSERT OR UPDATE OF place_name, project_contract, item_name, item_unit OR DELETE ON place_itens " +
+                            "FOR EACH ROW EXECUTE FUNCTION publish_change('place_name', 'project_contract', 'item_name', 'item_unit');",
+                    "INSERT INTO change_events (entity, op, entity_key) SELECT 'place_itens', 'I', coalesce(place_name::text, '') || chr(31) || coalesce(project_contract::text, '') || chr(31) || coalesce(item_name::text, '') || chr(31) || coalesce(item_unit::text, '') " +
+                            "FROM place_itens WHERE NOT EXISTS (SELECT 1 FROM change_events WHERE entity = 'place_itens');"),
+            // Toda consulta filtra pelo contrato: com ele na frente, a chave única também atende buscas só por contrato
+            // ou por contrato e bacia. Sem NOT NULL a chave não era única de fato (NULLs nunca conflitam); linhas com
+            // chave incompleta não são alcançáveis por nenhuma operação e saem.
+            migration(3, "Chave de place_itens obrigatória e indexada a partir do contrato",
+                    "DELETE FROM place_itens WHERE place_name IS NULL OR project_contract IS NULL OR item_name IS NULL OR item_unit IS NULL;",
+                    """
+                    ALTER TABLE place_itens
+                        ALTER COLUMN place_name SET NOT NULL,
+                        ALTER COLUMN project_contract SET NOT NULL,
+                        ALTER COLUMN item_name SET NOT NULL,
+                        ALTER COLUMN item_unit SET NOT NULL;
+                    """,
+                    "CREATE UNIQUE INDEX IF NOT EXISTS idx_place_itens_key " +
+                            "ON place_itens(project_contract, place_name, item_name, item_unit);",
+                    "DROP INDEX IF EXISTS idx_place_itens_place_item;",
+                    // O acumulado só desce até zero (addToAccumulated); NOT VALID não reverifica o histórico.
+                    "ALTER TABLE place_itens ADD CONSTRAINT chk_place_itens_accumulated_non_negative " +
+                            "CHECK (accumulated_value >= 0) NOT VALID;"),
+            // De cada chave fica só o último evento; exclusões saem depois da retenção e movem o horizonte das réplicas.
+            migration(4, "Compactação do change_events",
+                    """
+                    CREATE TABLE IF NOT EXISTS change_events_horizon (
+                        entity VARCHAR(64) PRIMARY KEY,
+                        purged_seq BIGINT NOT NULL
+                    );
+                    """,
+                    "CREATE INDEX IF NOT EXISTS idx_change_events_entity_key_seq ON change_events (entity, entity_key, seq);",
+                    """
+                    CREATE OR REPLACE FUNCTION compact_change_events(tombstone_retention INTERVAL) RETURNS BIGINT AS $$
+                    DECLARE
+                        superseded BIGINT;
+                        purged BIGINT;
+                    BEGIN
+                        DELETE FROM change_events c
+                        WHERE EXISTS (SELECT 1 FROM change_events n
+                                      WHERE n.entity = c.entity AND n.entity_key = c.entity_key AND n.seq > c.seq);
+                        GET DIAGNOSTICS superseded = ROW_COUNT;
+
+                        WITH tombstones AS (
+                            DELETE FROM change_events
+                            WHERE op = 'D' AND created_at < now() - tombstone_retention
+                            RETURNING entity, seq
+                        ), horizon AS (
+                            INSERT INTO change_events_horizon (entity, purged_seq)
+                            SELECT entity, max(seq) FROM tombstones GROUP BY entity
+                            ON CONFLICT (entity) DO UPDATE
+                                SET purged_seq = GREATEST(change_events_horizon.purged_seq, EXCLUDED.purged_seq)
+                        )
+                        SELECT count(*) INTO purged FROM tombstones;
+
+                        RETURN superseded + purged;
+                    END;
+                    $$ LANGUAGE plpgsql;
+                    """)
+    ));
+
+    private final ConnectionFactory connectionFactory;
+
+    public DatabaseInitializer(ConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+    }
+
+    // Roda na criação do contexto, antes de o servidor web abrir a porta e de o serviço se registrar no Eureka: só
+    // recebe tráfego com o esquema atualizado, e a subida falha se a migração falhar.
+    @PostConstruct
+    public void migrate() {
+        Long applied = MIGRATIONS.apply(connectionFactory).block();
+        System.out.println("Esquema de 'place_itens' atualizado: " + applied + " migração(ões) aplicada(s)");
     }
 }
@@ -1,12 +1,24 @@
 package controller;
 
+import authorization.IdentitySigner;
+import dto.AccumulationDTO;
+import dto.AccumulationResultDTO;
+import dto.BillOfQuantitiesDTO;
+import dto.BillOfQuantitiesResultDTO;
+import dto.PlaceItemExistBatchResponseDTO;
+import dto.PlaceItemPageDTO;
 import dto.PlaceItemRequestDTO;
+import model.PlaceItem;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import service.PlaceItemService;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("api/placesitens")
 public class PlaceItemController {
@@ -20,6 +32,11 @@ public class PlaceItemController {
         return placeItemService.createPlaceItem(placeItemRequestDTO, token);
     }
 
+    @PostMapping("/bill-of-quantities")
+    public Mono<ResponseEntity<BillOfQuantitiesResultDTO>> createBillOfQuantities(@RequestBody BillOfQuantitiesDTO billOfQuantitiesDTO, @RequestHeader("Authorization") String token) {
+        return placeItemService.createBillOfQuantities(billOfQuantitiesDTO, token);
+    }
+
     @PostMapping("/delete")
     public Mono<ResponseEntity<String>> deletePlaceItem(@RequestBody PlaceItemRequestDTO placeItemRequestDTO, @RequestHeader("Authorization") String token) {
         return placeItemService.deletePlaceItem(placeItemRequestDTO, token);
@@ -30,8 +47,31 @@ public class PlaceItemController {
         return placeItemService.existsByNameAndContract(placeItemRequestDTO, token);
     }
 
+    @PostMapping("/exist/batch")
+    public Mono<ResponseEntity<PlaceItemExistBatchResponseDTO>> existPlaceItemBatch(@RequestBody List<PlaceItemRequestDTO> placeItemRequestDTOs, @RequestHeader("Authorization") String token) {
+        return placeItemService.existsBatch(placeItemRequestDTOs, token);
+    }
+
+    @PostMapping("/accumulate")
+    public Mono<ResponseEntity<AccumulationResultDTO>> accumulate(@RequestBody AccumulationDTO accumulationDTO, @RequestHeader("Authorization") String token,
+                                                                  @RequestHeader(value = IdentitySigner.SERVICE_HEADER, required = false) String serviceIdentity) {
+        return placeItemService.accumulate(accumulationDTO, token, serviceIdentity);
+    }
+
     @GetMapping("/get-places-itens-by-token")
     public Mono<ResponseEntity<?>> getAllPlacesItensByToken(@RequestHeader("Authorization") String token) {
         return placeItemService.getAllPlaceItensByToken(token);
     }
-}
\ No newline at end of file
+
+    @GetMapping(value = "/get-places-itens-by-token/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Mono<ResponseEntity<Flux<PlaceItem>>> streamPlacesItensByToken(@RequestHeader("Authorization") String token) {
+        return placeItemService.streamPlaceItensByToken(token);
+    }
+
+    @GetMapping("/get-places-itens-by-token/page")
+    public Mono<ResponseEntity<PlaceItemPageDTO>> getPlacesItensPageByToken(@RequestHeader("Authorization") String token,
+                                                                            @RequestParam(defaultValue = "0") long afterId,
+                                                                            @RequestParam(defaultValue = "100") int limit) {
+        return placeItemService.getPlaceItensPageByToken(token, afterId, limit);
+    }
+}
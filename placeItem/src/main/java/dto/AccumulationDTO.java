@@ -0,0 +1,23 @@
+package dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+// Quantidades medidas a lançar (delta positivo) ou estornar (negativo) nos itens das bacias de um contrato.
+@Getter
+@Setter
+@NoArgsConstructor
+public class AccumulationDTO {
+
+    private String projectContract;
+
+    private List<AccumulationLineDTO> lines;
+
+    public AccumulationDTO(String projectContract, List<AccumulationLineDTO> lines) {
+        this.projectContract = projectContract;
+        this.lines = lines;
+    }
+}
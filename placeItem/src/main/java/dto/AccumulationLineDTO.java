@@ -0,0 +1,28 @@
+package dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class AccumulationLineDTO {
+
+    private String placeName;
+
+    private String itemName;
+
+    private String itemUnit;
+
+    private BigDecimal delta;
+
+    public AccumulationLineDTO(String placeName, String itemName, String itemUnit, BigDecimal delta) {
+        this.placeName = placeName;
+        this.itemName = itemName;
+        this.itemUnit = itemUnit;
+        this.delta = delta;
+    }
+}
@@ -0,0 +1,36 @@
+package dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// status[i] é a situação da i-ésima linha: APPLIED, EXCEEDS_PREDICTED (o lançamento ultrapassaria a quantidade
+// prevista) ou PLACE_ITEM_NOT_FOUND (o item não existe na bacia). applied[i] equivale a status[i] == APPLIED.
+@Getter
+@Setter
+@NoArgsConstructor
+public class AccumulationResultDTO {
+
+    public static final String APPLIED = "APPLIED";
+    public static final String EXCEEDS_PREDICTED = "EXCEEDS_PREDICTED";
+    public static final String PLACE_ITEM_NOT_FOUND = "PLACE_ITEM_NOT_FOUND";
+
+    private boolean[] applied;
+
+    private String[] status;
+
+    private String message;
+
+    public AccumulationResultDTO(String[] status, String message) {
+        this.status = status;
+        this.applied = new boolean[status.length];
+        for (int i = 0; i < status.length; i++) {
+            this.applied[i] = APPLIED.equals(status[i]);
+        }
+        this.message = message;
+    }
+
+    public static AccumulationResultDTO error(String message) {
+        return new AccumulationResultDTO(new String[0], message);
+    }
+}
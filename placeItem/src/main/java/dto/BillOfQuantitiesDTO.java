@@ -0,0 +1,26 @@
+package dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+// Planilha de quantidades de uma bacia: todos os itens previstos de uma vez.
+@Getter
+@Setter
+@NoArgsConstructor
+public class BillOfQuantitiesDTO {
+
+    private String placeName;
+
+    private String projectContract;
+
+    private List<BillOfQuantitiesLineDTO> lines;
+
+    public BillOfQuantitiesDTO(String placeName, String projectContract, List<BillOfQuantitiesLineDTO> lines) {
+        this.placeName = placeName;
+        this.projectContract = projectContract;
+        this.lines = lines;
+    }
+}
@@ -0,0 +1,25 @@
+package dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class BillOfQuantitiesLineDTO {
+
+    private String itemName;
+
+    private String itemUnit;
+
+    private BigDecimal predictedValue;
+
+    public BillOfQuantitiesLineDTO(String itemName, String itemUnit, BigDecimal predictedValue) {
+        this.itemName = itemName;
+        this.itemUnit = itemUnit;
+        this.predictedValue = predictedValue;
+    }
+}
@@ -0,0 +1,32 @@
+package dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class BillOfQuantitiesResultDTO {
+
+    private int created;
+
+    private int failed;
+
+    private List<LineOutcomeDTO> lines;
+
+    private String message;
+
+    public BillOfQuantitiesResultDTO(int created, int failed, List<LineOutcomeDTO> lines, String message) {
+        this.created = created;
+        this.failed = failed;
+        this.lines = lines;
+        this.message = message;
+    }
+
+    public static BillOfQuantitiesResultDTO error(String message) {
+        return new BillOfQuantitiesResultDTO(0, 0, List.of(), message);
+    }
+}
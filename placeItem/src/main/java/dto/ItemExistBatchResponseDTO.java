@@ -0,0 +1,16 @@
+package dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Resposta de POST /api/itens/exist/batch do serviço item.
+@Getter
+@Setter
+@NoArgsConstructor
+public class ItemExistBatchResponseDTO {
+
+    private boolean[] exists;
+
+    private String message;
+}
@@ -0,0 +1,30 @@
+package dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// line é a posição (a partir de 0) na lista enviada.
+@Getter
+@Setter
+@NoArgsConstructor
+public class LineOutcomeDTO {
+
+    public static final String CREATED = "CREATED";
+    public static final String ALREADY_EXISTS = "ALREADY_EXISTS";
+    public static final String DUPLICATE_LINE = "DUPLICATE_LINE";
+    public static final String ITEM_NOT_FOUND = "ITEM_NOT_FOUND";
+    public static final String INVALID = "INVALID";
+
+    private int line;
+
+    private String status;
+
+    private String message;
+
+    public LineOutcomeDTO(int line, String status, String message) {
+        this.line = line;
+        this.status = status;
+        this.message = message;
+    }
+}
@@ -0,0 +1,25 @@
+package dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// exists[i] indica se o i-ésimo item de bacia (bacia, contrato, item, unidade) da requisição existe.
+@Getter
+@Setter
+@NoArgsConstructor
+public class PlaceItemExistBatchResponseDTO {
+
+    private boolean[] exists;
+
+    private String message;
+
+    public PlaceItemExistBatchResponseDTO(boolean[] exists, String message) {
+        this.exists = exists;
+        this.message = message;
+    }
+
+    public static PlaceItemExistBatchResponseDTO error(String message) {
+        return new PlaceItemExistBatchResponseDTO(new boolean[0], message);
+    }
+}
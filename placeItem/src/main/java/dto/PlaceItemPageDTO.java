@@ -0,0 +1,31 @@
+package dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import model.PlaceItem;
+
+import java.util.List;
+
+// nextAfterId vai como afterId na próxima página; null quando esta é a última.
+@Getter
+@Setter
+@NoArgsConstructor
+public class PlaceItemPageDTO {
+
+    private List<PlaceItem> items;
+
+    private Long nextAfterId;
+
+    private String message;
+
+    public PlaceItemPageDTO(List<PlaceItem> items, Long nextAfterId, String message) {
+        this.items = items;
+        this.nextAfterId = nextAfterId;
+        this.message = message;
+    }
+
+    public static PlaceItemPageDTO error(String message) {
+        return new PlaceItemPageDTO(List.of(), null, message);
+    }
+}
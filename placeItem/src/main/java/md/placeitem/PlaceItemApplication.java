@@ -7,7 +7,7 @@ import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 import org.springframework.data.r2dbc.repository.config.EnableR2dbcRepositories;
 
 
-@SpringBootApplication(scanBasePackages = {"client", "config", "controller", "dto", "model", "repository", "service"})
+@SpringBootApplication(scanBasePackages = {"authorization", "client", "config", "controller", "dto", "model", "repository", "service"})
 @EnableR2dbcRepositories(basePackages = "repository")
 @EntityScan(basePackages = "model")
 @EnableDiscoveryClient
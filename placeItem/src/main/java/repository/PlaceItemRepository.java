@@ -2,19 +2,118 @@ package repository;
 
 
 import model.PlaceItem;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 @Repository
-public interface PlaceItemRepository extends R2dbcRepository<PlaceItem, Long> {
+public interface PlaceItemRepository extends R2dbcRepository<PlaceItem, Long>, PlaceItemStreamingRepository {
 
     Mono<PlaceItem> findByItemNameAndItemUnitAndPlaceNameAndProjectContract(String itemName, String itemUnit, String placeName, String placeProjectContract);
 
     Flux<PlaceItem> findByProjectContractIn(List<String> contracts);
 
+    // 1 = criado, 0 = o item já está na bacia; o índice único idx_place_itens_key decide numa única ida ao banco.
+    @Modifying
+    @Query("""
+            INSERT INTO place_itens (place_name, project_contract, item_name, item_unit, predicted_value)
+            VALUES (:placeName, :projectContract, :itemName, :itemUnit, :predictedValue)
+            ON CONFLICT (place_name, project_contract, item_name, item_unit) DO NOTHING
+            """)
+    Mono<Long> insertIfAbsent(@Param("placeName") String placeName, @Param("projectContract") String projectContract,
+                              @Param("itemName") String itemName, @Param("itemUnit") String itemUnit,
+                              @Param("predictedValue") BigDecimal predictedValue);
 
+    // Exclusão pela chave natural sem carregar a linha antes: 1 = excluída, 0 = não existia.
+    @Modifying
+    @Query("""
+            DELETE FROM place_itens
+            WHERE place_name = :placeName AND project_contract = :projectContract AND item_name = :itemName AND item_unit = :itemUnit
+            """)
+    Mono<Long> deleteByNaturalKey(@Param("placeName") String placeName, @Param("projectContract") String projectContract,
+                                   @Param("itemName") String itemName, @Param("itemUnit") String itemUnit);
+
+    // Só responde se a chave existe, resolvido pelo índice único idx_place_itens_key, sem materializar a entidade.
+    @Query("""
+            SELECT EXISTS (SELECT 1 FROM place_itens
+                           WHERE place_name = :placeName AND project_contract = :projectContract AND item_name = :itemName AND item_unit = :itemUnit)
+            """)
+    Mono<Boolean> existsByNaturalKey(@Param("placeName") String placeName, @Param("projectContract") String projectContract,
+                                      @Param("itemName") String itemName, @Param("itemUnit") String itemUnit);
+
+    // Paginação por chave: continua a partir do último id visto, sem OFFSET.
+    @Query("""
+            SELECT * FROM place_itens
+            WHERE project_contract = ANY(CAST(:contracts AS text[])) AND id > :afterId
+            ORDER BY id
+            LIMIT :limit
+            """)
+    Flux<PlaceItem> findPageByProjectContractIn(@Param("contracts") String[] contracts, @Param("afterId") long afterId, @Param("limit") int limit);
+
+    // Uma consulta para o lote inteiro de chaves (bacia, contrato, item, unidade).
+    @Query("""
+            SELECT * FROM place_itens
+            WHERE (place_name, project_contract, item_name, item_unit) IN (
+                SELECT p, c, n, u FROM unnest(CAST(:placeNames AS text[]), CAST(:projectContracts AS text[]),
+                                              CAST(:itemNames AS text[]), CAST(:itemUnits AS text[])) AS keys(p, c, n, u))
+            """)
+    Flux<PlaceItem> findAllByKeyIn(@Param("placeNames") String[] placeNames, @Param("projectContracts") String[] projectContracts,
+                                   @Param("itemNames") String[] itemNames, @Param("itemUnits") String[] itemUnits);
+
+    // Planilha inteira num único INSERT (atômico); devolve só as linhas gravadas, as já existentes na bacia ficam de fora.
+    @Query("""
+            INSERT INTO place_itens (place_name, project_contract, item_name, item_unit, predicted_value)
+            SELECT :placeName, :projectContract, lines.n, lines.u, CAST(lines.v AS numeric)
+            FROM unnest(CAST(:itemNames AS text[]), CAST(:itemUnits AS text[]), CAST(:predictedValues AS text[])) AS lines(n, u, v)
+            ON CONFLICT (place_name, project_contract, item_name, item_unit) DO NOTHING
+            RETURNING *
+            """)
+    Flux<PlaceItem> insertMissing(@Param("placeName") String placeName, @Param("projectContract") String projectContract,
+                                  @Param("itemNames") String[] itemNames, @Param("itemUnits") String[] itemUnits,
+                                  @Param("predictedValues") String[] predictedValues);
+
+    // Soma os deltas ao acumulado dos itens das bacias num único UPDATE condicional. Um lançamento (delta positivo) só
+    // entra se o acumulado continuar dentro do previsto; um estorno (negativo) sempre entra, sem passar de zero. As
+    // linhas são travadas em ordem de id, então lotes concorrentes sobre os mesmos itens esperam um pelo outro no banco,
+    // sem deadlock, e a condição é reavaliada sobre o acumulado já atualizado. Devolve a situação de cada linha, na
+    // ordem do lote: APPLIED, EXCEEDS_PREDICTED (o item existe, mas o lançamento passaria do previsto) ou
+    // PLACE_ITEM_NOT_FOUND.
+    @Query("""
+            WITH lines AS (
+                SELECT l.place_name, l.item_name, l.item_unit, CAST(l.delta AS numeric) AS delta, l.ord
+                FROM unnest(CAST(:placeNames AS text[]), CAST(:itemNames AS text[]), CAST(:itemUnits AS text[]),
+                            CAST(:deltas AS text[])) WITH ORDINALITY AS l(place_name, item_name, item_unit, delta, ord)
+            ), locked AS (
+                SELECT p.id, lines.ord FROM place_itens p
+                JOIN lines ON p.place_name = lines.place_name AND p.item_name = lines.item_name AND p.item_unit = lines.item_unit
+                WHERE p.project_contract = :projectContract
+                ORDER BY p.id
+                FOR UPDATE OF p
+            ), updated AS (
+                UPDATE place_itens p
+                SET accumulated_value = GREATEST(COALESCE(p.accumulated_value, 0) + lines.delta, 0)
+                FROM lines
+                WHERE p.id IN (SELECT id FROM locked)
+                  AND p.place_name = lines.place_name AND p.item_name = lines.item_name AND p.item_unit = lines.item_unit
+                  AND (lines.delta <= 0 OR COALESCE(p.accumulated_value, 0) + lines.delta <= p.predicted_value)
+                RETURNING lines.ord
+            )
+            SELECT CASE
+                       WHEN lines.ord IN (SELECT ord FROM updated) THEN 'APPLIED'
+                       WHEN lines.ord IN (SELECT ord FROM locked) THEN 'EXCEEDS_PREDICTED'
+                       ELSE 'PLACE_ITEM_NOT_FOUND'
+                   END
+            FROM lines
+            ORDER BY lines.ord
+            """)
+    Flux<String> addToAccumulated(@Param("projectContract") String projectContract, @Param("placeNames") String[] placeNames,
+                                  @Param("itemNames") String[] itemNames, @Param("itemUnits") String[] itemUnits,
+                                  @Param("deltas") String[] deltas);
 }
@@ -0,0 +1,10 @@
+package repository;
+
+import model.PlaceItem;
+import reactor.core.publisher.Flux;
+
+public interface PlaceItemStreamingRepository {
+
+    // Lê por cursor, fetchSize linhas por vez, em ordem de id: a memória não cresce com o tamanho do resultado.
+    Flux<PlaceItem> streamByProjectContractIn(String[] contracts, int fetchSize);
+}
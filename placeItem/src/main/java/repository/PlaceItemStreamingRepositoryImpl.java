@@ -0,0 +1,29 @@
+package repository;
+
+import model.PlaceItem;
+import org.springframework.data.r2dbc.convert.R2dbcConverter;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+
+// Os métodos derivados do Spring Data não expõem o fetch size do statement; aqui a consulta vai pelo DatabaseClient
+// e as linhas são convertidas pelo mesmo mapeamento da entidade.
+public class PlaceItemStreamingRepositoryImpl implements PlaceItemStreamingRepository {
+
+    private final DatabaseClient databaseClient;
+    private final R2dbcConverter converter;
+
+    public PlaceItemStreamingRepositoryImpl(R2dbcEntityTemplate r2dbcEntityTemplate) {
+        this.databaseClient = r2dbcEntityTemplate.getDatabaseClient();
+        this.converter = r2dbcEntityTemplate.getConverter();
+    }
+
+    @Override
+    public Flux<PlaceItem> streamByProjectContractIn(String[] contracts, int fetchSize) {
+        return databaseClient.sql("SELECT * FROM place_itens WHERE project_contract = ANY(CAST(:contracts AS text[])) ORDER BY id")
+                .bind("contracts", contracts)
+                .filter(statement -> statement.fetchSize(fetchSize))
+                .map((row, metadata) -> converter.read(PlaceItem.class, row, metadata))
+                .all();
+    }
+}
@@ -1,17 +1,41 @@
 package service;
 
+import authorization.ContractScopeResolver;
+import authorization.IdentitySigner;
+import authorization.PermissionEvaluator;
+import authorization.ReferenceReplica;
+import authorization.ValidationPipeline;
 import client.PlaceItemClient;
+import dto.AccumulationDTO;
+import dto.AccumulationLineDTO;
+import dto.AccumulationResultDTO;
+import dto.BillOfQuantitiesDTO;
+import dto.BillOfQuantitiesLineDTO;
+import dto.BillOfQuantitiesResultDTO;
+import dto.LineOutcomeDTO;
+import dto.PlaceItemExistBatchResponseDTO;
+import dto.PlaceItemPageDTO;
 import dto.PlaceItemRequestDTO;
 import model.PlaceItem;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import repository.PlaceItemRepository;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static org.springframework.http.HttpStatus.*;
@@ -19,11 +43,35 @@ import static org.springframework.http.HttpStatus.*;
 @Service
 public class PlaceItemService {
 
+    // Ação do cabeçalho de serviço que autoriza accumulate (IdentitySigner.signService).
+    static final String ACCUMULATE_ACTION = "accumulatePlaceItem";
+
     private final PlaceItemRepository placeItemRepository;
 
     @Autowired
     private PlaceItemClient placeItemClient;
 
+    @Autowired
+    private PermissionEvaluator permissionEvaluator;
+
+    @Autowired
+    private ContractScopeResolver contractScopeResolver;
+
+    @Autowired
+    private IdentitySigner identitySigner;
+
+    @Value("${placesitens.bill-of-quantities.max-lines:1000}")
+    private int billOfQuantitiesMaxLines = 1000;
+
+    @Value("${placesitens.exist-batch.max-size:1000}")
+    private int existBatchMaxSize = 1000;
+
+    @Value("${placesitens.stream.fetch-size:500}")
+    private int streamFetchSize = 500;
+
+    @Value("${placesitens.page.max-size:500}")
+    private int pageMaxSize = 500;
+
     public PlaceItemService(PlaceItemRepository placeItemRepository) {
         this.placeItemRepository = placeItemRepository;
     }
@@ -31,72 +79,14 @@ public class PlaceItemService {
     public Mono<ResponseEntity<String>> createPlaceItem(PlaceItemRequestDTO placeItemRequestDTO, String token) {
         String action = "createPlaceItem";
 
-        return placeItemClient.hasPermission(token, action)
-                .flatMap(responseEntity -> {
-                    HttpStatus status = (HttpStatus) responseEntity.getStatusCode();
-                    String message = responseEntity.getBody();
-
-                    if (status == NOT_FOUND) {
-                        return Mono.just(ResponseEntity.status(NOT_FOUND)
-                                .body("Ação não encontrada: " + action));
-                    } else if (status == FORBIDDEN) {
-                        return Mono.just(ResponseEntity.status(FORBIDDEN)
-                                .body("Sem permissão para realizar essa ação"));
-                    } else if (status != OK) {
-                        return Mono.just(ResponseEntity.status(INTERNAL_SERVER_ERROR)
-                                .body("Erro ao verificar permissão: " + message));
-                    }
-
-                    System.out.println(placeItemRequestDTO.getItemName());
-                    System.out.println(placeItemRequestDTO.getItemUnit());
-                    System.out.println(placeItemRequestDTO.getPlaceName());
-                    System.out.println(placeItemRequestDTO.getProjectContract());
-
-                    return placeItemClient.placeExists(token, placeItemRequestDTO.getPlaceName(), placeItemRequestDTO.getProjectContract())
-                            .flatMap(placeExistsResponse -> {
-                                System.out.println(placeExistsResponse.getStatusCode());
-                                if (placeExistsResponse.getStatusCode() == NOT_FOUND) {
-                                    return Mono.just(ResponseEntity.status(NOT_FOUND)
-                                            .body("Bacia não encontrada, nome: " + placeItemRequestDTO.getPlaceName() + " contrato: " + placeItemRequestDTO.getProjectContract()));
-                                } else if (placeExistsResponse.getStatusCode() != OK) {
-                                    return Mono.just(ResponseEntity.status(INTERNAL_SERVER_ERROR)
-                                            .body("Erro ao verificar existência da bacia"));
-                                }
-
-                                return placeItemClient.itemExists(token, placeItemRequestDTO.getItemName(), placeItemRequestDTO.getItemUnit())
-                                        .flatMap(itemExistsResponse -> {
-                                            if (itemExistsResponse.getStatusCode() == NOT_FOUND) {
-                                                return Mono.just(ResponseEntity.status(NOT_FOUND)
-                                                        .body("Item não encontrado, nome: " + placeItemRequestDTO.getItemName() + " unidade: " + placeItemRequestDTO.getItemUnit()));
-                                            } else if (itemExistsResponse.getStatusCode() != OK) {
-                                                return Mono.just(ResponseEntity.status(INTERNAL_SERVER_ERROR)
-                                                        .body("Erro ao verificar existência do item"));
-                                            }
-
-                                            return placeItemRepository.findByItemNameAndItemUnitAndPlaceNameAndProjectContract
-                                                            (placeItemRequestDTO.getItemName(), placeItemRequestDTO.getItemUnit()
-                                                                    , placeItemRequestDTO.getPlaceName(), placeItemRequestDTO.getProjectContract()
-                                                            )
-                                                    .flatMap(existingPlaceItem ->
-                                                            Mono.just(ResponseEntity.status(CONFLICT)
-                                                                    .body("Já existe"))
-                                                    )
-                                                    .switchIfEmpty(
-                                                            Mono.defer(() -> {
-                                                                PlaceItem placeItem = new PlaceItem();
-                                                                placeItem.setItemName(placeItemRequestDTO.getItemName());
-                                                                placeItem.setItemUnit(placeItemRequestDTO.getItemUnit());
-                                                                placeItem.setPlaceName(placeItemRequestDTO.getPlaceName());
-                                                                placeItem.setProjectContract(placeItemRequestDTO.getProjectContract());
-                                                                placeItem.setPredictedValue(placeItemRequestDTO.getPredictedValue());
-                                                                return placeItemRepository.save(placeItem)
-                                                                        .map(savedPlaceItem -> ResponseEntity.status(CREATED)
-                                                                                .body(""));
-                                                            })
-                                                    );
-                                        });
-                            });
-                });
+        return validateReferences(placeItemRequestDTO, token, action)
+                .then(() -> placeItemRepository.insertIfAbsent(placeItemRequestDTO.getPlaceName(), placeItemRequestDTO.getProjectContract(),
+                                placeItemRequestDTO.getItemName(), placeItemRequestDTO.getItemUnit(), placeItemRequestDTO.getPredictedValue())
+                        .map(inserted -> inserted > 0
+                                ? ResponseEntity.status(CREATED)
+                                        .body("")
+                                : ResponseEntity.status(CONFLICT)
+                                        .body("Já existe")));
     }
 
     public Mono<ResponseEntity<String>> deletePlaceItem(PlaceItemRequestDTO placeItemRequestDTO, String token) {
@@ -119,16 +109,14 @@ public class PlaceItemService {
                                 .body("Erro ao verificar permissão: " + message));
                     }
 
-                    return placeItemRepository.findByItemNameAndItemUnitAndPlaceNameAndProjectContract
-                                    (placeItemRequestDTO.getItemName(), placeItemRequestDTO.getItemUnit()
-                                            , placeItemRequestDTO.getPlaceName(), placeItemRequestDTO.getProjectContract()
-                                    )
-                            .flatMap(existingPlaceItem ->
-                                    placeItemRepository.delete(existingPlaceItem)
-                                            .then(Mono.just(ResponseEntity.status(OK)
-                                                    .body("Item Deletado com sucesso"))))
-                            .switchIfEmpty(Mono.just(ResponseEntity.status(NOT_FOUND)
-                                    .body("Não encontrado")));
+                    return placeItemRepository.deleteByNaturalKey(
+                                    placeItemRequestDTO.getPlaceName(),
+                                    placeItemRequestDTO.getProjectContract(),
+                                    placeItemRequestDTO.getItemName(),
+                                    placeItemRequestDTO.getItemUnit())
+                            .map(deleted -> deleted > 0
+                                    ? ResponseEntity.status(OK).body("Item Deletado com sucesso")
+                                    : ResponseEntity.status(NOT_FOUND).body("Não encontrado"));
                 })
                 .onErrorResume(error -> Mono.just(ResponseEntity.status(INTERNAL_SERVER_ERROR)
                         .body("Erro ao processar a exclusão do item: " + error.getMessage())));
@@ -138,121 +126,395 @@ public class PlaceItemService {
 
         String action = "existPlaceItem";
 
+        return validateReferences(placeItemRequestDTO, token, action)
+                .then(() -> placeItemRepository.existsByNaturalKey(
+                                placeItemRequestDTO.getPlaceName(),
+                                placeItemRequestDTO.getProjectContract(),
+                                placeItemRequestDTO.getItemName(),
+                                placeItemRequestDTO.getItemUnit())
+                        .map(exists -> exists
+                                ? ResponseEntity.status(OK).body("Item encontrado")
+                                : ResponseEntity.status(NOT_FOUND).body("Item não encontrado")))
+                .onErrorResume(error -> Mono.just(ResponseEntity.status(INTERNAL_SERVER_ERROR)
+                        .body("Erro ao verificar a existência do item: " + error.getMessage())));
+    }
+
+    public Mono<ResponseEntity<PlaceItemExistBatchResponseDTO>> existsBatch(List<PlaceItemRequestDTO> placeItemRequestDTOs, String token) {
+        String action = "existPlaceItem";
+
+        if (placeItemRequestDTOs == null || placeItemRequestDTOs.isEmpty()) {
+            return Mono.just(ResponseEntity.status(BAD_REQUEST)
+                    .body(PlaceItemExistBatchResponseDTO.error("Informe ao menos um item de bacia")));
+        }
+        if (placeItemRequestDTOs.size() > existBatchMaxSize) {
+            return Mono.just(ResponseEntity.status(BAD_REQUEST)
+                    .body(PlaceItemExistBatchResponseDTO.error("O lote pode ter no máximo " + existBatchMaxSize + " itens de bacia")));
+        }
+
         return placeItemClient.hasPermission(token, action)
                 .flatMap(responseEntity -> {
-                    HttpStatus status = (HttpStatus) responseEntity.getStatusCode();
-                    String message = responseEntity.getBody();
+                    ResponseEntity<String> rejection = permissionRejection(action).apply(responseEntity);
+                    if (rejection != null) {
+                        return Mono.just(ResponseEntity.status(rejection.getStatusCode())
+                                .body(PlaceItemExistBatchResponseDTO.error(rejection.getBody())));
+                    }
 
-                    if (status == NOT_FOUND) {
-                        return Mono.just(ResponseEntity.status(NOT_FOUND)
-                                .body("Ação não encontrada: " + action));
-                    } else if (status == FORBIDDEN) {
-                        return Mono.just(ResponseEntity.status(FORBIDDEN)
-                                .body("Sem permissão para realizar essa ação"));
-                    } else if (status != OK) {
-                        return Mono.just(ResponseEntity.status(INTERNAL_SERVER_ERROR)
-                                .body("Erro ao verificar permissão: " + message));
+                    int size = placeItemRequestDTOs.size();
+                    String[] placeNames = new String[size];
+                    String[] projectContracts = new String[size];
+                    String[] itemNames = new String[size];
+                    String[] itemUnits = new String[size];
+                    for (int i = 0; i < size; i++) {
+                        PlaceItemRequestDTO placeItemRequestDTO = placeItemRequestDTOs.get(i);
+                        placeNames[i] = placeItemRequestDTO.getPlaceName();
+                        projectContracts[i] = placeItemRequestDTO.getProjectContract();
+                        itemNames[i] = placeItemRequestDTO.getItemName();
+                        itemUnits[i] = placeItemRequestDTO.getItemUnit();
                     }
 
-                    return placeItemClient.placeExists(token, placeItemRequestDTO.getPlaceName(), placeItemRequestDTO.getProjectContract())
-                            .flatMap(placeExistsResponse -> {
-                                if (placeExistsResponse.getStatusCode() == NOT_FOUND) {
-                                    return Mono.just(ResponseEntity.status(NOT_FOUND)
-                                            .body("Bacia não encontrada, nome: " + placeItemRequestDTO.getPlaceName() +
-                                                    " contrato: " + placeItemRequestDTO.getProjectContract()));
-                                } else if (placeExistsResponse.getStatusCode() != OK) {
-                                    return Mono.just(ResponseEntity.status(INTERNAL_SERVER_ERROR)
-                                            .body("Erro ao verificar existência da bacia"));
+                    return placeItemRepository.findAllByKeyIn(placeNames, projectContracts, itemNames, itemUnits)
+                            .map(placeItem -> ReferenceReplica.key(placeItem.getPlaceName(), placeItem.getProjectContract(),
+                                    placeItem.getItemName(), placeItem.getItemUnit()))
+                            .collect(Collectors.toSet())
+                            .map(found -> {
+                                boolean[] exists = new boolean[size];
+                                int count = 0;
+                                for (int i = 0; i < size; i++) {
+                                    exists[i] = found.contains(ReferenceReplica.key(placeNames[i], projectContracts[i], itemNames[i], itemUnits[i]));
+                                    if (exists[i]) {
+                                        count++;
+                                    }
                                 }
+                                return ResponseEntity.ok(new PlaceItemExistBatchResponseDTO(exists,
+                                        count + " de " + size + " itens de bacia encontrados"));
+                            });
+                })
+                .onErrorResume(error -> Mono.just(ResponseEntity.status(INTERNAL_SERVER_ERROR)
+                        .body(PlaceItemExistBatchResponseDTO.error("Erro ao verificar a existência dos itens de bacia: " + error.getMessage()))));
+    }
 
-                                return placeItemClient.itemExists(token, placeItemRequestDTO.getItemName(), placeItemRequestDTO.getItemUnit())
-                                        .flatMap(itemExistsResponse -> {
-                                            if (itemExistsResponse.getStatusCode() == NOT_FOUND) {
-                                                return Mono.just(ResponseEntity.status(NOT_FOUND)
-                                                        .body("Item não encontrado, nome: " + placeItemRequestDTO.getItemName() +
-                                                                " unidade: " + placeItemRequestDTO.getItemUnit()));
-                                            } else if (itemExistsResponse.getStatusCode() != OK) {
-                                                return Mono.just(ResponseEntity.status(INTERNAL_SERVER_ERROR)
-                                                        .body("Erro ao verificar existência do item"));
-                                            }
-
-                                            return placeItemRepository.findByItemNameAndItemUnitAndPlaceNameAndProjectContract(
-                                                            placeItemRequestDTO.getItemName(),
-                                                            placeItemRequestDTO.getItemUnit(),
-                                                            placeItemRequestDTO.getPlaceName(),
-                                                            placeItemRequestDTO.getProjectContract())
-                                                    .flatMap(existingPlaceItem ->
-                                                            Mono.just(ResponseEntity.status(OK)
-                                                                    .body("Item encontrado")))
-                                                    .switchIfEmpty(
-                                                            Mono.just(ResponseEntity.status(NOT_FOUND)
-                                                                    .body("Item não encontrado")));
-                                        });
+    // Lança (delta positivo) ou estorna (negativo) quantidades medidas nos itens das bacias de um contrato. Só o serviço
+    // measurementPlaceItem chama, junto com a gravação da medição: o gateway bloqueia a rota e a chamada precisa trazer
+    // o cabeçalho de serviço assinado. Estornar só exige poder lançar ou excluir medições.
+    public Mono<ResponseEntity<AccumulationResultDTO>> accumulate(AccumulationDTO accumulationDTO, String token, String serviceIdentity) {
+        if (!identitySigner.verifyService(serviceIdentity, ACCUMULATE_ACTION)) {
+            return Mono.just(ResponseEntity.status(FORBIDDEN)
+                    .body(AccumulationResultDTO.error("Operação restrita ao serviço de medições")));
+        }
+
+        String projectContract = accumulationDTO.getProjectContract();
+        List<AccumulationLineDTO> lines = accumulationDTO.getLines();
+
+        if (isBlank(projectContract) || lines == null || lines.isEmpty()) {
+            return Mono.just(ResponseEntity.status(BAD_REQUEST)
+                    .body(AccumulationResultDTO.error("Informe o contrato e ao menos uma linha")));
+        }
+        if (lines.size() > existBatchMaxSize) {
+            return Mono.just(ResponseEntity.status(BAD_REQUEST)
+                    .body(AccumulationResultDTO.error("O lote pode ter no máximo " + existBatchMaxSize + " linhas")));
+        }
+
+        int size = lines.size();
+        String[] placeNames = new String[size];
+        String[] itemNames = new String[size];
+        String[] itemUnits = new String[size];
+        String[] deltas = new String[size];
+        Set<String> keys = new HashSet<>();
+        boolean launching = false;
+        for (int i = 0; i < size; i++) {
+            AccumulationLineDTO line = lines.get(i);
+            if (line == null || isBlank(line.getPlaceName()) || isBlank(line.getItemName()) || isBlank(line.getItemUnit())
+                    || line.getDelta() == null) {
+                return Mono.just(ResponseEntity.status(BAD_REQUEST)
+                        .body(AccumulationResultDTO.error("Linha " + i + ": informe a bacia, o item, a unidade e a quantidade")));
+            }
+            // Um UPDATE ... FROM aplica só uma das linhas repetidas; o lote tem de chegar sem repetição.
+            if (!keys.add(ReferenceReplica.key(line.getPlaceName(), line.getItemName(), line.getItemUnit()))) {
+                return Mono.just(ResponseEntity.status(BAD_REQUEST)
+                        .body(AccumulationResultDTO.error("Linha " + i + ": item repetido no lote")));
+            }
+            placeNames[i] = line.getPlaceName();
+            itemNames[i] = line.getItemName();
+            itemUnits[i] = line.getItemUnit();
+            deltas[i] = line.getDelta().toPlainString();
+            launching |= line.getDelta().signum() > 0;
+        }
+
+        String action = launching ? "createMeasurementPlaceItem" : "deleteMeasurementPlaceItem";
+        Mono<ResponseEntity<String>> permission = placeItemClient.hasPermission(token, "createMeasurementPlaceItem");
+        if (!launching) {
+            permission = permission.flatMap(responseEntity -> responseEntity.getStatusCode() == OK
+                    ? Mono.just(responseEntity)
+                    : placeItemClient.hasPermission(token, action));
+        }
+
+        return permission
+                .flatMap(responseEntity -> {
+                    ResponseEntity<String> rejection = permissionRejection(action).apply(responseEntity);
+                    if (rejection != null) {
+                        return Mono.just(ResponseEntity.status(rejection.getStatusCode())
+                                .body(AccumulationResultDTO.error(rejection.getBody())));
+                    }
+
+                    return placeItemRepository.addToAccumulated(projectContract, placeNames, itemNames, itemUnits, deltas)
+                            .collectList()
+                            .map(statuses -> {
+                                long applied = statuses.stream().filter(AccumulationResultDTO.APPLIED::equals).count();
+                                return ResponseEntity.ok(new AccumulationResultDTO(statuses.toArray(String[]::new),
+                                        applied + " de " + size + " linhas aplicadas"));
                             });
                 })
                 .onErrorResume(error -> Mono.just(ResponseEntity.status(INTERNAL_SERVER_ERROR)
-                        .body("Erro ao verificar a existência do item: " + error.getMessage())));
+                        .body(AccumulationResultDTO.error("Erro ao atualizar o acumulado dos itens de bacia: " + error.getMessage()))));
+    }
+
+    // Permissão, bacia e item não dependem um do outro: as três consultas saem juntas.
+    private ValidationPipeline validateReferences(PlaceItemRequestDTO placeItemRequestDTO, String token, String action) {
+        return ValidationPipeline.validate()
+                .check(() -> placeItemClient.hasPermission(token, action), permissionRejection(action))
+                .check(() -> placeItemClient.placeExists(token, placeItemRequestDTO.getPlaceName(), placeItemRequestDTO.getProjectContract()),
+                        placeRejection(placeItemRequestDTO.getPlaceName(), placeItemRequestDTO.getProjectContract()))
+                .check(() -> placeItemClient.itemExists(token, placeItemRequestDTO.getItemName(), placeItemRequestDTO.getItemUnit()), itemExistsResponse -> {
+                    if (itemExistsResponse.getStatusCode() == NOT_FOUND) {
+                        return ResponseEntity.status(NOT_FOUND)
+                                .body("Item não encontrado, nome: " + placeItemRequestDTO.getItemName() +
+                                        " unidade: " + placeItemRequestDTO.getItemUnit());
+                    } else if (itemExistsResponse.getStatusCode() != OK) {
+                        return ResponseEntity.status(INTERNAL_SERVER_ERROR)
+                                .body("Erro ao verificar existência do item");
+                    }
+                    return null;
+                });
+    }
+
+    private Function<ResponseEntity<String>, ResponseEntity<String>> permissionRejection(String action) {
+        return responseEntity -> {
+            HttpStatus status = (HttpStatus) responseEntity.getStatusCode();
+            String message = responseEntity.getBody();
+
+            if (status == NOT_FOUND) {
+                return ResponseEntity.status(NOT_FOUND)
+                        .body("Ação não encontrada: " + action);
+            } else if (status == FORBIDDEN) {
+                return ResponseEntity.status(FORBIDDEN)
+                        .body("Sem permissão para realizar essa ação");
+            } else if (status != OK) {
+                return ResponseEntity.status(INTERNAL_SERVER_ERROR)
+                        .body("Erro ao verificar permissão: " + message);
+            }
+            return null;
+        };
+    }
+
+    private Function<ResponseEntity<String>, ResponseEntity<String>> placeRejection(String placeName, String projectContract) {
+        return placeExistsResponse -> {
+            if (placeExistsResponse.getStatusCode() == NOT_FOUND) {
+                return ResponseEntity.status(NOT_FOUND)
+                        .body("Bacia não encontrada, nome: " + placeName +
+                                " contrato: " + projectContract);
+            } else if (placeExistsResponse.getStatusCode() != OK) {
+                return ResponseEntity.status(INTERNAL_SERVER_ERROR)
+                        .body("Erro ao verificar existência da bacia");
+            }
+            return null;
+        };
+    }
+
+    // Permissão e bacia são verificadas uma vez para a planilha toda; os itens vão num único lote e as linhas
+    // válidas são gravadas num único INSERT. O relatório traz o resultado de cada linha.
+    public Mono<ResponseEntity<BillOfQuantitiesResultDTO>> createBillOfQuantities(BillOfQuantitiesDTO billOfQuantitiesDTO, String token) {
+        String action = "createPlaceItem";
+        List<BillOfQuantitiesLineDTO> lines = billOfQuantitiesDTO.getLines();
+
+        if (isBlank(billOfQuantitiesDTO.getPlaceName()) || isBlank(billOfQuantitiesDTO.getProjectContract())) {
+            return Mono.just(ResponseEntity.status(BAD_REQUEST)
+                    .body(BillOfQuantitiesResultDTO.error("Informe a bacia e o contrato")));
+        }
+        if (lines == null || lines.isEmpty()) {
+            return Mono.just(ResponseEntity.status(BAD_REQUEST)
+                    .body(BillOfQuantitiesResultDTO.error("Informe ao menos uma linha")));
+        }
+        if (lines.size() > billOfQuantitiesMaxLines) {
+            return Mono.just(ResponseEntity.status(BAD_REQUEST)
+                    .body(BillOfQuantitiesResultDTO.error("A planilha pode ter no máximo " + billOfQuantitiesMaxLines + " linhas")));
+        }
+
+        LineOutcomeDTO[] outcomes = new LineOutcomeDTO[lines.size()];
+        Map<String, Integer> firstLineByItem = new HashMap<>();
+        List<Integer> candidates = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            BillOfQuantitiesLineDTO line = lines.get(i);
+            if (line == null || isBlank(line.getItemName()) || isBlank(line.getItemUnit())) {
+                outcomes[i] = new LineOutcomeDTO(i, LineOutcomeDTO.INVALID, "Informe o nome e a unidade do item");
+                continue;
+            }
+            if (line.getPredictedValue() == null || line.getPredictedValue().signum() < 0) {
+                outcomes[i] = new LineOutcomeDTO(i, LineOutcomeDTO.INVALID, "Quantidade prevista deve ser zero ou positiva");
+                continue;
+            }
+            Integer first = firstLineByItem.putIfAbsent(ReferenceReplica.key(line.getItemName(), line.getItemUnit()), i);
+            if (first != null) {
+                outcomes[i] = new LineOutcomeDTO(i, LineOutcomeDTO.DUPLICATE_LINE, "Item repetido na linha " + first);
+                continue;
+            }
+            candidates.add(i);
+        }
+
+        String placeName = billOfQuantitiesDTO.getPlaceName();
+        String projectContract = billOfQuantitiesDTO.getProjectContract();
+
+        return ValidationPipeline.validate()
+                .check(() -> placeItemClient.hasPermission(token, action), permissionRejection(action))
+                .check(() -> placeItemClient.placeExists(token, placeName, projectContract), placeRejection(placeName, projectContract))
+                .then(() -> insertBillOfQuantities(placeName, projectContract, lines, candidates, outcomes, token),
+                        rejection -> ResponseEntity.status(rejection.getStatusCode())
+                                .body(BillOfQuantitiesResultDTO.error(rejection.getBody())))
+                .onErrorResume(ResponseStatusException.class, error -> Mono.just(ResponseEntity.status(error.getStatusCode())
+                        .body(BillOfQuantitiesResultDTO.error(error.getReason()))))
+                .onErrorResume(error -> Mono.just(ResponseEntity.status(INTERNAL_SERVER_ERROR)
+                        .body(BillOfQuantitiesResultDTO.error("Erro ao gravar a planilha: " + error.getMessage()))));
+    }
+
+    private Mono<ResponseEntity<BillOfQuantitiesResultDTO>> insertBillOfQuantities(String placeName, String projectContract,
+                                                                                   List<BillOfQuantitiesLineDTO> lines,
+                                                                                   List<Integer> candidates,
+                                                                                   LineOutcomeDTO[] outcomes, String token) {
+        if (candidates.isEmpty()) {
+            return Mono.just(ResponseEntity.ok(report(outcomes)));
+        }
+
+        List<String> names = candidates.stream().map(i -> lines.get(i).getItemName()).toList();
+        List<String> units = candidates.stream().map(i -> lines.get(i).getItemUnit()).toList();
+
+        return placeItemClient.itemsExist(token, names, units)
+                .flatMap(exists -> {
+                    List<Integer> toInsert = new ArrayList<>();
+                    for (int k = 0; k < candidates.size(); k++) {
+                        int i = candidates.get(k);
+                        if (exists[k]) {
+                            toInsert.add(i);
+                        } else {
+                            outcomes[i] = new LineOutcomeDTO(i, LineOutcomeDTO.ITEM_NOT_FOUND,
+                                    "Item não encontrado, nome: " + names.get(k) + " unidade: " + units.get(k));
+                        }
+                    }
+                    if (toInsert.isEmpty()) {
+                        return Mono.just(ResponseEntity.ok(report(outcomes)));
+                    }
+
+                    String[] itemNames = new String[toInsert.size()];
+                    String[] itemUnits = new String[toInsert.size()];
+                    String[] predictedValues = new String[toInsert.size()];
+                    for (int k = 0; k < toInsert.size(); k++) {
+                        BillOfQuantitiesLineDTO line = lines.get(toInsert.get(k));
+                        itemNames[k] = line.getItemName();
+                        itemUnits[k] = line.getItemUnit();
+                        predictedValues[k] = line.getPredictedValue().toPlainString();
+                    }
+
+                    return placeItemRepository.insertMissing(placeName, projectContract, itemNames, itemUnits, predictedValues)
+                            .map(saved -> ReferenceReplica.key(saved.getItemName(), saved.getItemUnit()))
+                            .collect(Collectors.toSet())
+                            .map(inserted -> {
+                                for (int i : toInsert) {
+                                    BillOfQuantitiesLineDTO line = lines.get(i);
+                                    outcomes[i] = inserted.contains(ReferenceReplica.key(line.getItemName(), line.getItemUnit()))
+                                            ? new LineOutcomeDTO(i, LineOutcomeDTO.CREATED, null)
+                                            : new LineOutcomeDTO(i, LineOutcomeDTO.ALREADY_EXISTS, "Já existe");
+                                }
+                                return ResponseEntity.ok(report(outcomes));
+                            });
+                });
+    }
+
+    private static BillOfQuantitiesResultDTO report(LineOutcomeDTO[] outcomes) {
+        int created = 0;
+        for (LineOutcomeDTO outcome : outcomes) {
+            if (LineOutcomeDTO.CREATED.equals(outcome.getStatus())) {
+                created++;
+            }
+        }
+        return new BillOfQuantitiesResultDTO(created, outcomes.length - created, Arrays.asList(outcomes), null);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
     }
 
     public Mono<ResponseEntity<?>> getAllPlaceItensByToken(String token) {
 
         String action = "getPlaceItem";
 
+        return contractsByToken(token, action)
+                .flatMap(contracts -> placeItemRepository.findByProjectContractIn(contracts).collectList())
+                .<ResponseEntity<?>>map(items -> {
+                    if (items.isEmpty()) {
+                        return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+                    }
+                    return ResponseEntity.ok(items);
+                })
+                .onErrorResume(ResponseStatusException.class, error -> Mono.just(ResponseEntity.status(error.getStatusCode())
+                        .body(error.getReason())))
+                .onErrorResume(error -> {
+                    error.printStackTrace();
+                    return Mono.just(ResponseEntity.status(INTERNAL_SERVER_ERROR).build());
+                });
+    }
+
+    // Mesmo conteúdo de getAllPlaceItensByToken, mas emitido linha a linha direto do cursor.
+    public Mono<ResponseEntity<Flux<PlaceItem>>> streamPlaceItensByToken(String token) {
+
+        String action = "getPlaceItem";
+
+        return contractsByToken(token, action)
+                .map(contracts -> ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .body(placeItemRepository.streamByProjectContractIn(contracts.toArray(String[]::new), streamFetchSize)))
+                .onErrorResume(ResponseStatusException.class, error -> Mono.just(ResponseEntity.status(error.getStatusCode()).build()))
+                .onErrorResume(error -> Mono.just(ResponseEntity.status(INTERNAL_SERVER_ERROR).build()));
+    }
+
+    public Mono<ResponseEntity<PlaceItemPageDTO>> getPlaceItensPageByToken(String token, long afterId, int limit) {
+
+        String action = "getPlaceItem";
+
+        if (limit < 1 || limit > pageMaxSize) {
+            return Mono.just(ResponseEntity.status(BAD_REQUEST)
+                    .body(PlaceItemPageDTO.error("O tamanho da página deve estar entre 1 e " + pageMaxSize)));
+        }
+
+        return contractsByToken(token, action)
+                .flatMap(contracts -> placeItemRepository.findPageByProjectContractIn(contracts.toArray(String[]::new), afterId, limit)
+                        .collectList())
+                .map(items -> {
+                    Long nextAfterId = items.size() == limit ? items.get(items.size() - 1).getId() : null;
+                    return ResponseEntity.ok(new PlaceItemPageDTO(items, nextAfterId, null));
+                })
+                .onErrorResume(ResponseStatusException.class, error -> Mono.just(ResponseEntity.status(error.getStatusCode())
+                        .body(PlaceItemPageDTO.error(error.getReason()))))
+                .onErrorResume(error -> Mono.just(ResponseEntity.status(INTERNAL_SERVER_ERROR)
+                        .body(PlaceItemPageDTO.error("Erro ao listar os itens das bacias: " + error.getMessage()))));
+    }
+
+    // Contratos do usuário dono do token. O e-mail sai do próprio token e a lista vem do cache de escopo, que só
+    // consulta o serviço project na primeira vez ou depois de uma mudança de participação.
+    // Recusas saem como ResponseStatusException com o status a devolver.
+    private Mono<List<String>> contractsByToken(String token, String action) {
         return placeItemClient.hasPermission(token, action)
                 .flatMap(responseEntity -> {
                     HttpStatus status = (HttpStatus) responseEntity.getStatusCode();
 
                     if (status == HttpStatus.FORBIDDEN) {
-                        return Mono.just(ResponseEntity.status(FORBIDDEN).build());
+                        return Mono.error(new ResponseStatusException(FORBIDDEN));
                     } else if (status != HttpStatus.OK) {
-                        return Mono.just(ResponseEntity.status(INTERNAL_SERVER_ERROR).build());
+                        return Mono.error(new ResponseStatusException(INTERNAL_SERVER_ERROR));
                     }
 
-                    return placeItemClient.getEmailByToken(token)
-                            .flatMap(emailResponse -> {
-                                HttpStatus emailStatus = (HttpStatus) emailResponse.getStatusCode();
-
-                                if (emailStatus == FORBIDDEN) {
-                                    return Mono.just(ResponseEntity.status(FORBIDDEN).build());
-                                } else if (emailStatus != OK) {
-                                    return Mono.just(ResponseEntity.status(INTERNAL_SERVER_ERROR).build());
-                                }
-
-                                String email = emailResponse.getBody();
-                                if (email == null || email.isEmpty()) {
-                                    return Mono.just(ResponseEntity.status(NOT_FOUND).body("Email not found for token."));
-                                }
-
-                                return placeItemClient.getProjectsContractsByEmail(email, token)
-                                        .flatMapMany(projectResponse -> {
-                                            List<String> contracts = Arrays.stream(
-                                                            projectResponse.getBody()
-                                                                    .replace("[", "")
-                                                                    .replace("]", "")
-                                                                    .split(",")
-                                                    )
-                                                    .map(s -> s.replace("\"", "").trim())
-                                                    .collect(Collectors.toList());
-
-                                            System.out.println("Contracts from response (corrigido): " + contracts);
-
-                                            return placeItemRepository.findByProjectContractIn(contracts);
-
-                                        })
-                                        .collectList()
-                                        .flatMap(items -> {
-                                            if (items.isEmpty()) {
-                                                return Mono.just(ResponseEntity.status(HttpStatus.NOT_FOUND).build());
-                                            }
-                                            return Mono.just(ResponseEntity.ok(items));
-                                        });
-
-                            })
-                            .onErrorResume(error -> {
-                                error.printStackTrace();
-                                return Mono.just(ResponseEntity.status(INTERNAL_SERVER_ERROR).build());
-                            });
-                });
+                    return permissionEvaluator.subject(token);
+                })
+                .filter(email -> !email.isEmpty())
+                .switchIfEmpty(Mono.error(new ResponseStatusException(NOT_FOUND, "Email not found for token.")))
+                .flatMap(email -> contractScopeResolver.contracts(email, () -> placeItemClient.getContractsByEmail(email, token)));
     }
 
 }
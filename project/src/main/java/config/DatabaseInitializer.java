@@ -1,32 +1,171 @@
 package config;
 
-import org.springframework.boot.CommandLineRunner;
-import org.springframework.context.annotation.Bean;
-import org.springframework.r2dbc.core.DatabaseClient;
+import authorization.SchemaMigrations;
+import io.r2dbc.spi.ConnectionFactory;
+import jakarta.annotation.PostConstruct;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
+import static authorization.SchemaMigrations.migration;
+
 @Component
 public class DatabaseInitializer {
 
-    @Bean
-    public CommandLineRunner initializeDatabase(DatabaseClient client) {
-        return args -> {
-            client.sql("CREATE SCHEMA IF NOT EXISTS app;")
-                    .then()
-                    .then(client.sql("SET search_path TO app, public;").then())
-                    .then(client.sql("""
-                        CREATE TABLE IF NOT EXISTS projects (
-                            id SERIAL PRIMARY KEY,
-                            name VARCHAR(255) NOT NULL,
-                            contract VARCHAR(255) NOT NULL UNIQUE,
-                            budget NUMERIC(30, 2) NOT NULL,
-                            user_email TEXT[]
-                        );
-                        """).then())
-                    .then(client.sql("CREATE INDEX IF NOT EXISTS idx_projects_name_contract ON projects(name, contract);").then())
-                    .doOnSuccess(unused -> System.out.println("Tabela 'projects' configurada com sucesso com índices!"))
-                    .doOnError(error -> System.err.println("Erro ao configurar tabela 'projects': " + error.getMessage()))
-                    .subscribe();
-        };
+    // Versões já aplicadas não mudam: alteração de esquema entra como uma nova versão no fim da lista.
+    static final SchemaMigrations MIGRATIONS = new SchemaMigrations("app", List.of(
+            migration(1, "Tabela projects",
+                    """
+                    CREATE TABLE IF NOT EXISTS projects (
+                        id SERIAL PRIMARY KEY,
+                        name VARCHAR(255) NOT NULL,
+                        contract VARCHAR(255) NOT NULL UNIQUE,
+                        budget NUMERIC(30, 2) NOT NULL
+                    );
+                    """,
+                    "CREATE INDEX IF NOT EXISTS idx_projects_name_contract ON projects(name, contract);"),
+            migration(2, "Feed de alterações de projects",
+                    """
+                    CREATE TABLE IF NOT EXISTS change_events (
+                        seq BIGSERIAL PRIMARY KEY,
+                        entity VARCHAR(64) NOT NULL,
+                        op CHAR(1) NOT NULL,
+                        entity_key TEXT NOT NULL,
+                        created_at TIMESTAMP NOT NULL DEFAULT now()
+                    );
+                    """,
+                    "CREATE INDEX IF NOT EXISTS idx_change_events_entity_seq ON change_events (entity, seq);",
+                    """
+                    CREATE OR REPLACE FUNCTION publish_change() RETURNS TRIGGER AS $$
+                    DECLARE
+                        event_seq BIGINT;
+                        old_key TEXT;
+                        new_key TEXT;
+                    BEGIN
+                        IF TG_OP IN ('UPDATE', 'DELETE') THEN
+                            SELECT string_agg(coalesce(to_jsonb(OLD) ->> c.col, ''), chr(31) ORDER BY c.ord)
+                            INTO old_key FROM unnest(TG_ARGV) WITH ORDINALITY AS c(col, ord);
+                        END IF;
+                        IF TG_OP IN ('UPDATE', 'INSERT') THEN
+                            SELECT string_agg(coalesce(to_jsonb(NEW) ->> c.col, ''), chr(31) ORDER BY c.ord)
+                            INTO new_key FROM unnest(TG_ARGV) WITH ORDINALITY AS c(col, ord);
+                        END IF;
+                        IF old_key IS NOT DISTINCT FROM new_key THEN
+                            RETURN NULL;
+                        END IF;
+
+                        PERFORM pg_advisory_xact_lock(hashtext('change_events'));
+
+                        IF old_key IS NOT NULL THEN
+                            INSERT INTO change_events (entity, op, entity_key) VALUES (TG_TABLE_NAME, 'D', old_key)
+                            RETURNING seq INTO event_seq;
+                        END IF;
+                        IF new_key IS NOT NULL THEN
+                            INSERT INTO change_events (entity, op, entity_key) VALUES (TG_TABLE_NAME, 'I', new_key)
+                            RETURNING seq INTO event_seq;
+                        END IF;
+
+                        PERFORM pg_notify(TG_TABLE_NAME || '_changes', event_seq::text);
+                        RETURN NULL;
+                    END;
+                    $$ LANGUAGE plpgsql;
+                    """,
+                    "CREATE OR REPLACE TRIGGER trg_projects_changes AFTER INSERT OR UPDATE OF contract OR DELETE ON projects " +
+                            "FOR EACH ROW EXECUTE FUNCTION publish_change('contract');",
+                    "INSERT INTO change_events (entity, op, entity_key) SELECT 'projects', 'I', coalesce(contract::text, '') " +
+                            "FROM projects WHERE NOT EXISTS (SELECT 1 FROM change_events WHERE entity = 'projects');"),
+            // Membros da obra: a chave primária (contract, email) impede duplicata e o índice reverso (email, contract)
+            // responde "contratos do e-mail" só com o índice. Bancos de antes da tabela têm os e-mails de
+            // projects.user_email copiados para ela e a coluna (com o gatilho que a observava) removida.
+            migration(3, "Tabela project_members no lugar de projects.user_email",
+                    """
+                    CREATE TABLE IF NOT EXISTS project_members (
+                        contract VARCHAR(255) NOT NULL REFERENCES projects(contract) ON DELETE CASCADE,
+                        email VARCHAR(255) NOT NULL,
+                        PRIMARY KEY (contract, email)
+                    );
+                    """,
+                    "CREATE INDEX IF NOT EXISTS idx_project_members_email_contract ON project_members(email, contract);",
+                    "DROP TRIGGER IF EXISTS trg_projects_members_changes ON projects;",
+                    """
+                    DO $$
+                    BEGIN
+                        IF EXISTS (SELECT 1 FROM information_schema.columns
+                                   WHERE table_schema = current_schema() AND table_name = 'projects' AND column_name = 'user_email') THEN
+                            INSERT INTO project_members (contract, email)
+                            SELECT p.contract, e.email FROM projects p, unnest(p.user_email) AS e(email)
+                            WHERE e.email IS NOT NULL
+                            ON CONFLICT DO NOTHING;
+                            ALTER TABLE projects DROP COLUMN user_email;
+                        END IF;
+                    END $$;
+                    """,
+                    // Quem guarda contratos por usuário (ContractScopeResolver.CHANNEL) descarta o e-mail avisado aqui.
+                    """
+                    CREATE OR REPLACE FUNCTION publish_project_members_change() RETURNS TRIGGER AS $$
+                    BEGIN
+                        IF TG_OP IN ('UPDATE', 'DELETE') THEN
+                            PERFORM pg_notify('project_members_changes', OLD.email);
+                        END IF;
+                        IF TG_OP IN ('UPDATE', 'INSERT') THEN
+                            PERFORM pg_notify('project_members_changes', NEW.email);
+                        END IF;
+                        RETURN NULL;
+                    END;
+                    $$ LANGUAGE plpgsql;
+                    """,
+                    "CREATE OR REPLACE TRIGGER trg_project_members_changes " +
+                            "AFTER INSERT OR UPDATE OR DELETE ON project_members " +
+                            "FOR EACH ROW EXECUTE FUNCTION publish_project_members_change();"),
+            // De cada chave fica só o último evento; exclusões saem depois da retenção e movem o horizonte das réplicas.
+            migration(4, "Compactação do change_events",
+                    """
+                    CREATE TABLE IF NOT EXISTS change_events_horizon (
+                        entity VARCHAR(64) PRIMARY KEY,
+                        purged_seq BIGINT NOT NULL
+                    );
+                    """,
+                    "CREATE INDEX IF NOT EXISTS idx_change_events_entity_key_seq ON change_events (entity, entity_key, seq);",
+                    """
+                    CREATE OR REPLACE FUNCTION compact_change_events(tombstone_retention INTERVAL) RETURNS BIGINT AS $$
+                    DECLARE
+                        superseded BIGINT;
+                        purged BIGINT;
+                    BEGIN
+                        DELETE FROM change_events c
+                        WHERE EXISTS (SELECT 1 FROM change_events n
+                                      WHERE n.entity = c.entity AND n.entity_key = c.entity_key AND n.seq > c.seq);
+                        GET DIAGNOSTICS superseded = ROW_COUNT;
+
+                        WITH tombstones AS (
+                            DELETE FROM change_events
+                            WHERE op = 'D' AND created_at < now() - tombstone_retention
+                            RETURNING entity, seq
+                        ), horizon AS (
+                            INSERT INTO change_events_horizon (entity, purged_seq)
+                            SELECT entity, max(seq) FROM tombstones GROUP BY entity
+                            ON CONFLICT (entity) DO UPDATE
+                                SET purged_seq = GREATEST(change_events_horizon.purged_seq, EXCLUDED.purged_seq)
+                        )
+                        SELECT count(*) INTO purged FROM tombstones;
+
+                        RETURN superseded + purged;
+                    END;
+                    $$ LANGUAGE plpgsql;
+                    """)
+    ));
+
+    private final ConnectionFactory connectionFactory;
+
+    public DatabaseInitializer(ConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+    }
+
+    // Roda na criação do contexto, antes de o servidor web abrir a porta e de o serviço se registrar no Eureka: só
+    // recebe tráfego com o esquema atualizado, e a subida falha se a migração falhar.
+    @PostConstruct
+    public void migrate() {
+        Long applied = MIGRATIONS.apply(connectionFactory).block();
+        System.out.println("Esquema de 'projects' atualizado: " + applied + " migração(ões) aplicada(s)");
     }
 }
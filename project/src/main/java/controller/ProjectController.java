@@ -1,6 +1,8 @@
 package controller;
 
 import dto.ProjectDTO;
+import dto.ProjectMembershipBatchDTO;
+import dto.ProjectMembershipBatchResultDTO;
 import dto.ProjectRequestDTO;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -41,5 +43,15 @@ public class ProjectController {
     public Mono<ResponseEntity<String>> addEmailInProject(@RequestBody ProjectRequestDTO projectRequestDTO, @RequestHeader("Authorization") String token) {
         return projectService.addEmailInProject(projectRequestDTO, token);
     }
+
+    @PostMapping("/remove-email-from-project")
+    public Mono<ResponseEntity<String>> removeEmailFromProject(@RequestBody ProjectRequestDTO projectRequestDTO, @RequestHeader("Authorization") String token) {
+        return projectService.removeEmailFromProject(projectRequestDTO, token);
+    }
+
+    @PostMapping("/members/batch")
+    public Mono<ResponseEntity<ProjectMembershipBatchResultDTO>> updateMembers(@RequestBody ProjectMembershipBatchDTO projectMembershipBatchDTO, @RequestHeader("Authorization") String token) {
+        return projectService.updateMembers(projectMembershipBatchDTO, token);
+    }
     
 }
@@ -0,0 +1,23 @@
+package dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+// Inclusões e remoções de membros (contrato, e-mail) aplicadas de uma vez.
+@Getter
+@Setter
+@NoArgsConstructor
+public class ProjectMembershipBatchDTO {
+
+    private List<ProjectRequestDTO> add;
+
+    private List<ProjectRequestDTO> remove;
+
+    public ProjectMembershipBatchDTO(List<ProjectRequestDTO> add, List<ProjectRequestDTO> remove) {
+        this.add = add;
+        this.remove = remove;
+    }
+}
@@ -0,0 +1,34 @@
+package dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+// added/removed contam só o que mudou: incluir quem já é membro ou remover quem não é não altera nada.
+// unknownContracts lista as obras inexistentes cujas inclusões foram ignoradas.
+@Getter
+@Setter
+@NoArgsConstructor
+public class ProjectMembershipBatchResultDTO {
+
+    private long added;
+
+    private long removed;
+
+    private List<String> unknownContracts;
+
+    private String message;
+
+    public ProjectMembershipBatchResultDTO(long added, long removed, List<String> unknownContracts, String message) {
+        this.added = added;
+        this.removed = removed;
+        this.unknownContracts = unknownContracts;
+        this.message = message;
+    }
+
+    public static ProjectMembershipBatchResultDTO error(String message) {
+        return new ProjectMembershipBatchResultDTO(0, 0, List.of(), message);
+    }
+}
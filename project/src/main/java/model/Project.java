@@ -8,7 +8,6 @@ import org.springframework.data.relational.core.mapping.Column;
 import org.springframework.data.relational.core.mapping.Table;
 
 import java.math.BigDecimal;
-import java.util.List;
 import java.util.Objects;
 
 @Getter
@@ -29,10 +28,6 @@ public class Project {
     @Setter
     private BigDecimal budget;
 
-    @Setter
-    @Column("user_email")
-    private List<String> userEmail;
-
     public Project() {
     }
 
@@ -41,11 +36,11 @@ public class Project {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Project project = (Project) o;
-        return Objects.equals(name, project.name) && Objects.equals(contract, project.contract) && Objects.equals(budget, project.budget) && Objects.equals(userEmail, project.userEmail);
+        return Objects.equals(name, project.name) && Objects.equals(contract, project.contract) && Objects.equals(budget, project.budget);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(name, contract, budget, userEmail);
+        return Objects.hash(name, contract, budget);
     }
 }
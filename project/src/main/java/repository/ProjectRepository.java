@@ -12,6 +12,8 @@ import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.math.BigDecimal;
+
 @Repository
 public interface ProjectRepository extends R2dbcRepository<Project, Long> {
 
@@ -20,11 +22,63 @@ public interface ProjectRepository extends R2dbcRepository<Project, Long> {
     Mono<Project> findByContract(@NotBlank(message = "O nome da obra é obrigatório.") @Size(min = 5, message = "O nome da obra deve ter pelo menos 5 caracteres e comecar com SES") String contract);
 
 
-    @Query("SELECT * FROM projects WHERE :email = ANY(user_email)")
-    Flux<Project> findByUserEmail(String email);
+    // 1 = criada, 0 = já existe obra com o contrato (contract é UNIQUE); numa única ida ao banco.
+    @Modifying
+    @Query("INSERT INTO projects (name, contract, budget) VALUES (:name, :contract, :budget) ON CONFLICT (contract) DO NOTHING")
+    Mono<Long> insertIfAbsent(@Param("name") String name, @Param("contract") String contract, @Param("budget") BigDecimal budget);
+
+    // Exclusão pela chave natural sem carregar a linha antes: 1 = excluída, 0 = não existia.
+    @Modifying
+    @Query("DELETE FROM projects WHERE contract = :contract")
+    Mono<Long> deleteByContract(@Param("contract") String contract);
+
+    // Só responde se a chave existe, resolvido pela restrição UNIQUE de contract, sem materializar a entidade.
+    @Query("SELECT EXISTS (SELECT 1 FROM projects WHERE contract = :contract)")
+    Mono<Boolean> existsByContract(@Param("contract") String contract);
+
+    // Varredura só de índice em idx_project_members_email_contract.
+    @Query("SELECT contract FROM project_members WHERE email = :email ORDER BY contract")
+    Flux<String> findContractsByMemberEmail(@Param("email") String email);
+
+    // 1 = adicionado, 0 = já era membro ou a obra não existe.
+    @Modifying
+    @Query("""
+            INSERT INTO project_members (contract, email)
+            SELECT contract, :email FROM projects WHERE contract = :contract
+            ON CONFLICT (contract, email) DO NOTHING
+            """)
+    Mono<Long> addMember(@Param("contract") String contract, @Param("email") String email);
 
+    // 1 = removido, 0 = não era membro.
     @Modifying
-    @Query("UPDATE projects SET user_email = array_append(user_email, :email) WHERE contract = :contract")
-    Mono<Integer> addEmailToProject(@Param("email") String email, @Param("contract") String contract);
+    @Query("DELETE FROM project_members WHERE contract = :contract AND email = :email")
+    Mono<Long> removeMember(@Param("contract") String contract, @Param("email") String email);
+
+    // Aplica o lote inteiro num único comando (atômico): remoções e inclusões chegam em arrays paralelos e inclusões em
+    // obras inexistentes são ignoradas. Devolve uma linha por membro de fato alterado: 'A' adicionado, 'R' removido.
+    @Query("""
+            WITH removed AS (
+                DELETE FROM project_members
+                WHERE (contract, email) IN (SELECT c, e FROM unnest(CAST(:removeContracts AS text[]), CAST(:removeEmails AS text[])) AS r(c, e))
+                RETURNING 1
+            ), added AS (
+                INSERT INTO project_members (contract, email)
+                SELECT a.c, a.e FROM unnest(CAST(:addContracts AS text[]), CAST(:addEmails AS text[])) AS a(c, e)
+                JOIN projects p ON p.contract = a.c
+                ON CONFLICT (contract, email) DO NOTHING
+                RETURNING 1
+            )
+            SELECT 'A' FROM added
+            UNION ALL
+            SELECT 'R' FROM removed
+            """)
+    Flux<String> applyMemberChanges(@Param("addContracts") String[] addContracts, @Param("addEmails") String[] addEmails,
+                                    @Param("removeContracts") String[] removeContracts, @Param("removeEmails") String[] removeEmails);
+
+    @Query("""
+            SELECT DISTINCT c FROM unnest(CAST(:contracts AS text[])) AS requested(c)
+            WHERE NOT EXISTS (SELECT 1 FROM projects p WHERE p.contract = requested.c)
+            """)
+    Flux<String> findMissingContracts(@Param("contracts") String[] contracts);
 
 }
@@ -2,9 +2,11 @@ package service;
 
 import client.ProjectClient;
 import dto.ProjectDTO;
+import dto.ProjectMembershipBatchDTO;
+import dto.ProjectMembershipBatchResultDTO;
 import dto.ProjectRequestDTO;
-import model.Project;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
@@ -13,6 +15,9 @@ import reactor.core.publisher.Mono;
 import repository.ProjectRepository;
 
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.springframework.http.HttpStatus.*;
 
@@ -29,6 +34,9 @@ public class ProjectService {
     @Autowired
     private ProjectClient projectClient;
 
+    @Value("${projects.members.batch.max-size:1000}")
+    private int membersBatchMaxSize = 1000;
+
     public Mono<ResponseEntity<String>> createProject(ProjectDTO projectDTO, String token) {
         String action = "createProject";
 
@@ -49,27 +57,17 @@ public class ProjectService {
                                 .body("Erro ao verificar permissão: " + message));
                     }
 
-                    return projectRepository.findByNameAndContract(projectDTO.getName(), projectDTO.getContract())
-                            .flatMap(existingProject ->
-                                    Mono.just(ResponseEntity.status(CONFLICT)
-                                            .body("A obra: " + projectDTO.getName() + " já existe para o contrato: " + projectDTO.getContract()))
-                            )
-                            .switchIfEmpty(
-                                    Mono.defer(() -> {
-                                        Project project = new Project();
-                                        project.setName(projectDTO.getName());
-                                        project.setContract(projectDTO.getContract());
-                                        project.setBudget(projectDTO.getBudget());
-                                        return projectRepository.save(project)
-                                                .map(savedProject -> ResponseEntity.status(CREATED)
-                                                        .body("Obra criada com sucesso"));
-                                    })
-                            );
+                    return projectRepository.insertIfAbsent(projectDTO.getName(), projectDTO.getContract(), projectDTO.getBudget())
+                            .map(inserted -> inserted > 0
+                                    ? ResponseEntity.status(CREATED)
+                                            .body("Obra criada com sucesso")
+                                    : ResponseEntity.status(CONFLICT)
+                                            .body("A obra: " + projectDTO.getName() + " já existe para o contrato: " + projectDTO.getContract()));
                 });
     }
 
     public Mono<ResponseEntity<String>> deleteProject(ProjectDTO projectDTO, String token) {
-        String action = "deletePlace";
+        String action = "deleteProject";
 
         return projectClient.hasPermission(token, action)
                 .flatMap(responseEntity -> {
@@ -87,13 +85,10 @@ public class ProjectService {
                                 .body("Erro ao verificar permissão: " + message));
                     }
 
-                    return projectRepository.findByContract(projectDTO.getContract())
-                            .flatMap(existingProject ->
-                                    projectRepository.delete((Project) existingProject)
-                                            .then(Mono.just(ResponseEntity.status(OK)
-                                                    .body("Obra deletada com sucesso"))))
-                            .switchIfEmpty(Mono.just(ResponseEntity.status(NOT_FOUND)
-                                    .body("Obra não encontrada com base no contrato fornecido")));
+                    return projectRepository.deleteByContract(projectDTO.getContract())
+                            .map(deleted -> deleted > 0
+                                    ? ResponseEntity.status(OK).body("Obra deletada com sucesso")
+                                    : ResponseEntity.status(NOT_FOUND).body("Obra não encontrada com base no contrato fornecido"));
                 })
                 .onErrorResume(error -> Mono.just(ResponseEntity.status(INTERNAL_SERVER_ERROR)
                         .body("Erro ao processar a exclusão da obra: " + error.getMessage())));
@@ -102,6 +97,11 @@ public class ProjectService {
     public Mono<ResponseEntity<String>> addEmailInProject(ProjectRequestDTO projectRequestDTO, String token) {
         String action = "addEmailInProject";
 
+        if (isBlank(projectRequestDTO.getContract()) || isBlank(projectRequestDTO.getUserEmail())) {
+            return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Informe o contrato e o e-mail"));
+        }
+
         return projectClient.hasPermission(token, action)
                 .flatMap(responseEntity -> {
                     HttpStatusCode status = responseEntity.getStatusCode();
@@ -118,34 +118,122 @@ public class ProjectService {
                                 .body("Erro ao verificar permissão: " + message));
                     }
 
-                    return projectRepository.findByContract(projectRequestDTO.getContract())
-                            .flatMap(existingProject -> {
+                    // Incluir quem já é membro não é erro: a chave primária de project_members garante uma linha só.
+                    return projectRepository.addMember(projectRequestDTO.getContract(), projectRequestDTO.getUserEmail())
+                            .flatMap(added -> added > 0
+                                    ? Mono.just(ResponseEntity.status(HttpStatus.OK)
+                                            .body("E-mail adicionado com sucesso ao projeto."))
+                                    : projectRepository.existsByContract(projectRequestDTO.getContract())
+                                            .map(exists -> exists
+                                                    ? ResponseEntity.status(HttpStatus.OK).body("E-mail já está no projeto.")
+                                                    : ResponseEntity.status(HttpStatus.NOT_FOUND)
+                                                            .body("Projeto não encontrado com o contrato: " + projectRequestDTO.getContract())));
+                })
+                .onErrorResume(error -> Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body("Erro ao adicionar e-mail ao projeto: " + error.getMessage())));
+    }
 
-                                // Verifica se o email já está no projeto
-                                if (existingProject.getUserEmail() != null &&
-                                        existingProject.getUserEmail().contains(projectRequestDTO.getUserEmail())) {
-                                    return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                                            .body("E-mail já existe no projeto."));
-                                }
 
-                                return projectRepository.addEmailToProject(projectRequestDTO.getUserEmail(), projectRequestDTO.getContract())
-                                        .flatMap(rowsUpdated -> {
-                                            if (rowsUpdated > 0) {
-                                                return Mono.just(ResponseEntity.status(HttpStatus.OK)
-                                                        .body("E-mail adicionado com sucesso ao projeto."));
-                                            } else {
-                                                return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                                                        .body("Erro ao adicionar o e-mail. Nenhuma linha foi atualizada."));
-                                            }
-                                        });
-                            })
-                            .switchIfEmpty(
-                                    Mono.just(ResponseEntity.status(HttpStatus.NOT_FOUND)
-                                            .body("Projeto não encontrado com o contrato: " + projectRequestDTO.getContract()))
-                            );
+    public Mono<ResponseEntity<String>> removeEmailFromProject(ProjectRequestDTO projectRequestDTO, String token) {
+        String action = "addEmailInProject";
+
+        if (isBlank(projectRequestDTO.getContract()) || isBlank(projectRequestDTO.getUserEmail())) {
+            return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Informe o contrato e o e-mail"));
+        }
+
+        return projectClient.hasPermission(token, action)
+                .flatMap(responseEntity -> {
+                    HttpStatusCode status = responseEntity.getStatusCode();
+                    String message = responseEntity.getBody();
+
+                    if (status == HttpStatus.NOT_FOUND) {
+                        return Mono.just(ResponseEntity.status(HttpStatus.NOT_FOUND)
+                                .body("Ação não encontrada: " + action));
+                    } else if (status == HttpStatus.FORBIDDEN) {
+                        return Mono.just(ResponseEntity.status(HttpStatus.FORBIDDEN)
+                                .body("Sem permissão para realizar essa ação"));
+                    } else if (status != HttpStatus.OK) {
+                        return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                                .body("Erro ao verificar permissão: " + message));
+                    }
+
+                    // Remover quem não é membro também responde OK; só a obra inexistente é erro.
+                    return projectRepository.removeMember(projectRequestDTO.getContract(), projectRequestDTO.getUserEmail())
+                            .flatMap(removed -> removed > 0
+                                    ? Mono.just(ResponseEntity.status(HttpStatus.OK)
+                                            .body("E-mail removido do projeto."))
+                                    : projectRepository.existsByContract(projectRequestDTO.getContract())
+                                            .map(exists -> exists
+                                                    ? ResponseEntity.status(HttpStatus.OK).body("E-mail não estava no projeto.")
+                                                    : ResponseEntity.status(HttpStatus.NOT_FOUND)
+                                                            .body("Projeto não encontrado com o contrato: " + projectRequestDTO.getContract())));
                 })
                 .onErrorResume(error -> Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                        .body("Erro ao adicionar e-mail ao projeto: " + error.getMessage())));
+                        .body("Erro ao remover e-mail do projeto: " + error.getMessage())));
+    }
+
+    // Inclusões e remoções de vários membros, de várias obras, num único comando no banco.
+    public Mono<ResponseEntity<ProjectMembershipBatchResultDTO>> updateMembers(ProjectMembershipBatchDTO projectMembershipBatchDTO, String token) {
+        String action = "addEmailInProject";
+        List<ProjectRequestDTO> add = projectMembershipBatchDTO.getAdd() != null ? projectMembershipBatchDTO.getAdd() : List.of();
+        List<ProjectRequestDTO> remove = projectMembershipBatchDTO.getRemove() != null ? projectMembershipBatchDTO.getRemove() : List.of();
+
+        if (add.isEmpty() && remove.isEmpty()) {
+            return Mono.just(ResponseEntity.status(BAD_REQUEST)
+                    .body(ProjectMembershipBatchResultDTO.error("Informe ao menos uma inclusão ou remoção")));
+        }
+        if (add.size() + remove.size() > membersBatchMaxSize) {
+            return Mono.just(ResponseEntity.status(BAD_REQUEST)
+                    .body(ProjectMembershipBatchResultDTO.error("O lote pode ter no máximo " + membersBatchMaxSize + " alterações")));
+        }
+        if (Stream.concat(add.stream(), remove.stream())
+                .anyMatch(member -> member == null || isBlank(member.getContract()) || isBlank(member.getUserEmail()))) {
+            return Mono.just(ResponseEntity.status(BAD_REQUEST)
+                    .body(ProjectMembershipBatchResultDTO.error("Informe o contrato e o e-mail de cada alteração")));
+        }
+        Set<List<String>> removing = remove.stream()
+                .map(member -> List.of(member.getContract(), member.getUserEmail()))
+                .collect(Collectors.toSet());
+        if (add.stream().anyMatch(member -> removing.contains(List.of(member.getContract(), member.getUserEmail())))) {
+            return Mono.just(ResponseEntity.status(BAD_REQUEST)
+                    .body(ProjectMembershipBatchResultDTO.error("O mesmo membro não pode ser incluído e removido no mesmo lote")));
+        }
+
+        String[] addContracts = add.stream().map(ProjectRequestDTO::getContract).toArray(String[]::new);
+        String[] addEmails = add.stream().map(ProjectRequestDTO::getUserEmail).toArray(String[]::new);
+        String[] removeContracts = remove.stream().map(ProjectRequestDTO::getContract).toArray(String[]::new);
+        String[] removeEmails = remove.stream().map(ProjectRequestDTO::getUserEmail).toArray(String[]::new);
+
+        return projectClient.hasPermission(token, action)
+                .flatMap(responseEntity -> {
+                    HttpStatus status = (HttpStatus) responseEntity.getStatusCode();
+                    String message = responseEntity.getBody();
+
+                    if (status == NOT_FOUND) {
+                        return Mono.just(ResponseEntity.status(NOT_FOUND)
+                                .body(ProjectMembershipBatchResultDTO.error("Ação não encontrada: " + action)));
+                    } else if (status == FORBIDDEN) {
+                        return Mono.just(ResponseEntity.status(FORBIDDEN)
+                                .body(ProjectMembershipBatchResultDTO.error("Sem permissão para realizar essa ação")));
+                    } else if (status != OK) {
+                        return Mono.just(ResponseEntity.status(INTERNAL_SERVER_ERROR)
+                                .body(ProjectMembershipBatchResultDTO.error("Erro ao verificar permissão: " + message)));
+                    }
+
+                    return projectRepository.findMissingContracts(addContracts)
+                            .collectList()
+                            .flatMap(unknownContracts -> projectRepository.applyMemberChanges(addContracts, addEmails, removeContracts, removeEmails)
+                                    .collect(Collectors.groupingBy(change -> change, Collectors.counting()))
+                                    .map(changes -> {
+                                        long added = changes.getOrDefault("A", 0L);
+                                        long removed = changes.getOrDefault("R", 0L);
+                                        return ResponseEntity.ok(new ProjectMembershipBatchResultDTO(added, removed, unknownContracts,
+                                                added + " membros incluídos, " + removed + " removidos"));
+                                    }));
+                })
+                .onErrorResume(error -> Mono.just(ResponseEntity.status(INTERNAL_SERVER_ERROR)
+                        .body(ProjectMembershipBatchResultDTO.error("Erro ao atualizar os membros das obras: " + error.getMessage()))));
     }
 
 
@@ -169,13 +257,10 @@ public class ProjectService {
                                 .body("Erro ao verificar permissão: " + message));
                     }
 
-                    return projectRepository.findByContract(projectRequestDTO.getContract())
-                            .flatMap(existingProject ->
-                                    Mono.just(ResponseEntity.status(OK)
-                                            .body("Obra encontrada")))
-                            .switchIfEmpty(
-                                    Mono.just(ResponseEntity.status(NOT_FOUND)
-                                            .body("Obra não encontrada")));
+                    return projectRepository.existsByContract(projectRequestDTO.getContract())
+                            .map(exists -> exists
+                                    ? ResponseEntity.status(OK).body("Obra encontrada")
+                                    : ResponseEntity.status(NOT_FOUND).body("Obra não encontrada"));
                 })
                 .onErrorResume(error -> Mono.just(ResponseEntity.status(INTERNAL_SERVER_ERROR)
                         .body("Erro ao verificar a existência da obra: " + error.getMessage())));
@@ -201,10 +286,7 @@ public class ProjectService {
                                 .body(List.of("Erro ao verificar permissão: " + message)));
                     }
 
-                    System.out.println(userEmail);
-
-                    return projectRepository.findByUserEmail(userEmail)
-                            .map(Project::getContract)
+                    return projectRepository.findContractsByMemberEmail(userEmail)
                             .collectList()
                             .flatMap(contracts -> {
                                 if (contracts.isEmpty()) {
@@ -218,4 +300,7 @@ public class ProjectService {
                         .body(List.of("Erro ao buscar contratos: " + error.getMessage()))));
     }
 
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
 }
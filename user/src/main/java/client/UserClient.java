@@ -1,5 +1,8 @@
 package client;
 
+import authorization.PermissionGrants;
+import dto.CredentialsDTO;
+import dto.UserClaimsDTO;
 import dto.UserResponseDTO;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
@@ -7,6 +10,8 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 import repository.UserRepository;
+import service.RolePermissionService;
+import service.UserProjectionCache;
 import service.UserService;
 
 @Component
@@ -16,23 +21,26 @@ public class UserClient {
 
     private final UserRepository userRepository;
     private final UserService userService;
+    private final RolePermissionService rolePermissionService;
+    private final UserProjectionCache userProjectionCache;
 
-    public UserClient(WebClient.Builder webClientBuilder, UserRepository userRepository, UserService userService) {
+    public UserClient(WebClient.Builder webClientBuilder, UserRepository userRepository, UserService userService, RolePermissionService rolePermissionService,
+                      UserProjectionCache userProjectionCache) {
         WebClient webClient = webClientBuilder.baseUrl("lb://filter").build();
         this.userRepository = userRepository;
         this.userService = userService;
+        this.rolePermissionService = rolePermissionService;
+        this.userProjectionCache = userProjectionCache;
     }
 
     @GetMapping("getuserbyemail/{email}")
     public Mono<UserResponseDTO> getUserByEmail(@PathVariable String email) {
-        return userRepository.getUserByEmail(email)
+        return userProjectionCache.get(email)
                 .map(user -> {
                     UserResponseDTO userDetails = new UserResponseDTO();
                     userDetails.setEmail(user.getEmail());
                     userDetails.setName(user.getName());
                     userDetails.setRole(user.getRole());
-                    System.out.println(userDetails.getRole());
-                    userDetails.setPassword(user.getPassword());
                     return userDetails;
                 })
                 .switchIfEmpty(Mono.error(new RuntimeException("Usuário não encontrado")));
@@ -43,4 +51,19 @@ public class UserClient {
         return userService.hasPermission(token, action);
     }
 
+    @PostMapping("/verify-credentials")
+    public Mono<ResponseEntity<UserClaimsDTO>> verifyCredentials(@RequestBody CredentialsDTO credentialsDTO) {
+        return userService.verifyCredentials(credentialsDTO);
+    }
+
+    @GetMapping("/permissions/version")
+    public Mono<Long> getPermissionsVersion() {
+        return Mono.just(rolePermissionService.current().version());
+    }
+
+    @GetMapping("/permissions")
+    public Mono<PermissionGrants> getPermissions() {
+        return Mono.just(rolePermissionService.currentGrants());
+    }
+
 }
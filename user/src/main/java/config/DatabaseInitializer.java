@@ -1,35 +1,85 @@
 package config;
 
-import org.springframework.boot.CommandLineRunner;
-import org.springframework.context.annotation.Bean;
-import org.springframework.r2dbc.core.DatabaseClient;
+import authorization.SchemaMigrations;
+import io.r2dbc.spi.ConnectionFactory;
+import jakarta.annotation.PostConstruct;
 import org.springframework.stereotype.Component;
+import service.RolePermissionService;
+
+import java.util.List;
+
+import static authorization.SchemaMigrations.migration;
 
 @Component
 public class DatabaseInitializer {
 
-    @Bean
-    public CommandLineRunner initializeDatabase(DatabaseClient client) {
-        return args -> {
-            client.sql("CREATE SCHEMA IF NOT EXISTS app;")
-                    .then()
-                    .then(client.sql("SET search_path TO app, public;").then())
-                    .then(client.sql("""
-                        CREATE TABLE IF NOT EXISTS users (
-                            id SERIAL PRIMARY KEY,
-                            name VARCHAR(255) NOT NULL,
-                            email VARCHAR(255) NOT NULL UNIQUE,
-                            password VARCHAR(255) NOT NULL,
-                            role VARCHAR(50),
-                            secret_phrase VARCHAR(255) NOT NULL CHECK (char_length(secret_phrase) >= 6)
-                        );
-                        """).then())
-                    .then(client.sql("CREATE INDEX IF NOT EXISTS idx_users_name ON users(name);").then())
-                    .then(client.sql("CREATE INDEX IF NOT EXISTS idx_users_email ON users(email);").then())
-                    .then(client.sql("CREATE INDEX IF NOT EXISTS idx_users_role ON users(role);").then())
-                    .doOnSuccess(unused -> System.out.println("Tabela 'users' configurada com sucesso com índices!"))
-                    .doOnError(error -> System.err.println("Erro ao configurar tabela 'users': " + error.getMessage()))
-                    .subscribe();
-        };
+    // Versões já aplicadas não mudam: alteração de esquema entra como uma nova versão no fim da lista.
+    static final SchemaMigrations MIGRATIONS = new SchemaMigrations("app", List.of(
+            migration(1, "Tabelas users e role_permissions",
+                    """
+                    CREATE TABLE IF NOT EXISTS users (
+                        id SERIAL PRIMARY KEY,
+                        name VARCHAR(255) NOT NULL,
+                        email VARCHAR(255) NOT NULL UNIQUE,
+                        password VARCHAR(255) NOT NULL,
+                        role VARCHAR(50),
+                        secret_phrase VARCHAR(255) NOT NULL CHECK (char_length(secret_phrase) >= 6)
+                    );
+                    """,
+                    "CREATE INDEX IF NOT EXISTS idx_users_name ON users(name);",
+                    "CREATE INDEX IF NOT EXISTS idx_users_email ON users(email);",
+                    "CREATE INDEX IF NOT EXISTS idx_users_role ON users(role);",
+                    """
+                    CREATE TABLE IF NOT EXISTS role_permissions (
+                        role VARCHAR(50) NOT NULL,
+                        action VARCHAR(100) NOT NULL,
+                        allowed BOOLEAN NOT NULL DEFAULT FALSE,
+                        PRIMARY KEY (role, action)
+                    );
+                    """,
+                    """
+                    CREATE TABLE IF NOT EXISTS role_permissions_version (
+                        id SMALLINT PRIMARY KEY DEFAULT 1 CHECK (id = 1),
+                        version BIGINT NOT NULL
+                    );
+                    """,
+                    "INSERT INTO role_permissions_version (id, version) VALUES (1, 1) ON CONFLICT (id) DO NOTHING;",
+                    """
+                    CREATE OR REPLACE FUNCTION bump_role_permissions_version() RETURNS TRIGGER AS $$
+                    BEGIN
+                        UPDATE role_permissions_version SET version = version + 1 WHERE id = 1;
+                        RETURN NULL;
+                    END;
+                    $$ LANGUAGE plpgsql;
+                    """,
+                    """
+                    CREATE OR REPLACE TRIGGER trg_role_permissions_version
+                    AFTER INSERT OR UPDATE OR DELETE ON role_permissions
+                    FOR EACH STATEMENT EXECUTE FUNCTION bump_role_permissions_version();
+                    """),
+            // A restrição UNIQUE de email já cria um índice e é ele que resolve as buscas por e-mail; o segundo índice
+            // só pesava nas gravações.
+            migration(2, "Remove índice duplicado de users.email",
+                    "DROP INDEX IF EXISTS idx_users_email;")
+    ));
+
+    private final ConnectionFactory connectionFactory;
+    private final RolePermissionService rolePermissionService;
+
+    public DatabaseInitializer(ConnectionFactory connectionFactory, RolePermissionService rolePermissionService) {
+        this.connectionFactory = connectionFactory;
+        this.rolePermissionService = rolePermissionService;
+    }
+
+    // Roda na criação do contexto, antes de o servidor web abrir a porta e de o serviço se registrar no Eureka: só
+    // recebe tráfego com o esquema atualizado e a matriz de permissões carregada, e a subida falha se algo falhar.
+    @PostConstruct
+    public void migrate() {
+        Long applied = MIGRATIONS.apply(connectionFactory).block();
+        rolePermissionService.seedDefaults()
+                .then(rolePermissionService.refresh())
+                .block();
+        System.out.println("Tabelas 'users' e 'role_permissions' atualizadas: " + applied + " migração(ões) aplicada(s)");
+        rolePermissionService.startPolling();
     }
 }
@@ -0,0 +1,19 @@
+package config;
+
+import authorization.PasswordHasher;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class PasswordHashingConfig {
+
+    @Bean
+    public PasswordHasher passwordHasher(@Value("${password.hashing.cost:10}") int cost,
+                                         @Value("${password.hashing.threads:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}") int threads,
+                                         @Value("${password.hashing.queue-capacity:100}") int queueCapacity,
+                                         MeterRegistry meterRegistry) {
+        return new PasswordHasher(cost, threads, queueCapacity, meterRegistry);
+    }
+}
@@ -0,0 +1,16 @@
+package dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class CredentialsDTO {
+
+    @NotBlank
+    private String email;
+
+    @NotBlank
+    private String password;
+}
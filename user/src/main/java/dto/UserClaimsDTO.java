@@ -0,0 +1,22 @@
+package dto;
+
+import enums.Role;
+import lombok.Getter;
+import lombok.Setter;
+
+// Só o que entra no JWT; nenhum hash sai do serviço user.
+@Getter
+@Setter
+public class UserClaimsDTO {
+
+    private String email;
+    private Role role;
+
+    public UserClaimsDTO() {
+    }
+
+    public UserClaimsDTO(String email, Role role) {
+        this.email = email;
+        this.role = role;
+    }
+}
@@ -0,0 +1,15 @@
+package dto;
+
+import enums.Role;
+import lombok.Getter;
+import lombok.Setter;
+
+// Leitura estreita para o login: sem nome nem frase secreta.
+@Getter
+@Setter
+public class UserCredentials {
+
+    private String email;
+    private Role role;
+    private String password;
+}
@@ -0,0 +1,15 @@
+package dto;
+
+import enums.Role;
+import lombok.Getter;
+import lombok.Setter;
+
+// Dados públicos do usuário, sem senha nem frase secreta; é o que fica em cache.
+@Getter
+@Setter
+public class UserProjection {
+
+    private String name;
+    private String email;
+    private Role role;
+}
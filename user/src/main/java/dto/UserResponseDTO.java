@@ -9,7 +9,6 @@ import lombok.Setter;
 public class UserResponseDTO {
 
     private String name;
-    private String password;
     private String email;
     private Role role;
 
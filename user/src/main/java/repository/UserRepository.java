@@ -1,8 +1,13 @@
 package repository;
 
+import dto.UserCredentials;
+import dto.UserProjection;
 import dto.UserRequestDTO;
 import model.User;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Mono;
 
@@ -13,4 +18,15 @@ public interface UserRepository extends R2dbcRepository<User, Long> {
 
     Mono<UserRequestDTO> getUserByEmail(String username);
 
+    @Query("SELECT email, role, password FROM users WHERE email = :email")
+    Mono<UserCredentials> findCredentialsByEmail(@Param("email") String email);
+
+    @Query("SELECT name, email, role FROM users WHERE email = :email")
+    Mono<UserProjection> findProjectionByEmail(@Param("email") String email);
+
+    // Só troca o hash se ele ainda for o que foi verificado no login (a senha pode ter mudado nesse meio tempo).
+    @Modifying
+    @Query("UPDATE users SET password = :newHash WHERE email = :email AND password = :currentHash")
+    Mono<Integer> replacePasswordHash(@Param("email") String email, @Param("currentHash") String currentHash, @Param("newHash") String newHash);
+
 }
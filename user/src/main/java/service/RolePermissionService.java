@@ -0,0 +1,150 @@
+package service;
+
+import authorization.PermissionGrants;
+import authorization.PermissionMatrix;
+import authorization.PermissionSnapshot;
+import enums.Role;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// A matriz de permissões vive na tabela role_permissions; um trigger incrementa role_permissions_version
+// a cada alteração. O serviço consulta só a versão e, quando muda, recarrega a matriz e troca o snapshot inteiro.
+@Service
+public class RolePermissionService {
+
+    private final DatabaseClient databaseClient;
+
+    private volatile PermissionSnapshot snapshot = PermissionSnapshot.defaults();
+
+    private Disposable polling;
+
+    @Value("${permissions.refresh-interval:10}")
+    private long refreshIntervalSeconds;
+
+    public RolePermissionService(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public PermissionSnapshot current() {
+        return snapshot;
+    }
+
+    public PermissionGrants currentGrants() {
+        PermissionSnapshot current = snapshot;
+        return current.permissionMatrix().toGrants(current.version());
+    }
+
+    // Grava a matriz padrão (RoleStrategy) sem sobrescrever o que já foi alterado no banco.
+    public Mono<Void> seedDefaults() {
+        PermissionGrants defaults = PermissionMatrix.fromRoles().toGrants(0);
+
+        List<String> values = new ArrayList<>();
+        Map<String, Object> bindings = new HashMap<>();
+        int index = 0;
+        for (String roleName : defaults.permissions().keySet()) {
+            Set<String> allowed = defaults.permissions().get(roleName);
+            for (String action : defaults.actions()) {
+                values.add("(:role" + index + ", :action" + index + ", :allowed" + index + ")");
+                bindings.put("role" + index, roleName);
+                bindings.put("action" + index, action);
+                bindings.put("allowed" + index, allowed.contains(action));
+                index++;
+            }
+        }
+
+        if (values.isEmpty()) {
+            return Mono.empty();
+        }
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(
+                "INSERT INTO role_permissions (role, action, allowed) VALUES " + String.join(", ", values)
+                        + " ON CONFLICT (role, action) DO NOTHING");
+        for (Map.Entry<String, Object> binding : bindings.entrySet()) {
+            spec = spec.bind(binding.getKey(), binding.getValue());
+        }
+        return spec.then();
+    }
+
+    public Mono<Void> refresh() {
+        return databaseClient.sql("SELECT version FROM role_permissions_version WHERE id = 1")
+                .map(row -> row.get("version", Long.class))
+                .one()
+                .filter(version -> version != snapshot.version())
+                .flatMap(version -> load())
+                .doOnNext(loaded -> snapshot = loaded)
+                .then();
+    }
+
+    private Mono<PermissionSnapshot> load() {
+        return databaseClient.sql("""
+                        SELECT v.version, p.role, p.action, p.allowed
+                        FROM role_permissions p
+                        CROSS JOIN role_permissions_version v
+                        WHERE v.id = 1
+                        """)
+                .map(row -> new PermissionRow(
+                        row.get("version", Long.class),
+                        row.get("role", String.class),
+                        row.get("action", String.class),
+                        Boolean.TRUE.equals(row.get("allowed", Boolean.class))))
+                .all()
+                .collectList()
+                .filter(rows -> !rows.isEmpty())
+                .map(rows -> {
+                    Set<String> actions = new HashSet<>();
+                    Map<Role, Set<String>> grants = new EnumMap<>(Role.class);
+                    for (PermissionRow row : rows) {
+                        actions.add(row.action());
+                        Role role;
+                        try {
+                            role = Role.valueOf(row.role());
+                        } catch (IllegalArgumentException e) {
+                            continue;
+                        }
+                        Set<String> allowed = grants.computeIfAbsent(role, r -> new HashSet<>());
+                        if (row.allowed()) {
+                            allowed.add(row.action());
+                        }
+                    }
+                    return new PermissionSnapshot(rows.get(0).version(), PermissionMatrix.of(actions, grants));
+                });
+    }
+
+    public void startPolling() {
+        if (refreshIntervalSeconds <= 0 || polling != null) {
+            return;
+        }
+
+        polling = Flux.interval(Duration.ofSeconds(refreshIntervalSeconds))
+                .concatMap(tick -> refresh()
+                        .onErrorResume(error -> {
+                            System.err.println("Erro ao recarregar permissões: " + error.getMessage());
+                            return Mono.empty();
+                        }))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stopPolling() {
+        if (polling != null) {
+            polling.dispose();
+        }
+    }
+
+    private record PermissionRow(Long version, String role, String action, boolean allowed) {
+    }
+}
@@ -0,0 +1,42 @@
+package service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dto.UserProjection;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import repository.UserRepository;
+
+import java.time.Duration;
+
+@Service
+public class UserProjectionCache {
+
+    private final UserRepository userRepository;
+    private final AsyncCache<String, UserProjection> cache;
+
+    public UserProjectionCache(UserRepository userRepository,
+                               MeterRegistry meterRegistry,
+                               @Value("${users.projection-cache.maximum-size:10000}") long maximumSize,
+                               @Value("${users.projection-cache.ttl:5m}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), "userProjections");
+    }
+
+    public Mono<UserProjection> get(String email) {
+        return Mono.fromFuture(() -> cache.get(email, (key, executor) ->
+                userRepository.findProjectionByEmail(key).toFuture()), true);
+    }
+
+    public void invalidate(String email) {
+        cache.synchronous().invalidate(email);
+    }
+}
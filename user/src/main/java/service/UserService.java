@@ -1,10 +1,16 @@
 package service;
 
+import authorization.PasswordHasher;
+import authorization.PermissionMatrix;
+import dto.CredentialsDTO;
 import dto.EmailDTO;
+import dto.UserClaimsDTO;
+import dto.UserCredentials;
 import dto.UserRequestDTO;
 import dto.UserUpdateDTO;
 import enums.Role;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import jakarta.annotation.PostConstruct;
@@ -13,20 +19,18 @@ import model.User;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 import repository.UserRepository;
 
-import java.lang.reflect.Method;
-import java.security.Key;
 import java.util.Base64;
 
 @Service
 public class UserService {
 
-    private Key key;
+    private static final ResponseEntity<String> PERMISSION_GRANTED = ResponseEntity.ok("Permissão concedida");
+
+    private JwtParser jwtParser;
 
     @Value("${jwt.secret}")
     private String secret;
@@ -34,15 +38,22 @@ public class UserService {
     @PostConstruct
     public void init() {
         byte[] secretBytes = Base64.getDecoder().decode(secret);
-        this.key = Keys.hmacShaKeyFor(secretBytes);
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(secretBytes))
+                .build();
     }
 
     private final UserRepository userRepository;
+    private final RolePermissionService rolePermissionService;
+    private final PasswordHasher passwordHasher;
+    private final UserProjectionCache userProjectionCache;
 
-    PasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
-
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository, RolePermissionService rolePermissionService, PasswordHasher passwordHasher,
+                       UserProjectionCache userProjectionCache) {
         this.userRepository = userRepository;
+        this.rolePermissionService = rolePermissionService;
+        this.passwordHasher = passwordHasher;
+        this.userProjectionCache = userProjectionCache;
     }
 
     public Mono<ResponseEntity<String>> deleteUser(EmailDTO emailDTO, String token) {
@@ -67,6 +78,7 @@ public class UserService {
                     return userRepository.findByEmail(emailDTO.getEmail())
                             .flatMap(existingUser ->
                                     userRepository.delete(existingUser)
+                                            .doOnSuccess(unused -> userProjectionCache.invalidate(existingUser.getEmail()))
                                             .then(Mono.just(ResponseEntity.status(HttpStatus.OK)
                                                     .body("Usuário deletado com sucesso"))))
                             .switchIfEmpty(Mono.just(ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -102,21 +114,21 @@ public class UserService {
                                             .body("Usuário com esse e-mail já existe"))
                             )
                             .switchIfEmpty(
-                                    Mono.defer(() -> {
-                                        User user = new User();
-                                        user.setName(userRequestDTO.getName());
-                                        user.setEmail(userRequestDTO.getEmail());
-                                        user.setRole(userRequestDTO.getRole());
-
-                                        String encodedSecretPhrase = passwordEncoder.encode(userRequestDTO.getSecretPhrase());
-                                        String encodedPassword = passwordEncoder.encode(userRequestDTO.getPassword());
-                                        user.setPassword(encodedPassword);
-                                        user.setSecretPhrase(encodedSecretPhrase);
-
-                                        return userRepository.save(user)
-                                                .map(savedUser -> ResponseEntity.status(HttpStatus.CREATED)
-                                                        .body("Usuário criado com sucesso"));
-                                    })
+                                    Mono.defer(() -> Mono.zip(
+                                                    passwordHasher.encode(userRequestDTO.getPassword()),
+                                                    passwordHasher.encode(userRequestDTO.getSecretPhrase()))
+                                            .flatMap(hashes -> {
+                                                User user = new User();
+                                                user.setName(userRequestDTO.getName());
+                                                user.setEmail(userRequestDTO.getEmail());
+                                                user.setRole(userRequestDTO.getRole());
+                                                user.setPassword(hashes.getT1());
+                                                user.setSecretPhrase(hashes.getT2());
+
+                                                return userRepository.save(user)
+                                                        .map(savedUser -> ResponseEntity.status(HttpStatus.CREATED)
+                                                                .body("Usuário criado com sucesso"));
+                                            }))
                             );
                 });
     }
@@ -124,80 +136,111 @@ public class UserService {
     public Mono<ResponseEntity<?>> updateUser(@Valid UserUpdateDTO userUpdateDTO) {
 
         return userRepository.findByEmail(userUpdateDTO.getOldEmail())
-                .flatMap(user -> {
-                    if (passwordEncoder.matches(userUpdateDTO.getSecretPhrase(), user.getSecretPhrase())) {
-                        if (userUpdateDTO.getName() != null) {
-                            user.setName(userUpdateDTO.getName());
-                        }
-                        if (userUpdateDTO.getNewEmail() != null) {
-                            if (user.getEmail().equals(userUpdateDTO.getNewEmail())) {
-                                return Mono.just(ResponseEntity.status(HttpStatus.CONFLICT)
-                                        .body("O novo e-mail deve ser diferente do e-mail já cadastrado."));
-                            }
-                            return userRepository.findByEmail(userUpdateDTO.getNewEmail())
-                                    .flatMap(existingUser ->
-                                            Mono.just(ResponseEntity.status(HttpStatus.CONFLICT)
-                                                    .body("Email já cadastrado"))
-                                    )
-                                    .switchIfEmpty(Mono.defer(() -> {
-                                        user.setEmail(userUpdateDTO.getNewEmail());
-                                        return saveUser(user)
-                                                .map(savedUser -> ResponseEntity.status(HttpStatus.OK).build());
-                                    }));
-                        }
-                        if (userUpdateDTO.getNewPassword() != null) {
-                            if (!passwordEncoder.matches(userUpdateDTO.getNewPassword(), user.getPassword())) {
-                                String hashedPassword = passwordEncoder.encode(userUpdateDTO.getNewPassword());
-                                user.setPassword(hashedPassword);
-                            } else {
-                                return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                                        .body("A nova senha deve ser diferente da atual"));
+                .flatMap(user -> passwordHasher.matches(userUpdateDTO.getSecretPhrase(), user.getSecretPhrase())
+                        .<ResponseEntity<?>>flatMap(secretPhraseMatches -> {
+                            if (secretPhraseMatches) {
+                                return applyUpdate(user, userUpdateDTO);
                             }
-                        }
-                        return saveUser(user)
-                                .map(savedUser -> ResponseEntity.status(HttpStatus.OK).build());
-                    } else {
-                        return Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                                .body("Frase secreta incorreta"));
-                    }
-                })
+                            return Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                                    .body("Frase secreta incorreta"));
+                        }))
                 .switchIfEmpty(Mono.just(ResponseEntity.status(HttpStatus.NOT_FOUND)
                         .body("Pessoa não encontrada com o e-mail: " + userUpdateDTO.getOldEmail())));
     }
 
+    private Mono<ResponseEntity<?>> applyUpdate(User user, UserUpdateDTO userUpdateDTO) {
+        if (userUpdateDTO.getName() != null) {
+            user.setName(userUpdateDTO.getName());
+        }
+        if (userUpdateDTO.getNewEmail() != null) {
+            if (user.getEmail().equals(userUpdateDTO.getNewEmail())) {
+                return Mono.just(ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body("O novo e-mail deve ser diferente do e-mail já cadastrado."));
+            }
+            return userRepository.findByEmail(userUpdateDTO.getNewEmail())
+                    .<ResponseEntity<?>>map(existingUser -> ResponseEntity.status(HttpStatus.CONFLICT)
+                            .body("Email já cadastrado"))
+                    .switchIfEmpty(Mono.defer(() -> {
+                        userProjectionCache.invalidate(user.getEmail());
+                        user.setEmail(userUpdateDTO.getNewEmail());
+                        return saveUser(user)
+                                .map(savedUser -> ResponseEntity.status(HttpStatus.OK).build());
+                    }));
+        }
+        if (userUpdateDTO.getNewPassword() != null) {
+            return passwordHasher.matches(userUpdateDTO.getNewPassword(), user.getPassword())
+                    .<ResponseEntity<?>>flatMap(samePassword -> {
+                        if (samePassword) {
+                            return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                                    .body("A nova senha deve ser diferente da atual"));
+                        }
+                        return passwordHasher.encode(userUpdateDTO.getNewPassword())
+                                .flatMap(hashedPassword -> {
+                                    user.setPassword(hashedPassword);
+                                    return saveUser(user);
+                                })
+                                .map(savedUser -> ResponseEntity.status(HttpStatus.OK).build());
+                    });
+        }
+        return saveUser(user)
+                .map(savedUser -> ResponseEntity.status(HttpStatus.OK).build());
+    }
+
+    // Login: a senha é conferida aqui, ao lado dos dados; o filter recebe só e-mail e role.
+    public Mono<ResponseEntity<UserClaimsDTO>> verifyCredentials(CredentialsDTO credentialsDTO) {
+        return userRepository.findCredentialsByEmail(credentialsDTO.getEmail())
+                .flatMap(credentials -> passwordHasher.matches(credentialsDTO.getPassword(), credentials.getPassword())
+                        .map(matches -> {
+                            if (!matches) {
+                                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).<UserClaimsDTO>build();
+                            }
+                            rehashIfNeeded(credentials, credentialsDTO.getPassword());
+                            return ResponseEntity.ok(new UserClaimsDTO(credentials.getEmail(), credentials.getRole()));
+                        }))
+                .defaultIfEmpty(ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+    }
+
+    // Fora do caminho da resposta; se a senha mudar nesse meio tempo o UPDATE condicional não a sobrescreve.
+    private void rehashIfNeeded(UserCredentials credentials, String rawPassword) {
+        if (!passwordHasher.needsRehash(credentials.getPassword())) {
+            return;
+        }
+
+        passwordHasher.encode(rawPassword)
+                .flatMap(newHash -> userRepository.replacePasswordHash(credentials.getEmail(), credentials.getPassword(), newHash))
+                .subscribe(
+                        updated -> { },
+                        error -> System.err.println("Erro ao atualizar o hash da senha: " + error.getMessage()));
+    }
+
     public Mono<ResponseEntity<String>> hasPermission(String token, String action) {
         if (token.startsWith("Bearer ")) {
-            token = token.replace("Bearer ", "");
+            token = token.substring(7);
         }
 
         return getRoleFromToken(token)
-                .flatMap(roleName -> {
+                .map(roleName -> {
 
                     Role role;
                     try {
                         role = Role.valueOf(roleName);
                     } catch (IllegalArgumentException e) {
-                        return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                                .body("Role '" + roleName + "' não é válida"));
+                        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                                .body("Role '" + roleName + "' não é válida");
                     }
 
-                    try {
-                        Method method = Role.class.getMethod(action);
-                        boolean hasPermission = (boolean) method.invoke(role);
-                        if (hasPermission) {
-                            return Mono.just(ResponseEntity.ok("Permissão concedida"));
-                        } else {
-                            return Mono.just(ResponseEntity.status(HttpStatus.FORBIDDEN)
-                                    .body("Sem permissão para a ação: " + action));
-                        }
-                    } catch (NoSuchMethodException e) {
-                        return Mono.just(ResponseEntity.status(HttpStatus.NOT_FOUND)
-                                .body("A ação '" + action + "' não existe para a role " + roleName));
-                    } catch (Exception e) {
+                    PermissionMatrix permissionMatrix = rolePermissionService.current().permissionMatrix();
+                    int actionId = permissionMatrix.actionId(action);
+                    if (actionId == PermissionMatrix.UNKNOWN_ACTION) {
+                        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                                .body("A ação '" + action + "' não existe para a role " + roleName);
+                    }
 
-                        return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                                .body("Erro ao verificar permissão: " + e.getMessage()));
+                    if (permissionMatrix.isAllowed(role, actionId)) {
+                        return PERMISSION_GRANTED;
                     }
+                    return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                            .body("Sem permissão para a ação: " + action);
                 })
                 .switchIfEmpty(Mono.just(ResponseEntity.status(HttpStatus.FORBIDDEN)
                         .body("Sem permissão: role não encontrada")));
@@ -208,14 +251,10 @@ public class UserService {
 
         return Mono.defer(() -> {
             try {
-                Claims claims = Jwts.parserBuilder()
-                        .setSigningKey(key)  // Usar a chave apropriada
-                        .build()
-                        .parseClaimsJws(token)
-                        .getBody();
+                Claims claims = jwtParser.parseClaimsJws(token).getBody();
 
                 String role = claims.get("role", String.class);
-                return Mono.just(role);
+                return Mono.justOrEmpty(role);
             } catch (Exception e) {
                 return Mono.error(e);
             }
@@ -223,7 +262,10 @@ public class UserService {
     }
 
     private Mono<ResponseEntity<?>> saveUser(User user) {
-        return userRepository.save(user).thenReturn(ResponseEntity.status(HttpStatus.ACCEPTED).build());
+        String cachedEmail = user.getEmail();
+        return userRepository.save(user)
+                .doOnSuccess(saved -> userProjectionCache.invalidate(cachedEmail))
+                .thenReturn(ResponseEntity.status(HttpStatus.ACCEPTED).build());
     }
 
     public Mono<String> getEmailByToken(String token) {
@@ -236,11 +278,7 @@ public class UserService {
 
         return Mono.defer(() -> {
             try {
-                Claims claims = Jwts.parserBuilder()
-                        .setSigningKey(key)  // Usar a chave apropriada
-                        .build()
-                        .parseClaimsJws(finalToken)
-                        .getBody();
+                Claims claims = jwtParser.parseClaimsJws(finalToken).getBody();
 
                 String email = claims.getSubject();
 